@@ -0,0 +1,103 @@
+package org.duniter.benchmarks;
+
+/*
+ * #%L
+ * Duniter4j :: Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.duniter.core.util.crypto.AddressFormatException;
+import org.duniter.core.util.crypto.Base58;
+import org.duniter.core.util.crypto.CryptoUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the limb-based {@link Base58} codec with the previous byte-wise one ({@link LegacyBase58}),
+ * on public keys (32 bytes) and secret keys (64 bytes).
+ * The setup checks that both codecs are byte-for-byte compatible, on many random keys.
+ * <p/>
+ * Run: <code>java -jar target/benchmarks.jar Base58Benchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base58Benchmark {
+
+    private static final int COMPATIBILITY_CHECK_COUNT = 10000;
+
+    @Param({"32", "64"})
+    public int keyLength;
+
+    private byte[] key;
+    private String keyAsBase58;
+
+    @Setup
+    public void setup() throws AddressFormatException {
+        Random random = new Random(keyLength);
+        for (int i = 0; i < COMPATIBILITY_CHECK_COUNT; i++) {
+            byte[] bytes = new byte[keyLength];
+            random.nextBytes(bytes);
+            if (i % 100 == 0) bytes[0] = 0; // leading zero
+            String expected = LegacyBase58.encode(bytes);
+            String actual = Base58.encode(bytes);
+            if (!expected.equals(actual) || !Arrays.equals(LegacyBase58.decode(expected), Base58.decode(actual))) {
+                throw new IllegalStateException("Base58 codecs are not compatible, for key: " + expected);
+            }
+        }
+
+        key = new byte[keyLength];
+        random.nextBytes(key);
+        keyAsBase58 = Base58.encode(key);
+    }
+
+    @Benchmark
+    public String encodeLegacy() {
+        return LegacyBase58.encode(key);
+    }
+
+    @Benchmark
+    public String encode() {
+        return Base58.encode(key);
+    }
+
+    @Benchmark
+    public byte[] decodeLegacy() {
+        return LegacyBase58.decode(keyAsBase58);
+    }
+
+    @Benchmark
+    public byte[] decode() throws AddressFormatException {
+        return Base58.decode(keyAsBase58);
+    }
+
+    /**
+     * Public keys are cached by CryptoUtils (secret keys are always decoded)
+     */
+    @Benchmark
+    public byte[] decodeWithCache() {
+        return CryptoUtils.decodeBase58(keyAsBase58);
+    }
+}
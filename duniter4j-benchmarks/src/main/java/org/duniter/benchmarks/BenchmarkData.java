@@ -0,0 +1,116 @@
+package org.duniter.benchmarks;
+
+/*
+ * #%L
+ * Duniter4j :: Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sample documents, shaped like BMA responses
+ */
+public final class BenchmarkData {
+
+    public static final String CURRENCY = "meta_brouzouf";
+    public static final String PUBKEY = "HnFcSms8jzwngtVomTTnzudZx7SHUQY8sVE1y8yBmULk";
+
+    private BenchmarkData() {
+        // helper class
+    }
+
+    /**
+     * An identity document (as signed by its issuer)
+     */
+    public static String newIdentityAsDocument(String pubkey, String uid) {
+        return "Version: 2\n" +
+                "Type: Identity\n" +
+                "Currency: " + CURRENCY + "\n" +
+                "Issuer: " + pubkey + "\n" +
+                "UniqueID: " + uid + "\n" +
+                "Timestamp: 15143-0000A3C0F1E9B8CFBAD8D4C5FD0A3C0F1E9B8CFBAD8D4C5FD0A3C0F1E9B8CFB\n";
+    }
+
+    /**
+     * A block, in the same field order as BMA <code>/blockchain/block/[number]</code>
+     */
+    public static String newBlockAsJson(int txCount) {
+        StringBuilder sb = new StringBuilder(1024 + txCount * 512);
+        sb.append("{\"version\":2,\"nonce\":10200000037440,\"number\":15144,\"powMin\":72,")
+          .append("\"time\":1465482137,\"medianTime\":1465478917,\"membersCount\":52,\"monetaryMass\":5800000,")
+          .append("\"unitbase\":0,\"issuersCount\":7,\"issuersFrame\":36,\"issuersFrameVar\":0,")
+          .append("\"currency\":\"").append(CURRENCY).append("\",")
+          .append("\"issuer\":\"").append(PUBKEY).append("\",")
+          .append("\"signature\":\"49OD/8pj0bU0Lg6HB4p+5TOcRbgtj8Ubxmhen4IbOXM+g33V/I56GfF+QbD9U138Ek04E9o0lSjaDIVI/BrkCw==\",")
+          .append("\"identities\":[],\"joiners\":[],\"actives\":[],\"leavers\":[],\"revoked\":[],\"excluded\":[],")
+          .append("\"certifications\":[],\"transactions\":[");
+        for (int i = 0; i < txCount; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"version\":2,\"currency\":\"").append(CURRENCY).append("\",\"blockstamp\":\"15143-0000A\",")
+              .append("\"hash\":\"E5A0A9B5E9D43BB5C0F1B3B7BC2A80E43FE1B7AE1A0E6B5B1F2D8BF0E9F0D0").append(i % 10).append("\",")
+              .append("\"issuers\":[\"").append(PUBKEY).append("\"],")
+              .append("\"inputs\":[\"1000:0:D:").append(PUBKEY).append(":").append(i).append("\"],")
+              .append("\"outputs\":[\"1000:0:SIG(").append(PUBKEY).append(")\"],")
+              .append("\"unlocks\":[\"0:SIG(0)\"],")
+              .append("\"signatures\":[\"Kb+0OwBu2U6sVlG/ra0qKk7ec+fjrTHkRL2s8HRZC2C4OgOnw5YFI5ZgvvzB6NUMZ5HcbDkiuAzfzwVq44Ek3BQ==\"],")
+              .append("\"comment\":\"tx ").append(i).append("\",\"locktime\":0}");
+        }
+        sb.append("],\"inner_hash\":\"51C6E1A3CA4D8F5EE7C6A7E06C8E9A1F79EF9FF1D2A2DFBF6DF52CB92B4F0A2E\",")
+          .append("\"hash\":\"00000E9ED4F0E0B0A8C3C0DF41F6E5DB1F5A3B1C8C3D7E5D1C4E5F4DBC3D2E1F\",")
+          .append("\"parameters\":\"\",")
+          .append("\"previousHash\":\"000003D02B95D3296A4F06DBAC51775C4336A4DC09D0E958DC40033BE7E20F3D\",")
+          .append("\"previousIssuer\":\"").append(PUBKEY).append("\",")
+          .append("\"dividend\":null}");
+        return sb.toString();
+    }
+
+    /**
+     * Read a recorded fixture (from <code>src/main/resources/fixtures</code>), so that benchmarks never need a network access
+     */
+    public static String readFixture(String name) {
+        InputStream is = BenchmarkData.class.getResourceAsStream("/fixtures/" + name);
+        if (is == null) {
+            throw new IllegalArgumentException("Fixture not found: " + name);
+        }
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = is.read(buffer)) != -1) {
+                bos.write(buffer, 0, count);
+            }
+            return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not read fixture: " + name, e);
+        }
+        finally {
+            try {
+                is.close();
+            }
+            catch (IOException e) {
+                // silent
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.duniter.benchmarks;
+
+/*
+ * #%L
+ * Duniter4j :: Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import org.duniter.core.service.Ed25519CryptoServiceImpl;
+import org.duniter.core.util.crypto.CryptoUtils;
+import org.duniter.core.util.crypto.KeyPair;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ed25519 operations, on an identity document: sign, verify (with and without the verified signatures cache),
+ * and the scrypt seed derivation used at login.
+ * <p/>
+ * Run: <code>java -jar target/benchmarks.jar CryptoBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoBenchmark {
+
+    private Ed25519CryptoServiceImpl service;
+    private Ed25519CryptoServiceImpl uncachedService;
+
+    private String document;
+    private byte[] documentAsBytes;
+    private byte[] secretKey;
+    private String publicKey;
+    private byte[] publicKeyAsBytes;
+    private String signature;
+    private byte[] signatureAsBytes;
+
+    @Setup
+    public void setup() {
+        service = new Ed25519CryptoServiceImpl();
+        // No verified signatures cache
+        uncachedService = new Ed25519CryptoServiceImpl(1, 0, 0);
+
+        KeyPair keyPair = service.getKeyPair("benchmark-salt", "benchmark-password");
+        secretKey = keyPair.getSecKey();
+        publicKeyAsBytes = keyPair.getPubKey();
+        publicKey = CryptoUtils.encodeBase58(publicKeyAsBytes);
+
+        document = BenchmarkData.newIdentityAsDocument(publicKey, "benchmark");
+        documentAsBytes = document.getBytes(StandardCharsets.UTF_8);
+        signature = service.sign(document, secretKey);
+        signatureAsBytes = service.sign(documentAsBytes, secretKey);
+
+        if (!uncachedService.verify(document, signature, publicKey)) {
+            throw new IllegalStateException("Invalid signature");
+        }
+    }
+
+    @Benchmark
+    public String sign() {
+        return service.sign(document, secretKey);
+    }
+
+    @Benchmark
+    public byte[] signBytes() {
+        return service.sign(documentAsBytes, secretKey);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return uncachedService.verify(document, signature, publicKey);
+    }
+
+    @Benchmark
+    public boolean verifyBytes() {
+        return uncachedService.verify(documentAsBytes, signatureAsBytes, publicKeyAsBytes);
+    }
+
+    @Benchmark
+    public boolean verifyCached() {
+        return service.verify(document, signature, publicKey);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 10)
+    public byte[] getSeed() {
+        return service.getSeed("benchmark-salt", "benchmark-password");
+    }
+}
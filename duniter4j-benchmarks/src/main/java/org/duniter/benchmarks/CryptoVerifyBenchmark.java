@@ -0,0 +1,91 @@
+package org.duniter.benchmarks;
+
+/*
+ * #%L
+ * Duniter4j :: Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.duniter.core.service.Ed25519CryptoServiceImpl;
+import org.duniter.core.util.crypto.CryptoUtils;
+import org.duniter.core.util.crypto.KeyPair;
+import org.duniter.core.util.crypto.SignedMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the per-call signature verification with <code>verifyBatch()</code>, on signed documents
+ * (throughput is in signatures per second).
+ * <p/>
+ * Run: <code>java -jar target/benchmarks.jar CryptoVerifyBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoVerifyBenchmark {
+
+    private static final int BATCH_SIZE = 512;
+
+    /**
+     * Number of threads used by verifyBatch()
+     */
+    @Param({"1", "4"})
+    public int threadCount;
+
+    private Ed25519CryptoServiceImpl service;
+    private List<SignedMessage> messages;
+
+    @Setup
+    public void setup() {
+        service = new Ed25519CryptoServiceImpl(threadCount);
+
+        byte[] seed = new byte[32];
+        for (int i = 0; i < seed.length; i++) seed[i] = (byte) i;
+        KeyPair keyPair = service.getKeyPairFromSeed(seed);
+        String publicKey = CryptoUtils.encodeBase58(keyPair.getPubKey());
+
+        messages = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String document = BenchmarkData.newIdentityAsDocument(publicKey, "user" + i);
+            messages.add(new SignedMessage(document, service.sign(document, keyPair.getSecKey()), publicKey));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void verify(Blackhole bh) {
+        for (SignedMessage message : messages) {
+            bh.consume(service.verify(message.getMessage(), message.getSignature(), message.getPublicKey()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public BitSet verifyBatch() {
+        return service.verifyBatch(messages);
+    }
+}
@@ -0,0 +1,73 @@
+package org.duniter.benchmarks;
+
+/*
+ * #%L
+ * Duniter4j :: Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import com.google.gson.Gson;
+import org.duniter.core.client.model.bma.BlockchainBlock;
+import org.duniter.core.client.model.bma.WotLookup;
+import org.duniter.core.client.model.bma.gson.GsonUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of recorded BMA responses into the core-client model, with the Gson instance built by {@link GsonUtils}
+ * (including the identity, joiner and revoked type adapters).
+ * <p/>
+ * Run: <code>java -jar target/benchmarks.jar GsonBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GsonBenchmark {
+
+    private Gson gson;
+    private String blockAsJson;
+    private String blocksAsJson;
+    private String wotLookupAsJson;
+
+    @Setup
+    public void setup() {
+        gson = GsonUtils.newBuilder().create();
+        blockAsJson = BenchmarkData.readFixture("block.json");
+        blocksAsJson = BenchmarkData.readFixture("blocks.json");
+        wotLookupAsJson = BenchmarkData.readFixture("wot-lookup.json");
+    }
+
+    @Benchmark
+    public BlockchainBlock block() {
+        return gson.fromJson(blockAsJson, BlockchainBlock.class);
+    }
+
+    @Benchmark
+    public BlockchainBlock[] blocks() {
+        return gson.fromJson(blocksAsJson, BlockchainBlock[].class);
+    }
+
+    @Benchmark
+    public WotLookup wotLookup() {
+        return gson.fromJson(wotLookupAsJson, WotLookup.class);
+    }
+}
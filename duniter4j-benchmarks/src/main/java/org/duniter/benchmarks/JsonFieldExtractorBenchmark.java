@@ -0,0 +1,118 @@
+package org.duniter.benchmarks;
+
+/*
+ * #%L
+ * Duniter4j :: Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.duniter.core.client.model.bma.gson.JsonAttributeParser;
+import org.duniter.core.client.model.bma.gson.JsonFieldExtractor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the regex-based {@link JsonAttributeParser} with the single-pass {@link JsonFieldExtractor},
+ * when reading block headers (number, currency, hash, previousHash).
+ * Note that the regex parser also matches nested fields: with transactions, it returns the first transaction hash.
+ * <p/>
+ * Run: <code>java -jar target/benchmarks.jar JsonFieldExtractorBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonFieldExtractorBenchmark {
+
+    /**
+     * Number of transactions in the block (hash and currency are written after them, like in BMA)
+     */
+    @Param({"0", "20"})
+    public int txCount;
+
+    private String blockAsJson;
+    private byte[] blockAsBytes;
+
+    private JsonAttributeParser numberParser;
+    private JsonAttributeParser currencyParser;
+    private JsonAttributeParser hashParser;
+    private JsonAttributeParser previousHashParser;
+
+    private JsonFieldExtractor extractor;
+    private JsonFieldExtractor.Values values;
+    private JsonFieldExtractor numberExtractor;
+    private JsonFieldExtractor.Values numberValues;
+
+    @Setup
+    public void setup() {
+        blockAsJson = BenchmarkData.newBlockAsJson(txCount);
+        blockAsBytes = blockAsJson.getBytes(StandardCharsets.UTF_8);
+
+        numberParser = new JsonAttributeParser("number");
+        currencyParser = new JsonAttributeParser("currency");
+        hashParser = new JsonAttributeParser("hash");
+        previousHashParser = new JsonAttributeParser("previousHash");
+
+        extractor = new JsonFieldExtractor("number", "currency", "hash", "previousHash");
+        values = extractor.newValues();
+        numberExtractor = new JsonFieldExtractor("number");
+        numberValues = numberExtractor.newValues();
+    }
+
+    @Benchmark
+    public void attributeParser(Blackhole bh) {
+        bh.consume(numberParser.getValueAsInt(blockAsJson));
+        bh.consume(currencyParser.getValueAsString(blockAsJson));
+        bh.consume(hashParser.getValueAsString(blockAsJson));
+        bh.consume(previousHashParser.getValueAsString(blockAsJson));
+    }
+
+    @Benchmark
+    public void fieldExtractor(Blackhole bh) {
+        extractor.extract(blockAsJson, values);
+        bh.consume(values.getInt(0));
+        bh.consume(values.getString(1));
+        bh.consume(values.getString(2));
+        bh.consume(values.getString(3));
+    }
+
+    @Benchmark
+    public void fieldExtractorBytes(Blackhole bh) {
+        extractor.extract(blockAsBytes, 0, blockAsBytes.length, values);
+        bh.consume(values.getInt(0));
+        bh.consume(values.getString(1));
+        bh.consume(values.getString(2));
+        bh.consume(values.getString(3));
+    }
+
+    @Benchmark
+    public int fieldExtractorNumberOnly() {
+        return numberExtractor.extract(blockAsJson, numberValues).getInt(0);
+    }
+
+    @Benchmark
+    public int attributeParserNumberOnly() {
+        return numberParser.getValueAsInt(blockAsJson);
+    }
+}
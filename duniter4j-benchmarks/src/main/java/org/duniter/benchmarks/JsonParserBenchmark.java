@@ -0,0 +1,86 @@
+package org.duniter.benchmarks;
+
+/*
+ * #%L
+ * Duniter4j :: Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import org.duniter.core.client.model.bma.gson.JsonArrayParser;
+import org.duniter.core.client.model.bma.gson.JsonAttributeParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hand-written parsers of core-client, on recorded BMA payloads:
+ * {@link JsonArrayParser} splits a block range (as returned by <code>/blockchain/blocks/[count]/[from]</code>),
+ * and {@link JsonAttributeParser} reads header fields from a block with identities, certifications and transactions.
+ * <p/>
+ * Run: <code>java -jar target/benchmarks.jar JsonParserBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonParserBenchmark {
+
+    private String blocksAsJson;
+    private String blockAsJson;
+
+    private JsonArrayParser arrayParser;
+    private JsonAttributeParser numberParser;
+    private JsonAttributeParser currencyParser;
+    private JsonAttributeParser previousHashParser;
+
+    @Setup
+    public void setup() {
+        blocksAsJson = BenchmarkData.readFixture("blocks.json");
+        blockAsJson = BenchmarkData.readFixture("block.json");
+
+        arrayParser = new JsonArrayParser();
+        numberParser = new JsonAttributeParser("number");
+        currencyParser = new JsonAttributeParser("currency");
+        previousHashParser = new JsonAttributeParser("previousHash");
+    }
+
+    @Benchmark
+    public String[] arrayParser() {
+        return arrayParser.getValuesAsArray(blocksAsJson);
+    }
+
+    @Benchmark
+    public void attributeParser(Blackhole bh) {
+        bh.consume(numberParser.getValueAsInt(blockAsJson));
+        bh.consume(currencyParser.getValueAsString(blockAsJson));
+        bh.consume(previousHashParser.getValueAsString(blockAsJson));
+    }
+
+    /**
+     * Split a block range, then read the number of each block (as done when indexing the blockchain)
+     */
+    @Benchmark
+    public void arrayThenAttributeParser(Blackhole bh) {
+        for (String block : arrayParser.getValuesAsArray(blocksAsJson)) {
+            bh.consume(numberParser.getValueAsInt(block));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.duniter.benchmarks;
+
+/*
+ * #%L
+ * Duniter4j :: Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compare two JMH result files (written with <code>-rf json</code>), and print the score change of each benchmark
+ * (and of its secondary metrics, e.g. the cache hits and misses counters).
+ * <p/>
+ * Run: <code>java -cp target/benchmarks.jar org.duniter.benchmarks.ResultComparator before.json after.json</code>
+ */
+public class ResultComparator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ResultComparator <baseline.json> <current.json>");
+            System.exit(1);
+        }
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        System.out.println(String.format("%-70s %14s %14s %9s  %s", "Benchmark", "Baseline", "Current", "Change", "Unit"));
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score after = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.println(String.format("%-70s %14s %14.3f %9s  %s", entry.getKey(), "-", after.value, "new", after.unit));
+                continue;
+            }
+            double change = before.value != 0 ? (after.value - before.value) * 100 / before.value : 0;
+            System.out.println(String.format("%-70s %14.3f %14.3f %+8.1f%%  %s", entry.getKey(), before.value, after.value, change, after.unit));
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.println(String.format("%-70s %14.3f %14s %9s", key, baseline.get(key).value, "-", "removed"));
+            }
+        }
+    }
+
+    /* -- internal methods -- */
+
+    protected static Map<String, Score> read(File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+        try {
+            JsonArray results = new JsonParser().parse(reader).getAsJsonArray();
+            Map<String, Score> scores = new LinkedHashMap<>();
+            for (JsonElement element : results) {
+                JsonObject result = element.getAsJsonObject();
+                JsonObject metric = result.getAsJsonObject("primaryMetric");
+                scores.put(getKey(result, null), new Score(metric.get("score").getAsDouble(), metric.get("scoreUnit").getAsString()));
+
+                JsonObject secondaryMetrics = result.getAsJsonObject("secondaryMetrics");
+                if (secondaryMetrics != null) {
+                    for (Map.Entry<String, JsonElement> entry : secondaryMetrics.entrySet()) {
+                        JsonObject secondaryMetric = entry.getValue().getAsJsonObject();
+                        scores.put(getKey(result, entry.getKey()), new Score(secondaryMetric.get("score").getAsDouble(), secondaryMetric.get("scoreUnit").getAsString()));
+                    }
+                }
+            }
+            return scores;
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @param metricName the secondary metric name, or null for the primary metric
+     * @return the benchmark name, followed by the metric name and the sorted params
+     * (e.g. <code>CryptoVerifyBenchmark.verify:threadCount=4</code>, <code>SimpleCacheBenchmark.get:hits:evictionPolicy=lru</code>)
+     */
+    protected static String getKey(JsonObject result, String metricName) {
+        StringBuilder key = new StringBuilder(result.get("benchmark").getAsString()
+                .replace(ResultComparator.class.getPackage().getName() + ".", ""));
+        if (metricName != null) {
+            key.append(':').append(metricName);
+        }
+        JsonObject params = result.getAsJsonObject("params");
+        if (params != null) {
+            Map<String, String> sortedParams = new TreeMap<>();
+            for (Map.Entry<String, JsonElement> param : params.entrySet()) {
+                sortedParams.put(param.getKey(), param.getValue().getAsString());
+            }
+            for (Map.Entry<String, String> param : sortedParams.entrySet()) {
+                key.append(':').append(param.getKey()).append('=').append(param.getValue());
+            }
+        }
+        return key.toString();
+    }
+
+    protected static class Score {
+        final double value;
+        final String unit;
+
+        Score(double value, String unit) {
+            this.value = value;
+            this.unit = unit;
+        }
+    }
+}
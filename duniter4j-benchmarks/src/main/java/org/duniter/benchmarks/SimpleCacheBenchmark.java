@@ -0,0 +1,142 @@
+package org.duniter.benchmarks;
+
+/*
+ * #%L
+ * Duniter4j :: Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import org.duniter.core.util.cache.EvictionPolicy;
+import org.duniter.core.util.cache.LruEvictionPolicy;
+import org.duniter.core.util.cache.SimpleCache;
+import org.duniter.core.util.cache.TinyLfuEvictionPolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded {@link SimpleCache}, shared by 4 threads, with a skewed key distribution
+ * (a few hot keys, like the current block or the member list, and a long tail).
+ * The cache is filled at setup. Hits and misses are reported as secondary results (<code>·hits</code>, <code>·misses</code>).
+ * <p/>
+ * Run: <code>java -jar target/benchmarks.jar SimpleCacheBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SimpleCacheBenchmark {
+
+    private static final int MAX_SIZE = 1000;
+    private static final int KEY_SPACE = 100000;
+    private static final int SAMPLE_SIZE = 1 << 16;
+
+    // State of the benchmark thread (to count misses in load())
+    private static final ThreadLocal<ThreadState> CURRENT_STATE = new ThreadLocal<>();
+
+    @Param({"lru", "tinyLfu"})
+    public String evictionPolicy;
+
+    private SimpleCache<Integer, String> cache;
+    private Integer[] keys;
+
+    @Setup
+    public void setup() {
+        EvictionPolicy<Integer> policy = "lru".equals(evictionPolicy)
+                ? new LruEvictionPolicy<Integer>()
+                : new TinyLfuEvictionPolicy<Integer>(MAX_SIZE);
+        cache = new SimpleCache<Integer, String>(-1 /*eternal*/, MAX_SIZE, -1 /*no refresh*/, policy) {
+            @Override
+            public String load(Integer key) {
+                ThreadState state = CURRENT_STATE.get();
+                if (state != null) {
+                    state.loaded = true;
+                }
+                return "value" + key;
+            }
+        };
+
+        // Skewed distribution: key = KEY_SPACE ^ u^3 (u uniform in [0,1[)
+        Random random = new Random(15144);
+        keys = new Integer[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            double u = random.nextDouble();
+            keys[i] = (int) Math.pow(KEY_SPACE, u * u * u) - 1;
+        }
+
+        // Fill the cache, so that getIfPresent() also sees hits
+        for (Integer key : keys) {
+            cache.get(key);
+        }
+    }
+
+    /**
+     * Per thread position in the keys sample, and hit/miss counters (written in the JSON results)
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ThreadState {
+        public long hits;
+        public long misses;
+        private int index = new Random().nextInt(SAMPLE_SIZE);
+        // Set by load(), which runs in the calling thread
+        private boolean loaded;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            CURRENT_STATE.set(this);
+        }
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    @Benchmark
+    public String get(ThreadState state) {
+        Integer key = keys[state.index++ & (SAMPLE_SIZE - 1)];
+        state.loaded = false;
+        String value = cache.get(key);
+        if (state.loaded) {
+            state.misses++;
+        }
+        else {
+            state.hits++;
+        }
+        return value;
+    }
+
+    @Benchmark
+    public String getIfPresent(ThreadState state) {
+        Integer key = keys[state.index++ & (SAMPLE_SIZE - 1)];
+        String value = cache.getIfPresent(key);
+        if (value == null) {
+            state.misses++;
+        }
+        else {
+            state.hits++;
+        }
+        return value;
+    }
+}
@@ -256,6 +256,86 @@ public class Configuration  {
         return Integer.parseInt(ConfigurationOption.NETWORK_CACHE_TIME_IN_MILLIS.getDefaultValue());
     }
 
+    public int getNetworkMaxConnections() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_MAX_CONNECTIONS.getKey());
+    }
+
+    public int getNetworkMaxConnectionsPerRoute() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_MAX_CONNECTIONS_PER_ROUTE.getKey());
+    }
+
+    public int getNetworkKeepAliveTimeout() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_KEEP_ALIVE_TIMEOUT.getKey());
+    }
+
+    public int getNetworkIdleConnectionTimeout() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_IDLE_CONNECTION_TIMEOUT.getKey());
+    }
+
+    public int getNetworkIdleConnectionCheckInterval() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_IDLE_CONNECTION_CHECK_INTERVAL.getKey());
+    }
+
+    public boolean isNetworkTcpNoDelay() {
+        return applicationConfig.getOptionAsBoolean(ConfigurationOption.NETWORK_TCP_NO_DELAY.getKey());
+    }
+
+    public int getNetworkPeerMaxBlockLag() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_PEER_MAX_BLOCK_LAG.getKey());
+    }
+
+    public int getNetworkPeerMaxFailures() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_PEER_MAX_FAILURES.getKey());
+    }
+
+    public int getNetworkCircuitBreakerFailureThreshold() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_CIRCUIT_BREAKER_FAILURE_THRESHOLD.getKey());
+    }
+
+    public int getNetworkCircuitBreakerOpenTimeout() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_CIRCUIT_BREAKER_OPEN_TIMEOUT.getKey());
+    }
+
+    public int getNetworkRetryMaxRetries() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_RETRY_MAX_RETRIES.getKey());
+    }
+
+    public int getNetworkRetryBaseDelay() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_RETRY_BASE_DELAY.getKey());
+    }
+
+    public int getNetworkRetryMaxDelay() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_RETRY_MAX_DELAY.getKey());
+    }
+
+    public double getNetworkRetryBudgetRatio() {
+        return applicationConfig.getOptionAsDouble(ConfigurationOption.NETWORK_RETRY_BUDGET_RATIO.getKey());
+    }
+
+    public String getNetworkCacheTtl() {
+        return applicationConfig.getOption(ConfigurationOption.NETWORK_CACHE_TTL.getKey());
+    }
+
+    public boolean isNetworkBlockFeedEnable() {
+        return applicationConfig.getOptionAsBoolean(ConfigurationOption.NETWORK_BLOCK_FEED_ENABLE.getKey());
+    }
+
+    public boolean isCacheDiskEnable() {
+        return applicationConfig.getOptionAsBoolean(ConfigurationOption.CACHE_DISK_ENABLE.getKey());
+    }
+
+    public int getCacheDiskSegmentSize() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.CACHE_DISK_SEGMENT_SIZE.getKey());
+    }
+
+    public int getCacheDiskMinBlockDepth() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.CACHE_DISK_MIN_BLOCK_DEPTH.getKey());
+    }
+
+    public int getNetworkAsyncIoThreadCount() {
+        return applicationConfig.getOptionAsInt(ConfigurationOption.NETWORK_ASYNC_IO_THREAD_COUNT.getKey());
+    }
+
     public String getNodeElasticSearchHost() {
         return applicationConfig.getOption(ConfigurationOption.NODE_ELASTICSEARCH_HOST.getKey());
     }
@@ -175,6 +175,146 @@ public enum ConfigurationOption implements ConfigOptionDef {
             Integer.class,
             false),
 
+    NETWORK_MAX_CONNECTIONS(
+            "duniter4j.network.maxConnections",
+            n("duniter4j.config.option.network.maxConnections.description"),
+            "100",
+            Integer.class,
+            false),
+
+    NETWORK_MAX_CONNECTIONS_PER_ROUTE(
+            "duniter4j.network.maxConnectionsPerRoute",
+            n("duniter4j.config.option.network.maxConnectionsPerRoute.description"),
+            "10",
+            Integer.class,
+            false),
+
+    NETWORK_KEEP_ALIVE_TIMEOUT(
+            "duniter4j.network.keepAliveTimeout",
+            n("duniter4j.config.option.network.keepAliveTimeout.description"),
+            "30000", // = 30 s, when the server send no Keep-Alive header
+            Integer.class,
+            false),
+
+    NETWORK_IDLE_CONNECTION_TIMEOUT(
+            "duniter4j.network.idleConnectionTimeout",
+            n("duniter4j.config.option.network.idleConnectionTimeout.description"),
+            "30000", // = 30 s
+            Integer.class,
+            false),
+
+    NETWORK_IDLE_CONNECTION_CHECK_INTERVAL(
+            "duniter4j.network.idleConnectionCheckInterval",
+            n("duniter4j.config.option.network.idleConnectionCheckInterval.description"),
+            "5000", // = 5 s
+            Integer.class,
+            false),
+
+    NETWORK_TCP_NO_DELAY(
+            "duniter4j.network.tcpNoDelay",
+            n("duniter4j.config.option.network.tcpNoDelay.description"),
+            "true",
+            Boolean.class,
+            false),
+
+    NETWORK_PEER_MAX_BLOCK_LAG(
+            "duniter4j.network.peer.maxBlockLag",
+            n("duniter4j.config.option.network.peer.maxBlockLag.description"),
+            "3",
+            Integer.class,
+            false),
+
+    NETWORK_PEER_MAX_FAILURES(
+            "duniter4j.network.peer.maxFailures",
+            n("duniter4j.config.option.network.peer.maxFailures.description"),
+            "3",
+            Integer.class,
+            false),
+
+    NETWORK_CIRCUIT_BREAKER_FAILURE_THRESHOLD(
+            "duniter4j.network.circuitBreaker.failureThreshold",
+            n("duniter4j.config.option.network.circuitBreaker.failureThreshold.description"),
+            "5",
+            Integer.class,
+            false),
+
+    NETWORK_CIRCUIT_BREAKER_OPEN_TIMEOUT(
+            "duniter4j.network.circuitBreaker.openTimeout",
+            n("duniter4j.config.option.network.circuitBreaker.openTimeout.description"),
+            "30000",
+            Integer.class,
+            false),
+
+    NETWORK_RETRY_MAX_RETRIES(
+            "duniter4j.network.retry.maxRetries",
+            n("duniter4j.config.option.network.retry.maxRetries.description"),
+            "2",
+            Integer.class,
+            false),
+
+    NETWORK_RETRY_BASE_DELAY(
+            "duniter4j.network.retry.baseDelay",
+            n("duniter4j.config.option.network.retry.baseDelay.description"),
+            "200",
+            Integer.class,
+            false),
+
+    NETWORK_RETRY_MAX_DELAY(
+            "duniter4j.network.retry.maxDelay",
+            n("duniter4j.config.option.network.retry.maxDelay.description"),
+            "5000",
+            Integer.class,
+            false),
+
+    NETWORK_RETRY_BUDGET_RATIO(
+            "duniter4j.network.retry.budgetRatio",
+            n("duniter4j.config.option.network.retry.budgetRatio.description"),
+            "0.1",
+            Double.class,
+            false),
+
+    NETWORK_CACHE_TTL(
+            "duniter4j.network.cache.ttl",
+            n("duniter4j.config.option.network.cache.ttl.description"),
+            "/blockchain/current=1000,/blockchain/parameters=60000,/wot/lookup/=1000",
+            String.class,
+            false),
+
+    NETWORK_BLOCK_FEED_ENABLE(
+            "duniter4j.network.blockFeed.enable",
+            n("duniter4j.config.option.network.blockFeed.enable.description"),
+            "true",
+            Boolean.class,
+            false),
+
+    CACHE_DISK_ENABLE(
+            "duniter4j.cache.disk.enable",
+            n("duniter4j.config.option.cache.disk.enable.description"),
+            "true",
+            Boolean.class,
+            false),
+
+    CACHE_DISK_SEGMENT_SIZE(
+            "duniter4j.cache.disk.segmentSize",
+            n("duniter4j.config.option.cache.disk.segmentSize.description"),
+            "16777216",
+            Integer.class,
+            false),
+
+    CACHE_DISK_MIN_BLOCK_DEPTH(
+            "duniter4j.cache.disk.minBlockDepth",
+            n("duniter4j.config.option.cache.disk.minBlockDepth.description"),
+            "100",
+            Integer.class,
+            false),
+
+    NETWORK_ASYNC_IO_THREAD_COUNT(
+            "duniter4j.network.async.ioThreadCount",
+            n("duniter4j.config.option.network.async.ioThreadCount.description"),
+            "2",
+            Integer.class,
+            false),
+
     NODE_ELASTICSEARCH_PROTOCOL(
             "duniter4j.node.elasticsearch.protocol",
             n("duniter4j.config.option.node.elasticsearch.protocol.description"),
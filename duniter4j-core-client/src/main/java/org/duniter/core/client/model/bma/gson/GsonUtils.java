@@ -29,11 +29,17 @@ import org.duniter.core.client.model.bma.BlockchainBlock;
 import org.duniter.core.client.model.bma.NetworkPeering;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GsonUtils {
 
     public static final String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss";
 
+    /* extractors and parsers are thread-safe, so keep them by attribute name */
+    private static final Map<String, JsonFieldExtractor> EXTRACTORS = new ConcurrentHashMap<>();
+    private static final Map<String, JsonAttributeParser> PARSERS = new ConcurrentHashMap<>();
+
     public static GsonBuilder newBuilder() {
         return new GsonBuilder()
                 // make sure date will be serialized
@@ -50,23 +56,48 @@ public class GsonUtils {
     }
 
     public static List<String> getValuesFromJSONAsString(String jsonString, String attributeName) {
-        return new JsonAttributeParser(attributeName).getValues(jsonString);
+        JsonAttributeParser parser = PARSERS.get(attributeName);
+        if (parser == null) {
+            parser = new JsonAttributeParser(attributeName);
+            PARSERS.put(attributeName, parser);
+        }
+        return parser.getValues(jsonString);
     }
 
+    /**
+     * Get a top-level string attribute (nested attributes are ignored)
+     */
     public static String getValueFromJSONAsString(String jsonString, String attributeName) {
-        return new JsonAttributeParser(attributeName).getValueAsString(jsonString);
+        return getExtractor(attributeName).extract(jsonString).getString(0);
     }
 
+    /**
+     * Get a top-level numeric attribute (nested attributes are ignored)
+     */
     public static Number getValueFromJSONAsNumber(String jsonString, String attributeName) {
-        return new JsonAttributeParser(attributeName).getValueAsNumber(jsonString);
+        return getExtractor(attributeName).extract(jsonString).getNumber(0);
     }
 
+    /**
+     * Get a top-level numeric attribute (nested attributes are ignored)
+     */
     public static int getValueFromJSONAsInt(String jsonString, String attributeName) {
-        return new JsonAttributeParser(attributeName).getValueAsInt(jsonString);
+        return getExtractor(attributeName).extract(jsonString).getInt(0);
     }
 
     public static List<String> getArrayValuesFromJSONAsInt(String jsonString) {
         return new JsonArrayParser().getValuesAsList(jsonString);
     }
 
+    /* -- internal methods -- */
+
+    private static JsonFieldExtractor getExtractor(String attributeName) {
+        JsonFieldExtractor extractor = EXTRACTORS.get(attributeName);
+        if (extractor == null) {
+            extractor = new JsonFieldExtractor(attributeName);
+            EXTRACTORS.put(attributeName, extractor);
+        }
+        return extractor;
+    }
+
 }
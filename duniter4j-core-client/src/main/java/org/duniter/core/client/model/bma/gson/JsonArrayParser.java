@@ -54,8 +54,32 @@ public class JsonArrayParser {
         StringBuilder currentObject = null;
         int i = 0;
         int parenthesisBalance = 0;
+        boolean inString = false;
+        boolean escaped = false;
         for (char c : jsonArray.toCharArray()) {
+            // Ignore braces inside string literals
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                }
+                else if (c == '\\') {
+                    escaped = true;
+                }
+                else if (c == '"') {
+                    inString = false;
+                }
+                currentObject.append(c);
+                i++;
+                continue;
+            }
             switch (c) {
+                case '"': {
+                    if (state == ParserState.READING_OBJECT) {
+                        inString = true;
+                        currentObject.append(c);
+                    }
+                    break;
+                }
                 case '{': {
                     if (state == ParserState.READING_ARRAY) {
                         state = ParserState.READING_OBJECT;
@@ -0,0 +1,253 @@
+package org.duniter.core.client.model.bma.gson;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import com.google.gson.JsonParseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Split a JSON array, read from a stream, into its items (as bytes), without deserialize each item.
+ * The stream is read using a large buffer, and each item is copied only once.
+ * Braces and brackets inside string literals are ignored.
+ */
+public class JsonArrayStreamParser {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MIN_VALUE_SIZE = 1024;
+
+    /**
+     * Receive each array item
+     */
+    public interface ValueHandler {
+
+        /**
+         * @param bytes the item, as UTF-8 bytes. The array is never reused by the parser (could be kept by the handler)
+         * @param offset the item start, in <code>bytes</code>
+         * @param length the item length
+         */
+        void onValue(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    private final int bufferSize;
+
+    public JsonArrayStreamParser() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonArrayStreamParser(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int parse(byte[] jsonArray, ValueHandler handler) throws IOException, JsonParseException {
+        return parse(new ByteArrayInputStream(jsonArray), handler);
+    }
+
+    /**
+     * Read the JSON array, and send each item to the handler
+     * @return the number of items
+     */
+    public int parse(InputStream is, ValueHandler handler) throws IOException, JsonParseException {
+        byte[] buf = new byte[bufferSize];
+        ValueBuffer value = new ValueBuffer();
+
+        boolean arrayStarted = false;
+        boolean arrayEnded = false;
+        boolean inString = false;
+        boolean escaped = false;
+        boolean inValue = false;
+        int depth = 0;
+        int count = 0;
+        long pos = 0;
+
+        int len;
+        while ((len = is.read(buf)) != -1) {
+            int valueStart = 0;
+            for (int i = 0; i < len; i++, pos++) {
+                byte b = buf[i];
+
+                // Inside a string literal: only look for the end quote
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    }
+                    else if (b == '\\') {
+                        escaped = true;
+                    }
+                    else if (b == '"') {
+                        inString = false;
+                    }
+                    continue;
+                }
+
+                if (arrayEnded) {
+                    if (!isWhitespace(b)) {
+                        throw new JsonParseException("unexpected character after the array end, at " + pos);
+                    }
+                    continue;
+                }
+
+                if (!arrayStarted) {
+                    if (b == '[') {
+                        arrayStarted = true;
+                        depth = 1;
+                    }
+                    else if (!isWhitespace(b)) {
+                        throw new JsonParseException("expected '[' at " + pos);
+                    }
+                    continue;
+                }
+
+                // Between items
+                if (!inValue) {
+                    if (isWhitespace(b) || b == ',') {
+                        continue;
+                    }
+                    if (b == ']') {
+                        arrayEnded = true;
+                        depth = 0;
+                        continue;
+                    }
+                    if (b == '}') {
+                        throw new JsonParseException("unexpected '}' at " + pos);
+                    }
+                    inValue = true;
+                    valueStart = i;
+                    if (b == '{' || b == '[') {
+                        depth++;
+                    }
+                    else if (b == '"') {
+                        inString = true;
+                    }
+                    continue;
+                }
+
+                // Inside an item
+                switch (b) {
+                    case '"':
+                        inString = true;
+                        break;
+                    case '{':
+                    case '[':
+                        depth++;
+                        break;
+                    case '}':
+                    case ']':
+                        if (depth == 1) {
+                            // End of the array, after a scalar item
+                            if (b == '}') {
+                                throw new JsonParseException("unexpected '}' at " + pos);
+                            }
+                            value.append(buf, valueStart, i - valueStart);
+                            emit(value, handler);
+                            count++;
+                            inValue = false;
+                            arrayEnded = true;
+                            depth = 0;
+                        }
+                        else if (--depth == 1) {
+                            value.append(buf, valueStart, i + 1 - valueStart);
+                            emit(value, handler);
+                            count++;
+                            inValue = false;
+                        }
+                        break;
+                    case ',':
+                        // End of a scalar item
+                        if (depth == 1) {
+                            value.append(buf, valueStart, i - valueStart);
+                            emit(value, handler);
+                            count++;
+                            inValue = false;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            // Item continues in the next buffer
+            if (inValue) {
+                value.append(buf, valueStart, len - valueStart);
+            }
+        }
+
+        if (!arrayStarted) {
+            return 0;
+        }
+        if (!arrayEnded) {
+            throw new JsonParseException("unexpected end of JSON array, at " + pos);
+        }
+        return count;
+    }
+
+    /* -- internal methods -- */
+
+    protected void emit(ValueBuffer value, ValueHandler handler) throws IOException {
+        // Trim whitespaces after scalar items
+        while (value.length > 0 && isWhitespace(value.bytes[value.length - 1])) {
+            value.length--;
+        }
+        byte[] bytes = value.bytes;
+        int length = value.length;
+        value.reset();
+        handler.onValue(bytes, 0, length);
+    }
+
+    protected static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Growable buffer of the current item. After each item, a new array is allocated (sized from the previous item).
+     */
+    private static class ValueBuffer {
+        byte[] bytes;
+        int length;
+        int expectedSize = MIN_VALUE_SIZE;
+
+        void append(byte[] src, int offset, int count) {
+            if (count <= 0) {
+                return;
+            }
+            if (bytes == null) {
+                bytes = new byte[Math.max(expectedSize, count)];
+            }
+            else if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, length + count));
+            }
+            System.arraycopy(src, offset, bytes, length, count);
+            length += count;
+        }
+
+        void reset() {
+            expectedSize = Math.max(MIN_VALUE_SIZE, length + (length >> 3));
+            bytes = null;
+            length = 0;
+        }
+    }
+}
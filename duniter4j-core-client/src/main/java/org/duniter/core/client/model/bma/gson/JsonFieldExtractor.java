@@ -0,0 +1,550 @@
+package org.duniter.core.client.model.bma.gson;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.duniter.core.exception.TechnicalException;
+import org.duniter.core.util.ObjectUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Extract some top-level fields of a JSON object, in a single pass and without regular expressions.
+ * <p/>
+ * Only keys of the root object are matched (nested objects and arrays are skipped), so a <code>"number"</code>
+ * field inside a nested object will never shadow the root one. Numeric values are decoded as primitive
+ * <code>long</code>, and only matched string values are allocated.
+ * <p/>
+ * Instances are immutable and thread-safe: create them once (e.g. as static fields) and share them.
+ * <pre>
+ * JsonFieldExtractor extractor = new JsonFieldExtractor("number", "hash");
+ * JsonFieldExtractor.Values values = extractor.extract(json);
+ * int number = values.getInt(0);
+ * String hash = values.getString(1);
+ * </pre>
+ */
+public class JsonFieldExtractor {
+
+    private static final byte TYPE_MISSING = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_NUMBER = 2;
+    private static final byte TYPE_DECIMAL = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+    private static final byte TYPE_NULL = 5;
+    private static final byte TYPE_OTHER = 6;
+
+    private final String[] fieldNames;
+
+    public JsonFieldExtractor(String... fieldNames) {
+        ObjectUtils.checkNotNull(fieldNames);
+        ObjectUtils.checkArgument(fieldNames.length > 0, "At least one field name is required");
+        for (String fieldName: fieldNames) {
+            ObjectUtils.checkNotNull(fieldName);
+        }
+        this.fieldNames = Arrays.copyOf(fieldNames, fieldNames.length);
+    }
+
+    public int getFieldCount() {
+        return fieldNames.length;
+    }
+
+    /**
+     * @return the index of the given field, or -1 if this extractor does not handle it
+     */
+    public int indexOf(String fieldName) {
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (fieldNames[i].equals(fieldName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Create an empty result holder, that could be reused by {@link #extract(String, Values)}
+     */
+    public Values newValues() {
+        return new Values(this);
+    }
+
+    public Values extract(String json) {
+        return extract(json, newValues());
+    }
+
+    public Values extract(String json, Values result) {
+        ObjectUtils.checkNotNull(json);
+        return extract(new StringInput(json), 0, json.length(), result);
+    }
+
+    public Values extract(byte[] bytes) {
+        ObjectUtils.checkNotNull(bytes);
+        return extract(bytes, 0, bytes.length, newValues());
+    }
+
+    public Values extract(byte[] bytes, int offset, int length) {
+        return extract(bytes, offset, length, newValues());
+    }
+
+    /**
+     * Extract fields from an UTF-8 encoded JSON object
+     */
+    public Values extract(byte[] bytes, int offset, int length, Values result) {
+        ObjectUtils.checkNotNull(bytes);
+        return extract(new BytesInput(bytes), offset, offset + length, result);
+    }
+
+    /**
+     * Holds extracted values, by field index (same order as the extractor field names)
+     */
+    public static class Values {
+        private final JsonFieldExtractor extractor;
+        private final byte[] types;
+        private final long[] longs;
+        private final double[] doubles;
+        private final String[] strings;
+
+        private Values(JsonFieldExtractor extractor) {
+            int count = extractor.fieldNames.length;
+            this.extractor = extractor;
+            this.types = new byte[count];
+            this.longs = new long[count];
+            this.doubles = new double[count];
+            this.strings = new String[count];
+        }
+
+        public boolean isPresent(int index) {
+            return types[index] != TYPE_MISSING;
+        }
+
+        public boolean isNull(int index) {
+            return types[index] == TYPE_NULL;
+        }
+
+        public boolean isNumber(int index) {
+            return types[index] == TYPE_NUMBER || types[index] == TYPE_DECIMAL;
+        }
+
+        /**
+         * @return the string value, or null if missing or not a JSON string
+         */
+        public String getString(int index) {
+            return strings[index];
+        }
+
+        public String getString(String fieldName) {
+            return getString(checkIndex(fieldName));
+        }
+
+        /**
+         * @return the numeric value, or 0 if missing or not a JSON number
+         */
+        public long getLong(int index) {
+            switch (types[index]) {
+                case TYPE_NUMBER:
+                    return longs[index];
+                case TYPE_DECIMAL:
+                    return (long)doubles[index];
+                default:
+                    return 0;
+            }
+        }
+
+        public long getLong(String fieldName) {
+            return getLong(checkIndex(fieldName));
+        }
+
+        /**
+         * @return the numeric value, or 0 if missing or not a JSON number
+         */
+        public int getInt(int index) {
+            return (int)getLong(index);
+        }
+
+        public int getInt(String fieldName) {
+            return getInt(checkIndex(fieldName));
+        }
+
+        public double getDouble(int index) {
+            switch (types[index]) {
+                case TYPE_NUMBER:
+                    return longs[index];
+                case TYPE_DECIMAL:
+                    return doubles[index];
+                default:
+                    return 0;
+            }
+        }
+
+        /**
+         * @return the numeric value (as Long or Double), or null if missing or not a JSON number
+         */
+        public Number getNumber(int index) {
+            switch (types[index]) {
+                case TYPE_NUMBER:
+                    return longs[index];
+                case TYPE_DECIMAL:
+                    return doubles[index];
+                default:
+                    return null;
+            }
+        }
+
+        public boolean getBoolean(int index) {
+            return types[index] == TYPE_BOOLEAN && longs[index] != 0;
+        }
+
+        private int checkIndex(String fieldName) {
+            int index = extractor.indexOf(fieldName);
+            if (index == -1) {
+                throw new IllegalArgumentException(String.format("Field [%s] is not handled by this extractor", fieldName));
+            }
+            return index;
+        }
+
+        private void clear() {
+            Arrays.fill(types, TYPE_MISSING);
+            Arrays.fill(strings, null);
+        }
+    }
+
+    /* -- internal methods -- */
+
+    /**
+     * Abstraction over String and UTF-8 byte[], to share the scanning code.
+     * Only ASCII characters are meaningful for the JSON structure, so bytes can be compared to chars directly.
+     */
+    private static abstract class Input {
+        abstract int charAt(int index);
+        abstract String substring(int start, int end);
+        /** @return the position of the given ASCII char, or -1 if not found before <code>end</code> */
+        abstract int indexOf(char c, int from, int end);
+    }
+
+    private static final class StringInput extends Input {
+        private final String value;
+        StringInput(String value) {
+            this.value = value;
+        }
+        @Override
+        int charAt(int index) {
+            return value.charAt(index);
+        }
+        @Override
+        String substring(int start, int end) {
+            return value.substring(start, end);
+        }
+        @Override
+        int indexOf(char c, int from, int end) {
+            int pos = value.indexOf(c, from);
+            return pos < end ? pos : -1;
+        }
+    }
+
+    private static final class BytesInput extends Input {
+        private final byte[] value;
+        BytesInput(byte[] value) {
+            this.value = value;
+        }
+        @Override
+        int charAt(int index) {
+            return value[index] & 0xFF;
+        }
+        @Override
+        String substring(int start, int end) {
+            return new String(value, start, end - start, StandardCharsets.UTF_8);
+        }
+        @Override
+        int indexOf(char c, int from, int end) {
+            for (int i = from; i < end; i++) {
+                if (value[i] == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private Values extract(Input in, int start, int end, Values result) {
+        ObjectUtils.checkArgument(result.extractor == this, "Values was created by another extractor");
+        result.clear();
+
+        int pos = skipWhitespaces(in, start, end);
+        if (pos >= end || in.charAt(pos) != '{') {
+            throw new TechnicalException("Error while parsing json: a JSON object was expected");
+        }
+        pos++;
+
+        int remaining = fieldNames.length;
+        while (remaining > 0) {
+            pos = skipWhitespaces(in, pos, end);
+            checkNotEnd(pos, end);
+            int c = in.charAt(pos);
+            if (c == '}') {
+                break;
+            }
+            if (c == ',') {
+                pos = skipWhitespaces(in, pos + 1, end);
+                checkNotEnd(pos, end);
+                c = in.charAt(pos);
+            }
+            if (c != '"') {
+                throw new TechnicalException(String.format("Error while parsing json: unexpected character '%s' at position %s", (char)c, pos));
+            }
+
+            // Read the key, and find the matching field (if any)
+            int keyStart = pos + 1;
+            int keyEnd = skipString(in, pos, end) - 1;
+            int fieldIndex = matchField(in, keyStart, keyEnd, result);
+
+            pos = skipWhitespaces(in, keyEnd + 1, end);
+            if (pos >= end || in.charAt(pos) != ':') {
+                throw new TechnicalException(String.format("Error while parsing json: ':' expected at position %s", pos));
+            }
+            pos = skipWhitespaces(in, pos + 1, end);
+            checkNotEnd(pos, end);
+
+            if (fieldIndex == -1) {
+                pos = skipValue(in, pos, end);
+            }
+            else {
+                pos = readValue(in, pos, end, result, fieldIndex);
+                remaining--;
+            }
+        }
+
+        return result;
+    }
+
+    private int matchField(Input in, int keyStart, int keyEnd, Values result) {
+        int keyLength = keyEnd - keyStart;
+        for (int i = 0; i < fieldNames.length; i++) {
+            String fieldName = fieldNames[i];
+            if (result.types[i] != TYPE_MISSING || fieldName.length() != keyLength) {
+                continue;
+            }
+            int j = 0;
+            while (j < keyLength && in.charAt(keyStart + j) == fieldName.charAt(j)) {
+                j++;
+            }
+            if (j == keyLength) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int readValue(Input in, int pos, int end, Values result, int index) {
+        int c = in.charAt(pos);
+        switch (c) {
+            case '"': {
+                int valueEnd = skipString(in, pos, end);
+                result.types[index] = TYPE_STRING;
+                result.strings[index] = decodeString(in, pos + 1, valueEnd - 1);
+                return valueEnd;
+            }
+            case 't':
+                result.types[index] = TYPE_BOOLEAN;
+                result.longs[index] = 1;
+                return skipLiteral(in, pos, end);
+            case 'f':
+                result.types[index] = TYPE_BOOLEAN;
+                result.longs[index] = 0;
+                return skipLiteral(in, pos, end);
+            case 'n':
+                result.types[index] = TYPE_NULL;
+                return skipLiteral(in, pos, end);
+            case '{':
+            case '[':
+                result.types[index] = TYPE_OTHER;
+                return skipValue(in, pos, end);
+            default:
+                return readNumber(in, pos, end, result, index);
+        }
+    }
+
+    private int readNumber(Input in, int pos, int end, Values result, int index) {
+        int start = pos;
+        boolean negative = false;
+        if (in.charAt(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+        long value = 0;
+        int digits = 0;
+        int c;
+        while (pos < end && (c = in.charAt(pos)) >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            digits++;
+            pos++;
+        }
+        if (digits == 0) {
+            throw new TechnicalException(String.format("Error while parsing json numeric value, for attribute [%s] at position %s", fieldNames[index], start));
+        }
+
+        // Decimal or exponent part: rare in BMA documents, so delegate to the JDK
+        if (pos < end && ((c = in.charAt(pos)) == '.' || c == 'e' || c == 'E') || digits > 18) {
+            while (pos < end && isNumberChar(in.charAt(pos))) {
+                pos++;
+            }
+            try {
+                result.doubles[index] = Double.parseDouble(in.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw new TechnicalException(String.format("Error while parsing json numeric value, for attribute [%s]: %s", fieldNames[index], e.getMessage()), e);
+            }
+            result.types[index] = TYPE_DECIMAL;
+            return pos;
+        }
+
+        result.types[index] = TYPE_NUMBER;
+        result.longs[index] = negative ? -value : value;
+        return pos;
+    }
+
+    private static boolean isNumberChar(int c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-';
+    }
+
+    private static String decodeString(Input in, int start, int end) {
+        // Fast path: no escape sequence
+        int escapePos = -1;
+        for (int i = start; i < end; i++) {
+            if (in.charAt(i) == '\\') {
+                escapePos = i;
+                break;
+            }
+        }
+        if (escapePos == -1) {
+            return in.substring(start, end);
+        }
+
+        StringBuilder sb = new StringBuilder(end - start);
+        sb.append(in.substring(start, escapePos));
+        int i = escapePos;
+        while (i < end) {
+            int c = in.charAt(i);
+            if (c != '\\') {
+                // Copy the whole unescaped segment at once (keeps UTF-8 sequences intact)
+                int segmentEnd = i + 1;
+                while (segmentEnd < end && in.charAt(segmentEnd) != '\\') {
+                    segmentEnd++;
+                }
+                sb.append(in.substring(i, segmentEnd));
+                i = segmentEnd;
+                continue;
+            }
+            c = in.charAt(++i);
+            switch (c) {
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    sb.append((char)Integer.parseInt(in.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    sb.append((char)c);
+            }
+            i++;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the position just after the closing quote
+     */
+    private static int skipString(Input in, int pos, int end) {
+        int quotePos = in.indexOf('"', pos + 1, end);
+        while (quotePos != -1) {
+            // Count preceding backslashes: an odd count means the quote is escaped
+            int backslashCount = 0;
+            while (in.charAt(quotePos - 1 - backslashCount) == '\\') {
+                backslashCount++;
+            }
+            if ((backslashCount & 1) == 0) {
+                return quotePos + 1;
+            }
+            quotePos = in.indexOf('"', quotePos + 1, end);
+        }
+        throw new TechnicalException("Error while parsing json: unterminated string");
+    }
+
+    private static int skipLiteral(Input in, int pos, int end) {
+        while (pos < end) {
+            int c = in.charAt(pos);
+            if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipValue(Input in, int pos, int end) {
+        int c = in.charAt(pos);
+        if (c == '"') {
+            return skipString(in, pos, end);
+        }
+        if (c != '{' && c != '[') {
+            return skipLiteral(in, pos, end);
+        }
+
+        int depth = 0;
+        while (pos < end) {
+            c = in.charAt(pos);
+            if (c == '"') {
+                pos = skipString(in, pos, end);
+                continue;
+            }
+            if (c == '{' || c == '[') {
+                depth++;
+            }
+            else if (c == '}' || c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return pos + 1;
+                }
+            }
+            pos++;
+        }
+        throw new TechnicalException("Error while parsing json: unterminated object or array");
+    }
+
+    private static int skipWhitespaces(Input in, int pos, int end) {
+        while (pos < end && isWhitespace(in.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private static void checkNotEnd(int pos, int end) {
+        if (pos >= end) {
+            throw new TechnicalException("Error while parsing json: unexpected end of input");
+        }
+    }
+}
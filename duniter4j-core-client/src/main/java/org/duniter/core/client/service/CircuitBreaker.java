@@ -0,0 +1,205 @@
+package org.duniter.core.client.service;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import org.duniter.core.util.ObjectUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker of a peer:
+ * <ul>
+ *     <li><b>closed</b>: requests are sent. After <code>failureThreshold</code> consecutive failures, the breaker opens;</li>
+ *     <li><b>open</b>: requests fail fast, without any network access. After <code>openTimeout</code>, the breaker becomes half-open;</li>
+ *     <li><b>half-open</b>: only one probe request is sent. On success the breaker closes, on failure it opens again.</li>
+ * </ul>
+ * A failure is a transport error (connect, timeout, reset) or a server error (5xx) - never a response with a client error status.
+ * This class is thread-safe.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openTimeoutMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong openedCount = new AtomicLong();
+    private final AtomicLong halfOpenedCount = new AtomicLong();
+    private final AtomicLong closedCount = new AtomicLong();
+
+    public CircuitBreaker(String name, int failureThreshold, long openTimeoutMs) {
+        ObjectUtils.checkArgument(failureThreshold > 0, "failureThreshold must be > 0");
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openTimeoutMs = openTimeoutMs;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Ask permission to send a request. When true is returned, the caller MUST report the result,
+     * using {@link #onSuccess()} or {@link #onFailure()}
+     * @return false if the request should fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openTimeoutMs) {
+                    rejectedCount.incrementAndGet();
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+                probeInFlight = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                if (probeInFlight) {
+                    rejectedCount.incrementAndGet();
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * @return true if a request would be sent now (does not acquire the half-open probe)
+     */
+    public synchronized boolean isAvailable() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return System.currentTimeMillis() - openedAt >= openTimeoutMs;
+            case HALF_OPEN:
+            default:
+                return !probeInFlight;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        successCount.incrementAndGet();
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state != State.CLOSED) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure() {
+        failureCount.incrementAndGet();
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            transitionTo(State.OPEN);
+        }
+        else if (state == State.OPEN) {
+            // Late failure, of a request sent before opening: extend the open delay
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Release an acquired permission, without any result (e.g. a cancelled request)
+     */
+    public synchronized void release() {
+        probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * @return number of requests failed fast (not sent)
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getOpenedCount() {
+        return openedCount.get();
+    }
+
+    public long getHalfOpenedCount() {
+        return halfOpenedCount.get();
+    }
+
+    public long getClosedCount() {
+        return closedCount.get();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %s (failures=%s/%s, success=%s, failure=%s, rejected=%s, opened=%s)",
+                name, state, consecutiveFailures, failureThreshold,
+                successCount.get(), failureCount.get(), rejectedCount.get(), openedCount.get());
+    }
+
+    /* -- internal methods -- */
+
+    private void transitionTo(State newState) {
+        state = newState;
+        switch (newState) {
+            case OPEN:
+                openedAt = System.currentTimeMillis();
+                openedCount.incrementAndGet();
+                break;
+            case HALF_OPEN:
+                halfOpenedCount.incrementAndGet();
+                break;
+            case CLOSED:
+            default:
+                closedCount.incrementAndGet();
+                break;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.duniter.core.client.service;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import org.apache.http.HttpEntity;
+import org.apache.http.util.EntityUtils;
+import org.duniter.core.client.service.exception.JsonSyntaxException;
+import org.duniter.core.exception.TechnicalException;
+import org.duniter.core.util.ObjectUtils;
+import org.nuiton.i18n.I18n;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decode HTTP response bodies, in one pass:
+ * <ul>
+ *     <li>raw bodies (<code>byte[]</code>, <code>ByteBuffer</code>, <code>String</code>) are read once, with a buffer sized from the Content-Length;</li>
+ *     <li>typed models are deserialized by Gson, from a buffered stream (the body is never copied into a String).</li>
+ * </ul>
+ * Only a bounded prefix of the body is kept, to report JSON syntax errors.
+ * This class is thread-safe.
+ */
+public class HttpResponseDecoder {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpResponseDecoder.class);
+
+    public static final int DEFAULT_ERROR_PREFIX_SIZE = 1024;
+
+    private static final int READER_BUFFER_SIZE = 8192;
+
+    private final Gson gson;
+    private final int errorPrefixSize;
+
+    public HttpResponseDecoder(Gson gson) {
+        this(gson, DEFAULT_ERROR_PREFIX_SIZE);
+    }
+
+    public HttpResponseDecoder(Gson gson, int errorPrefixSize) {
+        ObjectUtils.checkNotNull(gson);
+        this.gson = gson;
+        this.errorPrefixSize = errorPrefixSize;
+    }
+
+    /**
+     * @param resultClass the expected type. <code>String</code>, <code>byte[]</code> and <code>ByteBuffer</code> return the raw body.
+     * @return the decoded body (never null)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T decode(HttpEntity entity, Class<? extends T> resultClass) throws IOException {
+        ObjectUtils.checkNotNull(resultClass);
+        if (entity == null) {
+            throw new TechnicalException(I18n.t("duniter4j.client.core.emptyResponse"));
+        }
+
+        // Raw body
+        if (resultClass == byte[].class) {
+            return (T) toBytes(entity);
+        }
+        if (resultClass == ByteBuffer.class) {
+            return (T) ByteBuffer.wrap(toBytes(entity));
+        }
+        if (resultClass == String.class) {
+            String result = new String(toBytes(entity), StandardCharsets.UTF_8);
+            if (log.isDebugEnabled()) {
+                log.debug("Parsing response:\n" + result);
+            }
+            return (T) result;
+        }
+
+        // Typed model: stream the body into Gson
+        T result;
+        PrefixInputStream content = new PrefixInputStream(entity.getContent(), errorPrefixSize);
+        try {
+            Reader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8), READER_BUFFER_SIZE);
+            result = gson.fromJson(new JsonReader(reader), resultClass);
+        }
+        catch (com.google.gson.JsonSyntaxException e) {
+            log.warn("Error while parsing JSON response: " + content.getPrefix(), e);
+            throw new JsonSyntaxException(I18n.t("duniter4j.client.core.invalidResponse"), e);
+        }
+        catch (JsonParseException e) {
+            throw new TechnicalException(I18n.t("duniter4j.client.core.invalidResponse"), e);
+        }
+        finally {
+            content.close();
+        }
+
+        if (result == null) {
+            throw new TechnicalException(I18n.t("duniter4j.client.core.emptyResponse"));
+        }
+        return result;
+    }
+
+    /**
+     * Read the whole body, with a single buffer allocation when the Content-Length is known
+     */
+    public byte[] toBytes(HttpEntity entity) throws IOException {
+        byte[] result = EntityUtils.toByteArray(entity);
+        return result != null ? result : new byte[0];
+    }
+
+    /* -- internal classes -- */
+
+    /**
+     * Keep the first bytes read from the stream (for error messages)
+     */
+    protected static class PrefixInputStream extends FilterInputStream {
+        private final byte[] prefix;
+        private int prefixLength;
+
+        protected PrefixInputStream(InputStream in, int prefixSize) {
+            super(in);
+            this.prefix = new byte[Math.max(0, prefixSize)];
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1 && prefixLength < prefix.length) {
+                prefix[prefixLength++] = (byte) b;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0 && prefixLength < prefix.length) {
+                int copyLength = Math.min(count, prefix.length - prefixLength);
+                System.arraycopy(b, off, prefix, prefixLength, copyLength);
+                prefixLength += copyLength;
+            }
+            return count;
+        }
+
+        public String getPrefix() {
+            return new String(prefix, 0, prefixLength, StandardCharsets.UTF_8);
+        }
+    }
+}
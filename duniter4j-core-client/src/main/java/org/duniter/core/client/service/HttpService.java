@@ -26,6 +26,12 @@ import org.duniter.core.beans.Service;
 import org.duniter.core.client.model.local.Peer;
 import org.duniter.core.client.service.exception.PeerConnectionException;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.pool.PoolStats;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by blavenie on 29/12/15.
@@ -40,9 +46,68 @@ public interface HttpService extends Service {
 
     <T> T executeRequest(String absolutePath, Class<? extends T> resultClass) ;
 
+    /**
+     * Execute a GET request. Identical concurrent requests share the same response (and parsed result),
+     * that may also be cached for a short time (see option <code>duniter4j.network.cache.ttl</code>).
+     * The result should not be modified.
+     */
     <T> T executeRequest(Peer peer, String absolutePath, Class<? extends T> resultClass);
 
+    /**
+     * Execute a GET request, and read the response content as a stream (without loading it in memory)
+     * @param handler read the response content. The stream is closed after the handler call.
+     */
+    <T> T executeRequest(Peer peer, String absolutePath, ContentHandler<T> handler);
+
+    /**
+     * Execute a GET request without blocking the caller thread (using a NIO client, with few I/O threads)
+     * @return a future, completed exceptionally with a TechnicalException (or HttpBadRequestException) on error
+     */
+    <T> CompletableFuture<T> executeRequestAsync(Peer peer, String absolutePath, Class<? extends T> resultClass);
+
     String getPath(Peer peer, String absolutePath);
 
     String getPath(String absolutePath);
+
+    /**
+     * @return usage of the HTTP connection pool (leased, pending, available), or null if not started
+     */
+    PoolStats getConnectionPoolTotalStats();
+
+    /**
+     * @return usage of the HTTP connection pool, by peer (e.g. <code>http://host:port</code>)
+     */
+    Map<String, PoolStats> getConnectionPoolStats();
+
+    /**
+     * @return false if the circuit breaker of the peer is open (requests to this peer will fail fast)
+     */
+    boolean isAvailable(Peer peer);
+
+    /**
+     * @return the circuit breaker of the peer (created if not exists)
+     */
+    CircuitBreaker getCircuitBreaker(Peer peer);
+
+    /**
+     * @return circuit breakers (state and counters), by peer (e.g. <code>http://host:port</code>)
+     */
+    Map<String, CircuitBreaker> getCircuitBreakers();
+
+    /**
+     * @return the retry policy (retry and budget counters)
+     */
+    RetryPolicy getRetryPolicy();
+
+    /**
+     * @return the single-flight layer (identical concurrent GET requests share one response)
+     */
+    RequestCoalescer getRequestCoalescer();
+
+    /**
+     * Read a response content
+     */
+    interface ContentHandler<T> {
+        T handle(InputStream content) throws IOException;
+    }
 }
@@ -29,18 +29,36 @@ import org.duniter.core.client.model.bma.Error;
 import org.duniter.core.client.model.bma.gson.GsonUtils;
 import org.duniter.core.client.model.local.Peer;
 import org.duniter.core.client.service.exception.HttpBadRequestException;
-import org.duniter.core.client.service.exception.JsonSyntaxException;
+import org.duniter.core.client.service.exception.HttpStatusException;
 import org.duniter.core.client.service.exception.PeerConnectionException;
+import org.duniter.core.client.service.exception.PeerUnavailableException;
 import org.duniter.core.exception.TechnicalException;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
 import org.nuiton.i18n.I18n;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,7 +66,19 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
-import java.nio.charset.StandardCharsets;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by eis on 05/02/15.
@@ -59,11 +89,30 @@ public class HttpServiceImpl implements HttpService, Closeable, InitializingBean
 
     public static final String URL_PEER_ALIVE = "/blockchain/parameters";
 
+    // Retries allowed in a burst, before the budget limits them
+    private static final int RETRY_BUDGET_MAX_TOKENS = 10;
+
     protected Integer baseTimeOut;
     protected Gson gson;
+    protected HttpResponseDecoder responseDecoder;
     protected HttpClient httpClient;
+    protected PoolingHttpClientConnectionManager connectionManager;
+    protected CloseableHttpAsyncClient asyncHttpClient;
+    protected PoolingNHttpClientConnectionManager asyncConnectionManager;
+    protected Executor parserExecutor = ForkJoinPool.commonPool();
     protected Peer defaultPeer;
     private boolean debug;
+    private IdleConnectionMonitor idleConnectionMonitor;
+    protected RetryPolicy retryPolicy;
+    protected RequestCoalescer requestCoalescer;
+    protected int circuitBreakerFailureThreshold;
+    protected long circuitBreakerOpenTimeout;
+    private ScheduledExecutorService retryScheduler;
+
+    // Circuit breakers, by peer (scheme://host:port)
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    // Routes used at least once (the pool does not expose them)
+    private final Set<HttpRoute> routes = ConcurrentHashMap.newKeySet();
 
     public HttpServiceImpl() {
         super();
@@ -74,7 +123,16 @@ public class HttpServiceImpl implements HttpService, Closeable, InitializingBean
     public void afterPropertiesSet() throws Exception {
         Configuration config = Configuration.instance();
         this.gson = GsonUtils.newBuilder().create();
+        this.responseDecoder = new HttpResponseDecoder(gson);
         this.baseTimeOut = config.getNetworkTimeout();
+        this.circuitBreakerFailureThreshold = config.getNetworkCircuitBreakerFailureThreshold();
+        this.circuitBreakerOpenTimeout = config.getNetworkCircuitBreakerOpenTimeout();
+        this.retryPolicy = new RetryPolicy(config.getNetworkRetryMaxRetries(),
+                config.getNetworkRetryBaseDelay(),
+                config.getNetworkRetryMaxDelay(),
+                config.getNetworkRetryBudgetRatio(),
+                RETRY_BUDGET_MAX_TOKENS);
+        this.requestCoalescer = new RequestCoalescer(config.getNetworkCacheTtl());
         this.httpClient = createHttpClient();
     }
 
@@ -110,6 +168,10 @@ public class HttpServiceImpl implements HttpService, Closeable, InitializingBean
 
     @Override
     public void close() throws IOException {
+        if (idleConnectionMonitor != null) {
+            idleConnectionMonitor.shutdown();
+            idleConnectionMonitor = null;
+        }
         if (httpClient instanceof CloseableHttpClient) {
             ((CloseableHttpClient)httpClient).close();
         }
@@ -117,6 +179,69 @@ public class HttpServiceImpl implements HttpService, Closeable, InitializingBean
             ((Closeable)httpClient).close();
         }
         httpClient = null;
+        connectionManager = null;
+        routes.clear();
+
+        synchronized (this) {
+            if (asyncHttpClient != null) {
+                asyncHttpClient.close();
+                asyncHttpClient = null;
+                asyncConnectionManager = null;
+            }
+            if (retryScheduler != null) {
+                retryScheduler.shutdownNow();
+                retryScheduler = null;
+            }
+        }
+        circuitBreakers.clear();
+        if (requestCoalescer != null) {
+            requestCoalescer.clear();
+        }
+    }
+
+    @Override
+    public PoolStats getConnectionPoolTotalStats() {
+        PoolingHttpClientConnectionManager connectionManager = this.connectionManager;
+        return connectionManager == null ? null : connectionManager.getTotalStats();
+    }
+
+    @Override
+    public Map<String, PoolStats> getConnectionPoolStats() {
+        Map<String, PoolStats> result = new TreeMap<>();
+        PoolingHttpClientConnectionManager connectionManager = this.connectionManager;
+        if (connectionManager == null) {
+            return result;
+        }
+        for (HttpRoute route: routes) {
+            result.put(route.getTargetHost().toURI(), connectionManager.getStats(route));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isAvailable(Peer peer) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(getCircuitBreakerKey(URI.create(peer.getUrl())));
+        return circuitBreaker == null || circuitBreaker.isAvailable();
+    }
+
+    @Override
+    public CircuitBreaker getCircuitBreaker(Peer peer) {
+        return getCircuitBreaker(URI.create(peer.getUrl()));
+    }
+
+    @Override
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        return new TreeMap<>(circuitBreakers);
+    }
+
+    @Override
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    @Override
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
     }
 
     public <T> T executeRequest(HttpUriRequest request, Class<? extends T> resultClass)  {
@@ -129,8 +254,36 @@ public class HttpServiceImpl implements HttpService, Closeable, InitializingBean
     }
 
     public <T> T executeRequest(Peer peer, String absolutePath, Class<? extends T> resultClass)  {
+        String url = getPath(peer, absolutePath);
+        if (!isCoalescable(resultClass)) {
+            return executeRequest(httpClient, new HttpGet(url), resultClass);
+        }
+        return requestCoalescer.execute(url, absolutePath, resultClass,
+                () -> executeRequest(httpClient, new HttpGet(url), resultClass));
+    }
+
+    public <T> T executeRequest(Peer peer, String absolutePath, ContentHandler<T> handler)  {
         HttpGet httpGet = new HttpGet(getPath(peer, absolutePath));
-        return executeRequest(httpClient, httpGet, resultClass);
+        return executeRequest(httpClient, httpGet, response -> {
+            InputStream content = response.getEntity().getContent();
+            try {
+                return handler.handle(content);
+            }
+            finally {
+                content.close();
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeRequestAsync(Peer peer, String absolutePath, Class<? extends T> resultClass) {
+        String url = getPath(peer, absolutePath);
+        ResponseParser<T> responseParser = response -> (T) parseResponse(response, resultClass);
+        if (!isCoalescable(resultClass)) {
+            return executeRequestAsync(new HttpGet(url), responseParser);
+        }
+        return requestCoalescer.executeAsync(url, absolutePath, resultClass,
+                () -> executeRequestAsync(new HttpGet(url), responseParser));
     }
 
     public String getPath(Peer peer, String absolutePath) {
@@ -153,152 +306,405 @@ public class HttpServiceImpl implements HttpService, Closeable, InitializingBean
     }
 
     protected HttpClient createHttpClient() {
-        CloseableHttpClient httpClient = HttpClients.custom().setDefaultRequestConfig(getRequestConfig())
+        Configuration config = Configuration.instance();
+        if (baseTimeOut == null) {
+            baseTimeOut = config.getNetworkTimeout();
+        }
+
+        connectionManager = createConnectionManager(config);
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(createKeepAliveStrategy(config.getNetworkKeepAliveTimeout()))
+                .setDefaultRequestConfig(getRequestConfig())
                 // .setDefaultCredentialsProvider(getCredentialsProvider())
                 .build();
+
+        // Evict expired and idle connections, in background
+        if (idleConnectionMonitor != null) {
+            idleConnectionMonitor.shutdown();
+        }
+        idleConnectionMonitor = new IdleConnectionMonitor(connectionManager,
+                config.getNetworkIdleConnectionCheckInterval(),
+                config.getNetworkIdleConnectionTimeout());
+        idleConnectionMonitor.setAsyncConnectionManager(asyncConnectionManager);
+        idleConnectionMonitor.start();
+
         return httpClient;
     }
 
+    protected PoolingHttpClientConnectionManager createConnectionManager(Configuration config) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.getNetworkMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(config.getNetworkMaxConnectionsPerRoute());
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setTcpNoDelay(config.isNetworkTcpNoDelay())
+                .setSoKeepAlive(true)
+                .setSoTimeout(baseTimeOut)
+                .build());
+        return connectionManager;
+    }
+
+    /**
+     * Use the server Keep-Alive header if any, or the given default timeout
+     */
+    protected ConnectionKeepAliveStrategy createKeepAliveStrategy(final long defaultKeepAliveMs) {
+        return (response, context) -> {
+            long keepAliveMs = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAliveMs > 0 ? keepAliveMs : defaultKeepAliveMs;
+        };
+    }
+
     protected RequestConfig getRequestConfig() {
-        // build request config for timeout
-        return RequestConfig.custom().setSocketTimeout(baseTimeOut).setConnectTimeout(baseTimeOut).build();
+        // build request config for timeout (also used when waiting for a pooled connection)
+        return RequestConfig.custom()
+                .setSocketTimeout(baseTimeOut)
+                .setConnectTimeout(baseTimeOut)
+                .setConnectionRequestTimeout(baseTimeOut)
+                .build();
+    }
+
+    protected void registerRoute(HttpUriRequest request) {
+        HttpHost target = URIUtils.extractHost(request.getURI());
+        if (target != null) {
+            routes.add(new HttpRoute(target));
+        }
     }
 
     @SuppressWarnings("unchecked")
     protected <T> T executeRequest(HttpClient httpClient, HttpUriRequest request, Class<? extends T> resultClass)  {
-        T result = null;
+        return executeRequest(httpClient, request, response -> (T) parseResponse(response, resultClass));
+    }
 
+    /**
+     * Execute a request, through the circuit breaker of the peer. Idempotent requests (GET, HEAD) are retried
+     * on transport or server errors, after a jittered backoff, while the retry budget allows it.
+     * Errors thrown while parsing the body are neither retried, nor counted as peer failures.
+     */
+    protected <T> T executeRequest(HttpClient httpClient, HttpUriRequest request, ResponseParser<T> responseParser)  {
         if (log.isDebugEnabled()) {
             log.debug("Executing request : " + request.getRequestLine());
         }
 
-        HttpResponse response = null;
-        try {
-            response = httpClient.execute(request);
+        registerRoute(request);
+        CircuitBreaker circuitBreaker = getCircuitBreaker(request.getURI());
+        retryPolicy.onRequest();
 
-            if (log.isDebugEnabled()) {
-                log.debug("Received response : " + response.getStatusLine());
+        TechnicalException lastError = null;
+        for (int retryCount = 0; ; retryCount++) {
+            if (!circuitBreaker.tryAcquire()) {
+                throw lastError != null ? lastError : newPeerUnavailableException(circuitBreaker);
             }
 
-            switch (response.getStatusLine().getStatusCode()) {
-                case HttpStatus.SC_OK: {
-                    result = (T) parseResponse(response, resultClass);
+            HttpResponse response;
+            try {
+                response = httpClient.execute(request);
+            }
+            catch (IOException e) {
+                circuitBreaker.onFailure();
+                response = null;
+                lastError = toTechnicalException(request, e);
+            }
+            catch (RuntimeException e) {
+                // Not a peer failure (e.g. connection pool shut down): give back the permit (maybe the half-open probe)
+                circuitBreaker.release();
+                throw e;
+            }
 
-                    response.getEntity().consumeContent();
-                    break;
-                }
-                case HttpStatus.SC_UNAUTHORIZED:
-                case HttpStatus.SC_FORBIDDEN:
-                    throw new TechnicalException(I18n.t("duniter4j.client.authentication"));
-                case HttpStatus.SC_BAD_REQUEST:
-                    try {
-                        Error error = (Error)parseResponse(response, Error.class);
-                        throw new HttpBadRequestException(error);
+            if (response != null) {
+                try {
+                    if (isServerError(response)) {
+                        circuitBreaker.onFailure();
+                        lastError = newHttpStatusException(response);
                     }
-                    catch(IOException e) {
-                        throw new HttpBadRequestException(I18n.t("duniter4j.client.status", response.getStatusLine().toString()));
+                    else {
+                        // The peer answered (even with a client error)
+                        circuitBreaker.onSuccess();
+
+                        // Never retry once the body reached the parser: it may have already handled a part of it
+                        try {
+                            return handleResponse(response, responseParser);
+                        }
+                        catch (IOException e) {
+                            throw toTechnicalException(request, e);
+                        }
                     }
-                default:
-                    throw new TechnicalException(I18n.t("duniter4j.client.status", response.getStatusLine().toString()));
-            }
-        }
-        catch (ConnectException e) {
-            throw new TechnicalException(I18n.t("duniter4j.client.core.connect", request.toString()), e);
-        }
-        catch (SocketTimeoutException e) {
-            throw new TechnicalException(I18n.t("duniter4j.client.core.timeout"), e);
-        }
-        catch (IOException e) {
-            throw new TechnicalException(e.getMessage(), e);
-        }
-        finally {
-            // Close is need
-            if (response instanceof CloseableHttpResponse) {
-                try {
-                    ((CloseableHttpResponse) response).close();
                 }
-                catch(IOException e) {
-                    // Silent is gold
+                finally {
+                    // Close is need
+                    closeQuietly(response);
                 }
             }
+
+            if (!isIdempotent(request) || !retryPolicy.tryRetry(retryCount)) {
+                throw lastError;
+            }
+            long delay = retryPolicy.getBackoffDelay(retryCount);
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Retrying request [%s] in %sms (%s/%s): %s", request.getRequestLine(), delay,
+                        retryCount + 1, retryPolicy.getMaxRetries(), lastError.getMessage()));
+            }
+            try {
+                Thread.sleep(delay);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw lastError;
+            }
         }
+    }
 
+    /**
+     * Execute a request without blocking the caller: the response is read by the NIO client threads,
+     * then parsed by the <code>parserExecutor</code>. Errors complete the future exceptionally
+     * (with a {@link TechnicalException}, wrapped in a {@link java.util.concurrent.CompletionException} on join).
+     * Circuit breaker and retries apply like in the blocking execution (retries are scheduled, not slept).
+     */
+    protected <T> CompletableFuture<T> executeRequestAsync(HttpUriRequest request, ResponseParser<T> responseParser) {
+        if (log.isDebugEnabled()) {
+            log.debug("Executing async request : " + request.getRequestLine());
+        }
+
+        CircuitBreaker circuitBreaker = getCircuitBreaker(request.getURI());
+        retryPolicy.onRequest();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executeAttemptAsync(request, responseParser, circuitBreaker, 0, null, result);
         return result;
     }
 
-    protected Object parseResponse(HttpResponse response, Class<?> ResultClass) throws IOException {
-        Object result = null;
+    protected <T> void executeAttemptAsync(HttpUriRequest request, ResponseParser<T> responseParser,
+                                           CircuitBreaker circuitBreaker, int retryCount, TechnicalException lastError,
+                                           CompletableFuture<T> result) {
+        if (!circuitBreaker.tryAcquire()) {
+            result.completeExceptionally(lastError != null ? lastError : newPeerUnavailableException(circuitBreaker));
+            return;
+        }
 
-        boolean stringOutput = ResultClass != null && ResultClass.equals(String.class);
+        try {
+            sendAttemptAsync(request, responseParser, circuitBreaker, retryCount, result);
+        }
+        catch (RuntimeException e) {
+            // Request not sent (e.g. client closed): give back the permit (maybe the half-open probe)
+            circuitBreaker.release();
+            result.completeExceptionally(e instanceof TechnicalException ? e : new TechnicalException(e.getMessage(), e));
+        }
+    }
 
-        // If trace enable, log the response before parsing
-        Exception error = null;
-        if (stringOutput) {
-            InputStream content = null;
-            try {
-                content = response.getEntity().getContent();
-                String stringContent = getContentAsString(content);
-                if (log.isDebugEnabled()) {
-                    log.debug("Parsing response:\n" + stringContent);
+    private <T> void sendAttemptAsync(HttpUriRequest request, ResponseParser<T> responseParser,
+                                      CircuitBreaker circuitBreaker, int retryCount,
+                                      CompletableFuture<T> result) {
+        getAsyncHttpClient().execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                if (isServerError(response)) {
+                    EntityUtils.consumeQuietly(response.getEntity());
+                    onAttemptFailure(newHttpStatusException(response));
+                    return;
                 }
+                circuitBreaker.onSuccess();
 
-                return stringContent;
-            }
-            finally {
-                if (content!= null) {
-                    content.close();
+                // Parse outside the I/O dispatcher threads
+                try {
+                    parserExecutor.execute(() -> {
+                        try {
+                            result.complete(handleResponse(response, responseParser));
+                        }
+                        catch (IOException e) {
+                            result.completeExceptionally(toTechnicalException(request, e));
+                        }
+                        catch (RuntimeException e) {
+                            result.completeExceptionally(e);
+                        }
+                        finally {
+                            EntityUtils.consumeQuietly(response.getEntity());
+                        }
+                    });
+                }
+                catch (RejectedExecutionException e) {
+                    result.completeExceptionally(new TechnicalException(e.getMessage(), e));
                 }
             }
-        }
 
-        // trace not enable
-        else {
-            InputStream content = null;
-            try {
-                content = response.getEntity().getContent();
-                Reader reader = new InputStreamReader(content, StandardCharsets.UTF_8);
-                if (ResultClass != null) {
-                    result = gson.fromJson(reader, ResultClass);
+            @Override
+            public void failed(Exception e) {
+                onAttemptFailure(e instanceof IOException
+                        ? toTechnicalException(request, (IOException)e)
+                        : new TechnicalException(e.getMessage(), e));
+            }
+
+            @Override
+            public void cancelled() {
+                circuitBreaker.release();
+                result.cancel(false);
+            }
+
+            private void onAttemptFailure(TechnicalException error) {
+                circuitBreaker.onFailure();
+                if (!isIdempotent(request) || !retryPolicy.tryRetry(retryCount)) {
+                    result.completeExceptionally(error);
+                    return;
                 }
-                else {
-                    result = null;
+                long delay = retryPolicy.getBackoffDelay(retryCount);
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Retrying async request [%s] in %sms (%s/%s): %s", request.getRequestLine(), delay,
+                            retryCount + 1, retryPolicy.getMaxRetries(), error.getMessage()));
                 }
-            }
-            catch (com.google.gson.JsonSyntaxException e) {
-                if (content != null) {
-                    log.warn("Error while parsing JSON response: " + getContentAsString(content), e);
+                try {
+                    getRetryScheduler().schedule(
+                            () -> executeAttemptAsync(request, responseParser, circuitBreaker, retryCount + 1, error, result),
+                            delay, TimeUnit.MILLISECONDS);
                 }
-                else {
-                    log.warn("Error while parsing JSON response", e);
+                catch (RejectedExecutionException e) {
+                    // Service closed
+                    result.completeExceptionally(error);
                 }
-                throw new JsonSyntaxException(I18n.t("duniter4j.client.core.invalidResponse"), e);
             }
-            catch (Exception e) {
-                throw new TechnicalException(I18n.t("duniter4j.client.core.invalidResponse"), e);
+        });
+    }
+
+    protected synchronized ScheduledExecutorService getRetryScheduler() {
+        if (retryScheduler == null) {
+            retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "duniter4j-http-retry");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return retryScheduler;
+    }
+
+    protected CircuitBreaker getCircuitBreaker(URI uri) {
+        return circuitBreakers.computeIfAbsent(getCircuitBreakerKey(uri),
+                key -> new CircuitBreaker(key, circuitBreakerFailureThreshold, circuitBreakerOpenTimeout));
+    }
+
+    protected String getCircuitBreakerKey(URI uri) {
+        HttpHost target = URIUtils.extractHost(uri);
+        return target != null ? target.toURI() : uri.toString();
+    }
+
+    protected PeerUnavailableException newPeerUnavailableException(CircuitBreaker circuitBreaker) {
+        return new PeerUnavailableException(I18n.t("duniter4j.client.core.peerUnavailable", circuitBreaker.getName()));
+    }
+
+    /**
+     * @return true if the peer itself failed (5xx), and not the request
+     */
+    protected boolean isServerError(HttpResponse response) {
+        return response.getStatusLine().getStatusCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+    }
+
+    /**
+     * A ByteBuffer has a read position, so it cannot be shared between callers
+     */
+    protected boolean isCoalescable(Class<?> resultClass) {
+        return requestCoalescer != null && resultClass != ByteBuffer.class;
+    }
+
+    protected boolean isIdempotent(HttpUriRequest request) {
+        String method = request.getMethod();
+        return HttpGet.METHOD_NAME.equals(method) || HttpHead.METHOD_NAME.equals(method);
+    }
+
+    protected synchronized CloseableHttpAsyncClient getAsyncHttpClient() {
+        if (asyncHttpClient == null) {
+            asyncHttpClient = createAsyncHttpClient();
+            asyncHttpClient.start();
+        }
+        return asyncHttpClient;
+    }
+
+    protected CloseableHttpAsyncClient createAsyncHttpClient() {
+        Configuration config = Configuration.instance();
+        if (baseTimeOut == null) {
+            baseTimeOut = config.getNetworkTimeout();
+        }
+
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(config.getNetworkAsyncIoThreadCount())
+                .setConnectTimeout(baseTimeOut)
+                .setSoTimeout(baseTimeOut)
+                .setTcpNoDelay(config.isNetworkTcpNoDelay())
+                .setSoKeepAlive(true)
+                .build();
+        try {
+            asyncConnectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        }
+        catch (IOReactorException e) {
+            throw new TechnicalException("Unable to start the async HTTP client: " + e.getMessage(), e);
+        }
+        asyncConnectionManager.setMaxTotal(config.getNetworkMaxConnections());
+        asyncConnectionManager.setDefaultMaxPerRoute(config.getNetworkMaxConnectionsPerRoute());
+        if (idleConnectionMonitor != null) {
+            idleConnectionMonitor.setAsyncConnectionManager(asyncConnectionManager);
+        }
+
+        return HttpAsyncClients.custom()
+                .setConnectionManager(asyncConnectionManager)
+                .setKeepAliveStrategy(createKeepAliveStrategy(config.getNetworkKeepAliveTimeout()))
+                .setDefaultRequestConfig(getRequestConfig())
+                .build();
+    }
+
+    protected <T> T handleResponse(HttpResponse response, ResponseParser<T> responseParser) throws IOException {
+        if (log.isDebugEnabled()) {
+            log.debug("Received response : " + response.getStatusLine());
+        }
+
+        switch (response.getStatusLine().getStatusCode()) {
+            case HttpStatus.SC_OK: {
+                T result = responseParser.parse(response);
+
+                response.getEntity().consumeContent();
+                return result;
             }
-            finally {
-                if (content!= null) {
-                    content.close();
+            case HttpStatus.SC_UNAUTHORIZED:
+            case HttpStatus.SC_FORBIDDEN:
+                throw new HttpStatusException(I18n.t("duniter4j.client.authentication"), response.getStatusLine().getStatusCode());
+            case HttpStatus.SC_BAD_REQUEST:
+                try {
+                    Error error = (Error)parseResponse(response, Error.class);
+                    throw new HttpBadRequestException(error);
                 }
-            }
+                catch(IOException e) {
+                    throw new HttpBadRequestException(I18n.t("duniter4j.client.status", response.getStatusLine().toString()));
+                }
+            default:
+                throw newHttpStatusException(response);
         }
+    }
 
-        if (result == null) {
-            throw new TechnicalException(I18n.t("duniter4j.client.core.emptyResponse"));
+    protected void closeQuietly(HttpResponse response) {
+        if (response instanceof CloseableHttpResponse) {
+            try {
+                ((CloseableHttpResponse) response).close();
+            }
+            catch(IOException e) {
+                // Silent is gold
+            }
         }
+    }
 
-        return result;
+    protected HttpStatusException newHttpStatusException(HttpResponse response) {
+        return new HttpStatusException(I18n.t("duniter4j.client.status", response.getStatusLine().toString()),
+                response.getStatusLine().getStatusCode());
     }
 
-    protected String getContentAsString(InputStream content) throws IOException {
-        Reader reader = new InputStreamReader(content, StandardCharsets.UTF_8);
-        StringBuilder result = new StringBuilder();
-        char[] buf = new char[64];
-        int len = 0;
-        while((len = reader.read(buf)) != -1) {
-            result.append(buf, 0, len);
+    protected TechnicalException toTechnicalException(HttpUriRequest request, IOException e) {
+        if (e instanceof ConnectException) {
+            return new TechnicalException(I18n.t("duniter4j.client.core.connect", request.toString()), e);
         }
-        return result.toString();
+        if (e instanceof SocketTimeoutException) {
+            return new TechnicalException(I18n.t("duniter4j.client.core.timeout"), e);
+        }
+        return new TechnicalException(e.getMessage(), e);
+    }
+
+    protected Object parseResponse(HttpResponse response, Class<?> ResultClass) throws IOException {
+        if (ResultClass == null) {
+            throw new TechnicalException(I18n.t("duniter4j.client.core.emptyResponse"));
+        }
+        return responseDecoder.decode(response.getEntity(), ResultClass);
     }
 
     protected boolean executeRequest(HttpClient httpClient, HttpUriRequest request)  {
@@ -307,8 +713,10 @@ public class HttpServiceImpl implements HttpService, Closeable, InitializingBean
             log.debug("Executing request : " + request.getRequestLine());
         }
 
+        registerRoute(request);
+        HttpResponse response = null;
         try {
-            HttpResponse response = httpClient.execute(request);
+            response = httpClient.execute(request);
 
             switch (response.getStatusLine().getStatusCode()) {
                 case HttpStatus.SC_OK: {
@@ -329,5 +737,76 @@ public class HttpServiceImpl implements HttpService, Closeable, InitializingBean
         catch (IOException e) {
             throw new TechnicalException(e.getMessage(), e);
         }
+        finally {
+            // Release the connection to the pool
+            if (response instanceof CloseableHttpResponse) {
+                try {
+                    ((CloseableHttpResponse) response).close();
+                }
+                catch(IOException e) {
+                    // Silent is gold
+                }
+            }
+        }
+    }
+
+    protected interface ResponseParser<T> {
+        T parse(HttpResponse response) throws IOException;
+    }
+
+    /**
+     * Close expired and idle pooled connections, periodically
+     */
+    protected static class IdleConnectionMonitor extends Thread {
+
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private volatile PoolingNHttpClientConnectionManager asyncConnectionManager;
+        private final long checkIntervalMs;
+        private final long idleTimeoutMs;
+        private volatile boolean shutdown;
+
+        public IdleConnectionMonitor(PoolingHttpClientConnectionManager connectionManager, long checkIntervalMs, long idleTimeoutMs) {
+            super("duniter4j-http-idle-connection-monitor");
+            setDaemon(true);
+            this.connectionManager = connectionManager;
+            this.checkIntervalMs = checkIntervalMs;
+            this.idleTimeoutMs = idleTimeoutMs;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    synchronized (this) {
+                        wait(checkIntervalMs);
+                    }
+                    if (shutdown) break;
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(idleTimeoutMs, TimeUnit.MILLISECONDS);
+                    PoolingNHttpClientConnectionManager asyncConnectionManager = this.asyncConnectionManager;
+                    if (asyncConnectionManager != null) {
+                        asyncConnectionManager.closeExpiredConnections();
+                        asyncConnectionManager.closeIdleConnections(idleTimeoutMs, TimeUnit.MILLISECONDS);
+                    }
+                    if (log.isDebugEnabled()) {
+                        log.debug("HTTP connection pool: " + connectionManager.getTotalStats()
+                                + (asyncConnectionManager != null ? " - async: " + asyncConnectionManager.getTotalStats() : ""));
+                    }
+                }
+            } catch (InterruptedException e) {
+                // stop
+            }
+        }
+
+        public void setAsyncConnectionManager(PoolingNHttpClientConnectionManager asyncConnectionManager) {
+            this.asyncConnectionManager = asyncConnectionManager;
+        }
+
+        public void shutdown() {
+            shutdown = true;
+            synchronized (this) {
+                notifyAll();
+            }
+        }
     }
 }
@@ -0,0 +1,325 @@
+package org.duniter.core.client.service;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import org.duniter.core.exception.TechnicalException;
+import org.duniter.core.util.StringUtils;
+import org.duniter.core.util.cache.CacheStats;
+import org.duniter.core.util.cache.SimpleCache;
+import org.duniter.core.util.cache.TinyLfuEvictionPolicy;
+
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesce identical concurrent GET requests ("single-flight"): while a request is in flight,
+ * the same request (same URL and result class) waits for it, and shares its parsed result.
+ * <p/>
+ * A short positive cache may also be configured by endpoint, using a path prefix
+ * (e.g. <code>/blockchain/current=1000,/blockchain/parameters=60000</code>: TTL in milliseconds).
+ * Errors are never cached.
+ * <p/>
+ * Arrays (e.g. <code>byte[]</code>) are copied for each caller. Other shared results must be considered as read-only by callers.
+ * This class is thread-safe.
+ */
+public class RequestCoalescer {
+
+    // Max cached responses (lookups may scan many keys: use a frequency-aware eviction)
+    private static final int CACHE_MAX_ITEM_COUNT = 1000;
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final SimpleCache<Key, CachedValue> cache;
+    // Sorted by descending length, so the longest prefix wins
+    private final List<Map.Entry<String, Long>> ttlByPathPrefix;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+
+    /**
+     * @param ttlConfig TTL (in ms) by path prefix, as <code>prefix=ttl</code> separated by commas. May be null.
+     */
+    public RequestCoalescer(String ttlConfig) {
+        this.ttlByPathPrefix = parseTtlConfig(ttlConfig);
+
+        long maxTtl = 1;
+        for (Map.Entry<String, Long> entry: ttlByPathPrefix) {
+            maxTtl = Math.max(maxTtl, entry.getValue());
+        }
+        this.cache = new SimpleCache<Key, CachedValue>(maxTtl, CACHE_MAX_ITEM_COUNT, -1/*no refresh*/,
+                new TinyLfuEvictionPolicy<>(CACHE_MAX_ITEM_COUNT)) {
+            @Override
+            public CachedValue load(Key key) {
+                return null; // filled by put()
+            }
+        };
+    }
+
+    /**
+     * Execute a blocking request, or wait for the same request already in flight
+     * @param path the path, used to find the cache TTL
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String url, String path, Class<?> resultClass, Supplier<T> loader) {
+        Key key = new Key(url, resultClass);
+        long ttl = getTtl(path);
+        requestCount.incrementAndGet();
+
+        Object cachedValue = getCachedValue(key, ttl);
+        if (cachedValue != null) {
+            return (T) copyIfArray(cachedValue);
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            return (T) copyIfArray(join(existing));
+        }
+
+        try {
+            T result = loader.get();
+            // Share a copy, as the caller may modify its result
+            Object sharedResult = copyIfArray(result);
+            putCachedValue(key, ttl, sharedResult);
+            future.complete(sharedResult);
+            return result;
+        }
+        catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Execute a non-blocking request, or return the future of the same request already in flight
+     * @param path the path, used to find the cache TTL
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(String url, String path, Class<?> resultClass, Supplier<CompletableFuture<T>> loader) {
+        Key key = new Key(url, resultClass);
+        long ttl = getTtl(path);
+        requestCount.incrementAndGet();
+
+        Object cachedValue = getCachedValue(key, ttl);
+        if (cachedValue != null) {
+            return CompletableFuture.completedFuture((T) copyIfArray(cachedValue));
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            return (CompletableFuture<T>) existing.thenApply(this::copyIfArray);
+        }
+
+        CompletableFuture<T> loaded;
+        try {
+            loaded = loader.get();
+        }
+        catch (RuntimeException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        loaded.whenComplete((result, error) -> {
+            if (error == null) {
+                // Share a copy, as the caller may modify its result
+                Object sharedResult = copyIfArray(result);
+                putCachedValue(key, ttl, sharedResult);
+                future.complete(sharedResult);
+            }
+            else {
+                future.completeExceptionally(error);
+            }
+            inFlight.remove(key, future);
+        });
+        return loaded;
+    }
+
+    /**
+     * @return the cache TTL of a path (0 if not cached)
+     */
+    public long getTtl(String path) {
+        if (path == null) {
+            return 0;
+        }
+        for (Map.Entry<String, Long> entry: ttlByPathPrefix) {
+            if (path.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return 0;
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return number of requests that waited for an identical in-flight request
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    /**
+     * @return statistics of the positive cache (hits, evictions...)
+     */
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /* -- internal methods -- */
+
+    protected Object getCachedValue(Key key, long ttl) {
+        if (ttl <= 0) {
+            return null;
+        }
+        CachedValue cachedValue = cache.getIfPresent(key);
+        if (cachedValue == null || cachedValue.expirationTime <= System.currentTimeMillis()) {
+            return null;
+        }
+        cacheHitCount.incrementAndGet();
+        return cachedValue.value;
+    }
+
+    protected void putCachedValue(Key key, long ttl, Object value) {
+        if (ttl <= 0 || value == null) {
+            return;
+        }
+        cache.put(key, new CachedValue(value, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Copy an array result (e.g. <code>byte[]</code>, <code>String[]</code>), so a caller cannot modify the result of another one.
+     * Elements are not copied.
+     */
+    protected Object copyIfArray(Object value) {
+        if (value == null || !value.getClass().isArray()) {
+            return value;
+        }
+        int length = Array.getLength(value);
+        Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+        System.arraycopy(value, 0, copy, 0, length);
+        return copy;
+    }
+
+    protected Object join(CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechnicalException(e.getMessage(), e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new TechnicalException(cause.getMessage(), cause);
+        }
+    }
+
+    protected static List<Map.Entry<String, Long>> parseTtlConfig(String ttlConfig) {
+        List<Map.Entry<String, Long>> result = new ArrayList<>();
+        if (StringUtils.isBlank(ttlConfig)) {
+            return result;
+        }
+        for (String item: ttlConfig.split(",")) {
+            item = item.trim();
+            if (item.isEmpty()) continue;
+            int separatorIndex = item.lastIndexOf('=');
+            if (separatorIndex <= 0) {
+                throw new TechnicalException(String.format("Invalid cache TTL [%s]: expected 'path=ttl'", item));
+            }
+            try {
+                long ttl = Long.parseLong(item.substring(separatorIndex + 1).trim());
+                result.add(new AbstractMap.SimpleImmutableEntry<>(item.substring(0, separatorIndex).trim(), ttl));
+            }
+            catch (NumberFormatException e) {
+                throw new TechnicalException(String.format("Invalid cache TTL [%s]: expected 'path=ttl'", item), e);
+            }
+        }
+        result.sort((e1, e2) -> e2.getKey().length() - e1.getKey().length());
+        return Collections.unmodifiableList(result);
+    }
+
+    protected static class Key {
+        private final String url;
+        private final Class<?> resultClass;
+        private final int hashCode;
+
+        protected Key(String url, Class<?> resultClass) {
+            this.url = url;
+            this.resultClass = resultClass;
+            this.hashCode = 31 * url.hashCode() + (resultClass != null ? resultClass.hashCode() : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return url.equals(other.url) && resultClass == other.resultClass;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    protected static class CachedValue {
+        private final Object value;
+        private final long expirationTime;
+
+        protected CachedValue(Object value, long expirationTime) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.duniter.core.client.service;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry policy, shared by all peers:
+ * <ul>
+ *     <li>a request is retried at most <code>maxRetries</code> times, after a jittered exponential backoff;</li>
+ *     <li>retries are limited by a budget: each request adds <code>budgetRatio</code> token (up to <code>maxTokens</code>),
+ *     and each retry costs one token. When many requests are failing, retries stop instead of multiplying the load.</li>
+ * </ul>
+ * This class is thread-safe.
+ */
+public class RetryPolicy {
+
+    private final int maxRetries;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final double budgetRatio;
+    private final double maxTokens;
+
+    private double tokens;
+
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong budgetExhaustedCount = new AtomicLong();
+
+    public RetryPolicy(int maxRetries, long baseDelayMs, long maxDelayMs, double budgetRatio, int maxTokens) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.baseDelayMs = Math.max(0, baseDelayMs);
+        this.maxDelayMs = Math.max(this.baseDelayMs, maxDelayMs);
+        this.budgetRatio = Math.max(0, budgetRatio);
+        this.maxTokens = Math.max(0, maxTokens);
+        this.tokens = this.maxTokens;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Should be called once per request (not per retry)
+     */
+    public synchronized void onRequest() {
+        tokens = Math.min(maxTokens, tokens + budgetRatio);
+    }
+
+    /**
+     * @param retryCount number of retries already done, for this request
+     * @return true if a new retry is allowed (the budget is then consumed)
+     */
+    public boolean tryRetry(int retryCount) {
+        if (retryCount >= maxRetries) {
+            return false;
+        }
+        synchronized (this) {
+            if (tokens < 1) {
+                budgetExhaustedCount.incrementAndGet();
+                return false;
+            }
+            tokens--;
+        }
+        this.retryCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Exponential backoff, with "equal jitter": half of the delay is fixed, the other half is random
+     * @param retryCount number of retries already done, for this request
+     */
+    public long getBackoffDelay(int retryCount) {
+        long delay = Math.min(maxDelayMs, baseDelayMs << Math.min(retryCount, 20));
+        if (delay <= 1) {
+            return delay;
+        }
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return number of retries refused, because the budget was empty
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.get();
+    }
+
+    public synchronized double getAvailableTokens() {
+        return tokens;
+    }
+}
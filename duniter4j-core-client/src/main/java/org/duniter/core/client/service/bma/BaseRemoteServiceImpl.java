@@ -26,11 +26,15 @@ import org.duniter.core.beans.InitializingBean;
 import org.duniter.core.beans.Service;
 import org.duniter.core.client.model.local.Peer;
 import org.duniter.core.client.service.HttpService;
+import org.duniter.core.client.service.exception.HttpStatusException;
+import org.duniter.core.client.service.local.PeerSelector;
 import org.duniter.core.client.service.local.PeerService;
 import org.duniter.core.client.service.ServiceLocator;
 import org.apache.http.client.methods.HttpUriRequest;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Created by eis on 05/02/15.
@@ -53,12 +57,59 @@ public abstract class BaseRemoteServiceImpl implements Service, InitializingBean
     }
 
     public <T> T executeRequest(Peer peer, String absolutePath, Class<? extends T> resultClass)  {
-        return httpService.executeRequest(peer, absolutePath, resultClass);
+        PeerSelector selector = getPeerSelector();
+        if (selector == null) {
+            return httpService.executeRequest(peer, absolutePath, resultClass);
+        }
+
+        long start = System.currentTimeMillis();
+        selector.onRequestStart(peer);
+        boolean success = false;
+        try {
+            T result = httpService.executeRequest(peer, absolutePath, resultClass);
+            success = true;
+            return result;
+        }
+        catch (RuntimeException e) {
+            success = !isPeerFailure(e);
+            throw e;
+        }
+        finally {
+            onRequestEnd(selector, peer, start, success);
+        }
     }
 
     public <T> T executeRequest(long currencyId, String absolutePath, Class<? extends T> resultClass)  {
         Peer peer = peerService.getActivePeerByCurrencyId(currencyId);
-        return httpService.executeRequest(peer, absolutePath, resultClass);
+        return executeRequest(peer, absolutePath, resultClass);
+    }
+
+    public <T> CompletableFuture<T> executeRequestAsync(Peer peer, String absolutePath, Class<? extends T> resultClass)  {
+        PeerSelector selector = getPeerSelector();
+        if (selector == null) {
+            return httpService.executeRequestAsync(peer, absolutePath, resultClass);
+        }
+
+        long start = System.currentTimeMillis();
+        selector.onRequestStart(peer);
+        CompletableFuture<T> future;
+        try {
+            future = httpService.executeRequestAsync(peer, absolutePath, resultClass);
+        }
+        catch (RuntimeException e) {
+            onRequestEnd(selector, peer, start, false);
+            throw e;
+        }
+        future.whenComplete((result, error) -> {
+            Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+            onRequestEnd(selector, peer, start, cause == null || !isPeerFailure(cause));
+        });
+        return future;
+    }
+
+    public <T> CompletableFuture<T> executeRequestAsync(long currencyId, String absolutePath, Class<? extends T> resultClass)  {
+        Peer peer = peerService.getActivePeerByCurrencyId(currencyId);
+        return executeRequestAsync(peer, absolutePath, resultClass);
     }
 
     public <T> T executeRequest(HttpUriRequest request, Class<? extends T> resultClass)  {
@@ -73,4 +124,37 @@ public abstract class BaseRemoteServiceImpl implements Service, InitializingBean
     public String getPath(Peer peer, String aPath) {
         return httpService.getPath(peer, aPath);
     }
+
+    /* -- internal methods -- */
+
+    /**
+     * @return false if the peer answered (e.g. 400, or 404 on a lookup without result): only transport errors and 5xx are failures
+     */
+    protected boolean isPeerFailure(Throwable error) {
+        return !(error instanceof HttpStatusException) || ((HttpStatusException) error).isServerError();
+    }
+
+    protected PeerSelector getPeerSelector() {
+        return peerService != null ? peerService.getPeerSelector() : null;
+    }
+
+    /**
+     * Report the head block of a peer, so that lagging peers are no more selected
+     */
+    protected void onHeadNumber(Peer peer, Integer headNumber) {
+        PeerSelector selector = getPeerSelector();
+        if (selector != null && peer != null && headNumber != null) {
+            selector.onHeadNumber(peer, headNumber);
+        }
+    }
+
+    private void onRequestEnd(PeerSelector selector, Peer peer, long start, boolean success) {
+        long elapsedMs = System.currentTimeMillis() - start;
+        if (success) {
+            selector.onRequestSuccess(peer, elapsedMs);
+        }
+        else {
+            selector.onRequestFailure(peer, elapsedMs);
+        }
+    }
 }
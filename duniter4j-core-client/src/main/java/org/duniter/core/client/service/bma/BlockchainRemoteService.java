@@ -28,6 +28,7 @@ import org.duniter.core.client.model.bma.BlockchainBlock;
 import org.duniter.core.client.model.bma.BlockchainMemberships;
 import org.duniter.core.client.model.bma.BlockchainParameters;
 import org.duniter.core.client.model.local.Currency;
+import org.duniter.core.client.model.bma.gson.JsonArrayStreamParser;
 import org.duniter.core.client.model.local.Peer;
 import org.duniter.core.client.model.local.Wallet;
 import org.duniter.core.client.service.exception.PubkeyAlreadyUsedException;
@@ -36,6 +37,7 @@ import org.duniter.core.client.service.exception.UidMatchAnotherPubkeyException;
 import org.duniter.core.util.websocket.WebsocketClientEndpoint;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface BlockchainRemoteService extends Service {
 
@@ -101,6 +103,15 @@ public interface BlockchainRemoteService extends Service {
      */
     String getBlockAsJson(Peer peer, int number);
 
+    /**
+     * Retrieve a block, by id (from 0 to current) as raw JSON bytes (UTF-8), e.g. to forward it without decoding
+     *
+     * @param peer   the peer to use for request
+     * @param number the block number
+     * @return
+     */
+    byte[] getBlockAsBytes(Peer peer, int number);
+
     /**
      * Retrieve a block, by id (from 0 to current) as JSON string
      *
@@ -110,6 +121,33 @@ public interface BlockchainRemoteService extends Service {
      */
     String[] getBlocksAsJson(Peer peer, int count, int from);
 
+    /**
+     * Same as {@link #getBlocksAsJson(Peer, int, int)}, without blocking the caller thread
+     */
+    CompletableFuture<String[]> getBlocksAsJsonAsync(Peer peer, int count, int from);
+
+    /**
+     * Retrieve blocks, as a unique JSON array string (items are not split)
+     *
+     * @param peer  the peer to use for request
+     * @param count the number of blocks to retrieve
+     * @param from  the first block number
+     * @return
+     */
+    String getBlocksAsJsonArray(Peer peer, int count, int from);
+
+    /**
+     * Retrieve blocks, and send each block (as JSON bytes) to the handler, while reading the response.
+     * The response is never loaded entirely in memory.
+     *
+     * @param peer  the peer to use for request
+     * @param count the number of blocks to retrieve
+     * @param from  the first block number
+     * @param handler receive each block
+     * @return the number of received blocks
+     */
+    int streamBlocksAsJson(Peer peer, int count, int from, JsonArrayStreamParser.ValueHandler handler);
+
     /**
      * Retrieve the current block (with short cache)
      *
@@ -117,6 +155,13 @@ public interface BlockchainRemoteService extends Service {
      */
     BlockchainBlock getCurrentBlock(long currencyId, boolean useCache);
 
+    /**
+     * Keep the current block of a currency updated by the block feed (/ws/block), so that
+     * {@link #getCurrentBlock(long, boolean)} needs no request while the feed is open.
+     * Do nothing if the block feed is disabled (see option <code>duniter4j.network.blockFeed.enable</code>).
+     */
+    void listenCurrentBlock(long currencyId);
+
     /**
      * Retrieve the current block
      *
@@ -124,6 +169,13 @@ public interface BlockchainRemoteService extends Service {
      */
     BlockchainBlock getCurrentBlock(long currencyId);
 
+    /**
+     * Retrieve the current block, without blocking the caller thread
+     *
+     * @return
+     */
+    CompletableFuture<BlockchainBlock> getCurrentBlockAsync(long currencyId);
+
     /**
      * Retrieve the current block
      *
@@ -132,6 +184,14 @@ public interface BlockchainRemoteService extends Service {
      */
     BlockchainBlock getCurrentBlock(Peer peer);
 
+    /**
+     * Retrieve the current block, without blocking the caller thread
+     *
+     * @param peer the peer to use for request
+     * @return the last block
+     */
+    CompletableFuture<BlockchainBlock> getCurrentBlockAsync(Peer peer);
+
     /**
      * Retrieve the currency data, from peer
      *
@@ -213,8 +273,17 @@ public interface BlockchainRemoteService extends Service {
      */
     Map<Integer, Long> getUDs(long currencyId, long startOffset);
 
+    /**
+     * Listen new blocks of a currency (/ws/block), on its active peer. The listener is kept,
+     * and registered again when the feed is reopened (see {@link #isNewBlockListenerOpen(long)})
+     */
     void addNewBlockListener(long currencyId, WebsocketClientEndpoint.MessageHandler messageHandler);
 
+    /**
+     * @return true if the block feed of the currency is open. If closed, try to reopen it (not too often)
+     */
+    boolean isNewBlockListenerOpen(long currencyId);
+
     void addNewBlockListener(Peer peer, WebsocketClientEndpoint.MessageHandler messageHandler);
 
 
@@ -22,40 +22,51 @@ package org.duniter.core.client.service.bma;
  * #L%
  */
 
+import com.google.gson.Gson;
 import org.duniter.core.client.config.Configuration;
 import org.duniter.core.client.model.bma.BlockchainBlock;
 import org.duniter.core.client.model.bma.BlockchainMemberships;
 import org.duniter.core.client.model.bma.BlockchainParameters;
 import org.duniter.core.client.model.bma.Protocol;
+import org.duniter.core.client.model.bma.gson.GsonUtils;
 import org.duniter.core.client.model.bma.gson.JsonArrayParser;
+import org.duniter.core.client.model.bma.gson.JsonArrayStreamParser;
 import org.duniter.core.client.model.local.Identity;
 import org.duniter.core.client.model.local.Peer;
 import org.duniter.core.client.model.local.Wallet;
+import org.duniter.core.client.service.HttpResponseDecoder;
 import org.duniter.core.client.service.ServiceLocator;
 import org.duniter.core.client.service.exception.HttpBadRequestException;
 import org.duniter.core.client.service.exception.PubkeyAlreadyUsedException;
 import org.duniter.core.client.service.exception.UidAlreadyUsedException;
 import org.duniter.core.client.service.exception.UidMatchAnotherPubkeyException;
+import org.duniter.core.client.service.local.PeerSelector;
 import org.duniter.core.exception.TechnicalException;
 import org.duniter.core.service.CryptoService;
 import org.duniter.core.util.ObjectUtils;
 import org.duniter.core.util.StringUtils;
 import org.duniter.core.util.cache.Cache;
+import org.duniter.core.util.cache.MappedDiskCache;
 import org.duniter.core.util.cache.SimpleCache;
 import org.duniter.core.util.crypto.CryptoUtils;
 import org.duniter.core.util.websocket.WebsocketClientEndpoint;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.message.BasicNameValuePair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class BlockchainRemoteServiceImpl extends BaseRemoteServiceImpl implements BlockchainRemoteService {
 
@@ -91,7 +102,22 @@ public class BlockchainRemoteServiceImpl extends BaseRemoteServiceImpl implement
     // Cache on blockchain parameters
     private Cache<Long, BlockchainParameters> mParametersCache;
 
-    private Map<URI, WebsocketClientEndpoint> blockWsEndPoints = new HashMap<>();
+    private Map<URI, WebsocketClientEndpoint> blockWsEndPoints = new ConcurrentHashMap<>();
+
+    // Block feeds (/ws/block), by currency. Handlers are kept, to be registered again after a reconnection
+    private final Map<Long, BlockFeed> blockFeeds = new ConcurrentHashMap<>();
+
+    // Current block, pushed by the block feed (only used while the feed is open)
+    private final Map<Long, BlockchainBlock> mPushedCurrentBlocks = new ConcurrentHashMap<>();
+    // Currencies whose current block is updated by the block feed (see listenCurrentBlock())
+    private final Set<Long> mListenedCurrencyIds = ConcurrentHashMap.newKeySet();
+
+    // Persistent cache, for immutable documents (parameters, and blocks deep enough in the chain)
+    private MappedDiskCache diskCache;
+
+    private Gson gson;
+
+    private HttpResponseDecoder decoder;
 
     public BlockchainRemoteServiceImpl() {
         super();
@@ -101,7 +127,13 @@ public class BlockchainRemoteServiceImpl extends BaseRemoteServiceImpl implement
     public void afterPropertiesSet() {
         super.afterPropertiesSet();
         networkRemoteService = ServiceLocator.instance().getNetworkRemoteService();
-        config = Configuration.instance();
+        init(Configuration.instance());
+    }
+
+    protected void init(Configuration config) {
+        this.config = config;
+        gson = GsonUtils.newBuilder().create();
+        decoder = new HttpResponseDecoder(gson);
 
         // Initialize caches
         initCaches();
@@ -113,10 +145,20 @@ public class BlockchainRemoteServiceImpl extends BaseRemoteServiceImpl implement
 
         if (blockWsEndPoints.size() != 0) {
             for (WebsocketClientEndpoint clientEndPoint: blockWsEndPoints.values()) {
-                clientEndPoint.close();
+                if (!clientEndPoint.isClosed()) {
+                    clientEndPoint.close();
+                }
             }
             blockWsEndPoints.clear();
         }
+        blockFeeds.clear();
+        mPushedCurrentBlocks.clear();
+        mListenedCurrencyIds.clear();
+
+        if (diskCache != null) {
+            diskCache.close();
+            diskCache = null;
+        }
     }
 
     @Override
@@ -130,61 +172,78 @@ public class BlockchainRemoteServiceImpl extends BaseRemoteServiceImpl implement
 
     @Override
     public BlockchainParameters getParameters(long currencyId) {
-        // get blockchain parameter
-        BlockchainParameters result = executeRequest(currencyId, URL_PARAMETERS, BlockchainParameters.class);
-        return result;
+        // get blockchain parameter (never change)
+        return executeImmutableRequest(currencyId, null, URL_PARAMETERS, -1, BlockchainParameters.class);
     }
 
     @Override
     public BlockchainParameters getParameters(Peer peer) {
-        // get blockchain parameter
-        BlockchainParameters result = executeRequest(peer, URL_PARAMETERS, BlockchainParameters.class);
-        return result;
+        // get blockchain parameter (never change)
+        return executeImmutableRequest(null, peer, URL_PARAMETERS, -1, BlockchainParameters.class);
     }
 
     @Override
     public BlockchainBlock getBlock(long currencyId, long number) {
-        // get blockchain parameter
         String path = String.format(URL_BLOCK, number);
-        BlockchainBlock result = executeRequest(currencyId, path, BlockchainBlock.class);
-        return result;
+        return executeImmutableRequest(currencyId, null, path, (int) number, BlockchainBlock.class);
     }
 
     @Override
     public Long getBlockDividend(long currencyId, long number) {
-        // get blockchain parameter
         String path = String.format(URL_BLOCK, number);
-        String json = executeRequest(currencyId, path, String.class);
+        String json = executeImmutableRequest(currencyId, null, path, (int) number, String.class);
         return getDividendFromBlockJson(json);
     }
 
 
     @Override
     public BlockchainBlock getBlock(Peer peer, int number) {
-        // get blockchain parameter
         String path = String.format(URL_BLOCK, number);
-        BlockchainBlock result = executeRequest(peer, path, BlockchainBlock.class);
-        return result;
+        return executeImmutableRequest(null, peer, path, number, BlockchainBlock.class);
     }
 
     @Override
     public String getBlockAsJson(Peer peer, int number) {
-        // get blockchain parameter
         String path = String.format(URL_BLOCK, number);
-        return executeRequest(peer, path, String.class);
+        return executeImmutableRequest(null, peer, path, number, String.class);
+    }
+
+    @Override
+    public byte[] getBlockAsBytes(Peer peer, int number) {
+        String path = String.format(URL_BLOCK, number);
+        return executeImmutableRequest(null, peer, path, number, byte[].class);
     }
 
     @Override
     public String[] getBlocksAsJson(Peer peer, int count, int from) {
-        // get blockchain parameter
-        String path = String.format(URL_BLOCKS_FROM, count, from);
-        String jsonBlocksStr = executeRequest(peer, path, String.class);
+        String jsonBlocksStr = getBlocksAsJsonArray(peer, count, from);
 
         // Parse only array content, but deserialize array item
         JsonArrayParser parser = new JsonArrayParser();
         return parser.getValuesAsArray(jsonBlocksStr);
     }
 
+    @Override
+    public CompletableFuture<String[]> getBlocksAsJsonAsync(Peer peer, int count, int from) {
+        String path = String.format(URL_BLOCKS_FROM, count, from);
+        return this.<String>executeRequestAsync(peer, path, String.class)
+                .thenApply(jsonBlocksStr -> new JsonArrayParser().getValuesAsArray(jsonBlocksStr));
+    }
+
+    @Override
+    public String getBlocksAsJsonArray(Peer peer, int count, int from) {
+        // get blockchain parameter
+        String path = String.format(URL_BLOCKS_FROM, count, from);
+        return executeRequest(peer, path, String.class);
+    }
+
+    @Override
+    public int streamBlocksAsJson(Peer peer, int count, int from, JsonArrayStreamParser.ValueHandler handler) {
+        String path = String.format(URL_BLOCKS_FROM, count, from);
+        JsonArrayStreamParser parser = new JsonArrayStreamParser();
+        return httpService.executeRequest(peer, path, content -> parser.parse(content, handler));
+    }
+
     /**
      * Retrieve the current block (with short cache)
      *
@@ -193,25 +252,67 @@ public class BlockchainRemoteServiceImpl extends BaseRemoteServiceImpl implement
     public BlockchainBlock getCurrentBlock(long currencyId, boolean useCache) {
         if (!useCache) {
             return getCurrentBlock(currencyId);
-        } else {
-            return mCurrentBlockCache.get(currencyId);
+        }
+
+        // Use the block pushed by the block feed, while open
+        if (mListenedCurrencyIds.contains(currencyId)) {
+            if (isNewBlockListenerOpen(currencyId)) {
+                BlockchainBlock result = mPushedCurrentBlocks.get(currencyId);
+                if (result == null) {
+                    // First call since the feed opened: blocks pushed from now will update it
+                    result = getCurrentBlock(currencyId);
+                    BlockchainBlock pushedBlock = mPushedCurrentBlocks.putIfAbsent(currencyId, result);
+                    if (pushedBlock != null) {
+                        result = pushedBlock;
+                    }
+                    mCurrentBlockCache.put(currencyId, result);
+                }
+                return result;
+            }
+            // Feed is down: blocks may be missed
+            mPushedCurrentBlocks.remove(currencyId);
+        }
+
+        // Fallback: TTL cache
+        return mCurrentBlockCache.get(currencyId);
+    }
+
+    @Override
+    public void listenCurrentBlock(long currencyId) {
+        if (config.isNetworkBlockFeedEnable() && mListenedCurrencyIds.add(currencyId)) {
+            addNewBlockListener(currencyId, message -> onNewBlock(currencyId, message));
         }
     }
 
     @Override
     public BlockchainBlock getCurrentBlock(long currencyId) {
-        // get blockchain parameter
-        BlockchainBlock result = executeRequest(currencyId, URL_BLOCK_CURRENT, BlockchainBlock.class);
-        return result;
+        Peer peer = peerService.getActivePeerByCurrencyId(currencyId);
+        return getCurrentBlock(peer);
+    }
+
+    @Override
+    public CompletableFuture<BlockchainBlock> getCurrentBlockAsync(long currencyId) {
+        Peer peer = peerService.getActivePeerByCurrencyId(currencyId);
+        return getCurrentBlockAsync(peer);
     }
 
     @Override
     public BlockchainBlock getCurrentBlock(Peer peer) {
         // get blockchain parameter
         BlockchainBlock result = executeRequest(peer, URL_BLOCK_CURRENT, BlockchainBlock.class);
+        onHeadNumber(peer, result.getNumber());
         return result;
     }
 
+    @Override
+    public CompletableFuture<BlockchainBlock> getCurrentBlockAsync(Peer peer) {
+        return executeRequestAsync(peer, URL_BLOCK_CURRENT, BlockchainBlock.class)
+                .thenApply(result -> {
+                    onHeadNumber(peer, result.getNumber());
+                    return result;
+                });
+    }
+
     @Override
     public org.duniter.core.client.model.local.Currency getCurrencyFromPeer(Peer peer) {
         BlockchainParameters parameter = getParameters(peer);
@@ -527,37 +628,127 @@ public class BlockchainRemoteServiceImpl extends BaseRemoteServiceImpl implement
 
     @Override
     public void addNewBlockListener(long currencyId, WebsocketClientEndpoint.MessageHandler messageHandler) {
-        Peer peer = peerService.getActivePeerByCurrencyId(currencyId);
-        addNewBlockListener(peer, messageHandler);
+        BlockFeed blockFeed = blockFeeds.computeIfAbsent(currencyId, BlockFeed::new);
+
+        // Same lock as connect(): the handler is registered either here, or by a connection in progress (never lost)
+        synchronized (blockFeed) {
+            blockFeed.handlers.add(messageHandler);
+            if (blockFeed.isOpen()) {
+                blockFeed.endpoint.addMessageHandler(messageHandler);
+            }
+            else {
+                connect(blockFeed, true/*force*/);
+            }
+        }
     }
 
     @Override
     public void addNewBlockListener(Peer peer, WebsocketClientEndpoint.MessageHandler messageHandler) {
+        WebsocketClientEndpoint wsClientEndPoint = getBlockWsEndPoint(peer);
+
+        // add listener
+        wsClientEndPoint.addMessageHandler(messageHandler);
+    }
 
+    @Override
+    public boolean isNewBlockListenerOpen(long currencyId) {
+        BlockFeed blockFeed = blockFeeds.get(currencyId);
+        if (blockFeed == null) {
+            return false;
+        }
+        if (blockFeed.isOpen()) {
+            return true;
+        }
+
+        // Try to reconnect (not too often)
+        connect(blockFeed, false);
+        return blockFeed.isOpen();
+    }
+
+    /* -- Internal methods -- */
+
+    /**
+     * Get the websocket of a peer, or open new one if not exists
+     */
+    protected WebsocketClientEndpoint getBlockWsEndPoint(Peer peer) {
         try {
             URI wsBlockURI = new URI(String.format("ws://%s:%s/ws/block",
                     peer.getHost(),
                     peer.getPort()));
 
-            log.info(String.format("Starting to listen block from [%s]...", wsBlockURI.toString()));
-
-            // Get the websocket, or open new one if not exists
-            WebsocketClientEndpoint wsClientEndPoint = blockWsEndPoints.get(wsBlockURI);
-            if (wsClientEndPoint == null || wsClientEndPoint.isClosed()) {
-                wsClientEndPoint = new WebsocketClientEndpoint(wsBlockURI);
-                blockWsEndPoints.put(wsBlockURI, wsClientEndPoint);
-            }
-
-            // add listener
-            wsClientEndPoint.addMessageHandler(messageHandler);
+            return blockWsEndPoints.compute(wsBlockURI, (uri, wsClientEndPoint) -> {
+                if (wsClientEndPoint == null || wsClientEndPoint.isClosed()) {
+                    log.info(String.format("Starting to listen block from [%s]...", uri.toString()));
+                    wsClientEndPoint = new WebsocketClientEndpoint(uri);
+                }
+                return wsClientEndPoint;
+            });
 
         } catch (URISyntaxException ex) {
             throw new TechnicalException("could not create URI need for web socket on block: " + ex.getMessage());
         }
+    }
 
+    /**
+     * Open the websocket of a block feed, on the active peer of the currency, then register all handlers
+     * @param force if false, do not retry before <code>cacheTimeInMillis</code>
+     */
+    protected void connect(BlockFeed blockFeed, boolean force) {
+        synchronized (blockFeed) {
+            if (blockFeed.isOpen()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (!force && now - blockFeed.lastConnectTime < config.getNetworkCacheTimeInMillis()) {
+                return;
+            }
+            blockFeed.lastConnectTime = now;
+
+            try {
+                Peer peer = peerService.getActivePeerByCurrencyId(blockFeed.currencyId);
+                WebsocketClientEndpoint endpoint = getBlockWsEndPoint(peer);
+                for (WebsocketClientEndpoint.MessageHandler handler : blockFeed.handlers) {
+                    endpoint.addMessageHandler(handler);
+                }
+                blockFeed.endpoint = endpoint;
+            }
+            catch (RuntimeException e) {
+                // Polling will be used, until the feed can be opened
+                log.warn(String.format("Could not listen blocks of currency [%s]: %s", blockFeed.currencyId, e.getMessage()));
+            }
+        }
     }
 
-    /* -- Internal methods -- */
+    /**
+     * Update the current block cache, from a block pushed by the feed
+     */
+    protected void onNewBlock(long currencyId, String blockJson) {
+        BlockchainBlock block = gson.fromJson(blockJson, BlockchainBlock.class);
+        if (block == null || block.getNumber() == null) {
+            return;
+        }
+        mPushedCurrentBlocks.put(currencyId, block);
+        mCurrentBlockCache.put(currencyId, block);
+    }
+
+    /**
+     * Block feed (/ws/block) of a currency: the websocket, and the handlers to register again after a reconnection
+     */
+    protected static class BlockFeed {
+        private final long currencyId;
+        private final List<WebsocketClientEndpoint.MessageHandler> handlers = new CopyOnWriteArrayList<>();
+        private volatile WebsocketClientEndpoint endpoint;
+        private volatile long lastConnectTime;
+
+        protected BlockFeed(long currencyId) {
+            this.currencyId = currencyId;
+        }
+
+        protected boolean isOpen() {
+            WebsocketClientEndpoint endpoint = this.endpoint;
+            return endpoint != null && !endpoint.isClosed();
+        }
+    }
 
     /**
      * Initialize caches
@@ -565,7 +756,20 @@ public class BlockchainRemoteServiceImpl extends BaseRemoteServiceImpl implement
     protected void initCaches() {
         int cacheTimeInMillis = config.getNetworkCacheTimeInMillis();
 
-        mCurrentBlockCache = new SimpleCache<Long, BlockchainBlock>(cacheTimeInMillis) {
+        // Persistent cache: restarts will not fetch immutable documents again
+        if (config.isCacheDiskEnable()) {
+            File directory = new File(config.getCacheDirectory(), "bma");
+            try {
+                diskCache = new MappedDiskCache(directory, config.getCacheDiskSegmentSize());
+            }
+            catch (TechnicalException e) {
+                log.warn(String.format("Unable to open the disk cache [%s]: %s", directory, e.getMessage()));
+                diskCache = null;
+            }
+        }
+
+        // Refresh in background after half of the cache time, so that readers are never blocked by a hot key
+        mCurrentBlockCache = new SimpleCache<Long, BlockchainBlock>(cacheTimeInMillis, -1/*illimited*/, cacheTimeInMillis / 2) {
             @Override
             public BlockchainBlock load(Long currencyId) {
                 return getCurrentBlock(currencyId);
@@ -581,6 +785,83 @@ public class BlockchainRemoteServiceImpl extends BaseRemoteServiceImpl implement
     }
 
 
+    /**
+     * Read an immutable document from the disk cache, or from the network (then write it into the disk cache).
+     * A block is only written when it is deep enough in the chain, so that it cannot be reverted by a fork.
+     * When the head is not known locally (no pushed or cached current block, no peer stats), the block is not written.
+     * @param currencyId the currency, or null if a peer is given
+     * @param peer the peer to use (or null)
+     * @param blockNumber the block number, or -1 if the document is not a block
+     */
+    protected <T> T executeImmutableRequest(Long currencyId, Peer peer, String path, int blockNumber, Class<T> resultClass) {
+        MappedDiskCache diskCache = this.diskCache;
+        String key = diskCache != null ? getDiskCacheKey(currencyId, peer, path) : null;
+        if (key != null) {
+            byte[] content = diskCache.get(key);
+            if (content != null) {
+                return decode(content, resultClass);
+            }
+        }
+
+        if (peer == null) {
+            peer = peerService.getActivePeerByCurrencyId(currencyId);
+        }
+        byte[] content = executeRequest(peer, path, byte[].class);
+        T result = decode(content, resultClass);
+
+        if (key != null && (blockNumber < 0 || isImmutableBlock(currencyId, peer, blockNumber))) {
+            diskCache.put(key, content);
+        }
+        return result;
+    }
+
+    /**
+     * @return the key, prefixed by the currency name (or by the peer URL, if the currency is unknown)
+     */
+    protected String getDiskCacheKey(Long currencyId, Peer peer, String path) {
+        if (currencyId == null && peer != null) {
+            currencyId = peer.getCurrencyId();
+        }
+        String prefix = currencyId != null ? ServiceLocator.instance().getCurrencyService().getCurrencyNameById(currencyId) : null;
+        if (prefix == null && peer != null) {
+            prefix = peer.getUrl();
+        }
+        return prefix != null ? prefix + path : null;
+    }
+
+    protected boolean isImmutableBlock(Long currencyId, Peer peer, int blockNumber) {
+        int headNumber = -1;
+        if (currencyId != null) {
+            BlockchainBlock currentBlock = mPushedCurrentBlocks.get(currencyId);
+            if (currentBlock == null) {
+                currentBlock = mCurrentBlockCache.getIfPresent(currencyId);
+            }
+            if (currentBlock != null && currentBlock.getNumber() != null) {
+                headNumber = currentBlock.getNumber();
+            }
+        }
+        PeerSelector selector = getPeerSelector();
+        if (selector != null && peer != null) {
+            headNumber = Math.max(headNumber, selector.getStats(peer).getHeadNumber());
+        }
+
+        // Unknown head (no feed, no selector): do not cache, rather than requesting the head for each block
+        return headNumber != -1 && headNumber - blockNumber >= config.getCacheDiskMinBlockDepth();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> T decode(byte[] content, Class<T> resultClass) {
+        if (resultClass == byte[].class) {
+            return (T) content;
+        }
+        try {
+            return decoder.decode(new ByteArrayEntity(content), resultClass);
+        }
+        catch (IOException e) {
+            throw new TechnicalException(e.getMessage(), e);
+        }
+    }
+
     protected void loadMembership(Long currencyId, Peer peer, Identity identity, boolean checkLookupForNonMember) {
         ObjectUtils.checkNotNull(identity);
         ObjectUtils.checkArgument(StringUtils.isNotBlank(identity.getUid()));
@@ -44,6 +44,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.UnsupportedEncodingException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class WotRemoteServiceImpl extends BaseRemoteServiceImpl implements WotRemoteService {
 
@@ -282,6 +283,11 @@ public class WotRemoteServiceImpl extends BaseRemoteServiceImpl implements WotRe
     }
 
 
+    public CompletableFuture<WotCertification> getCertifiersOfAsync(long currencyId, String uid) {
+        String path = String.format(URL_CERTIFIERS_OF, uid);
+        return executeRequestAsync(currencyId, path, WotCertification.class);
+    }
+
     public void sendIdentity(long currencyId, byte[] pubKey, byte[] secKey, String userId, String blockUid) {
         // http post /wot/add
         HttpPost httpPost = new HttpPost(getPath(currencyId, URL_ADD));
@@ -23,34 +23,34 @@ package org.duniter.core.client.service.exception;
  */
 
 import org.duniter.core.client.model.bma.Error;
-import org.duniter.core.exception.TechnicalException;
+import org.apache.http.HttpStatus;
 
 /**
  * Created by eis on 11/02/15.
  */
-public class HttpBadRequestException extends TechnicalException{
+public class HttpBadRequestException extends HttpStatusException {
 
     private static final long serialVersionUID = -5260280401104018980L;
 
     public HttpBadRequestException() {
-        super();
+        super(HttpStatus.SC_BAD_REQUEST);
     }
 
     public HttpBadRequestException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, HttpStatus.SC_BAD_REQUEST);
     }
 
     public HttpBadRequestException(String message) {
-        super(message);
+        super(message, HttpStatus.SC_BAD_REQUEST);
     }
 
     public HttpBadRequestException(Error error) {
-        super(error.getMessage());
+        super(error.getMessage(), HttpStatus.SC_BAD_REQUEST);
         setCode(error.getUcode());
     }
 
     public HttpBadRequestException(Throwable cause) {
-        super(cause);
+        super(cause, HttpStatus.SC_BAD_REQUEST);
     }
 
 }
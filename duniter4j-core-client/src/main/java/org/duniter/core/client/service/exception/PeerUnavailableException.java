@@ -0,0 +1,41 @@
+package org.duniter.core.client.service.exception;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.duniter.core.exception.TechnicalException;
+
+/**
+ * Thrown without any network access, when the circuit breaker of a peer is open
+ */
+public class PeerUnavailableException extends TechnicalException {
+
+    private static final long serialVersionUID = -2815346106826574305L;
+
+    public PeerUnavailableException(String message) {
+        super(message);
+    }
+
+    public PeerUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -23,7 +23,9 @@ package org.duniter.core.client.service.local;
  */
 
 import org.duniter.core.beans.InitializingBean;
+import org.duniter.core.client.config.Configuration;
 import org.duniter.core.client.dao.CurrencyDao;
+import org.duniter.core.client.model.bma.gson.JsonFieldExtractor;
 import org.duniter.core.client.model.local.Currency;
 import org.duniter.core.client.service.ServiceLocator;
 import org.duniter.core.client.service.bma.BlockchainRemoteService;
@@ -36,6 +38,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -45,10 +48,18 @@ public class CurrencyServiceImpl implements CurrencyService, InitializingBean {
 
 
     private static final long UD_CACHE_TIME_MILLIS = 5 * 60 * 1000; // = 5 min
+    private static final long UD_CACHE_REFRESH_TIME_MILLIS = 4 * 60 * 1000; // = 4 min
+
+    private static final JsonFieldExtractor DIVIDEND_EXTRACTOR = new JsonFieldExtractor("dividend");
 
     private Cache<Long, Currency> mCurrencyCache;
     private Cache<Long, Long> mUDCache;
 
+    // Last UD, pushed by the block feed (only used while the feed is open)
+    private final Map<Long, Long> mPushedUDs = new ConcurrentHashMap<>();
+
+    private final Set<Long> mListenedCurrencyIds = ConcurrentHashMap.newKeySet();
+
     private BlockchainRemoteService blockchainRemoteService;
     private CurrencyDao currencyDao;
 
@@ -72,6 +83,8 @@ public class CurrencyServiceImpl implements CurrencyService, InitializingBean {
     public void close() throws IOException {
         currencyDao = null;
         blockchainRemoteService = null;
+        mListenedCurrencyIds.clear();
+        mPushedUDs.clear();
     }
 
     public Currency save(final Currency currency) {
@@ -191,18 +204,14 @@ public class CurrencyServiceImpl implements CurrencyService, InitializingBean {
             // Create the UD cache
             if (mUDCache == null) {
 
-                mUDCache = new SimpleCache<Long, Long>(UD_CACHE_TIME_MILLIS) {
+                mUDCache = new SimpleCache<Long, Long>(UD_CACHE_TIME_MILLIS, -1/*illimited*/, UD_CACHE_REFRESH_TIME_MILLIS) {
                     @Override
                     public Long load(final Long currencyId) {
                         // Retrieve the last UD from the blockchain
                         final long lastUD = blockchainRemoteService.getLastUD(currencyId);
 
                         // Update currency
-                        Currency currency = getCurrencyById(currencyId);
-                        if (!ObjectUtils.equals(currency.getLastUD(), lastUD)) {
-                            currency.setLastUD(lastUD);
-                            currencyDao.update(currency);
-                        }
+                        updateLastUD(currencyId, lastUD);
 
                         return lastUD;
                     }
@@ -217,6 +226,32 @@ public class CurrencyServiceImpl implements CurrencyService, InitializingBean {
      * @return
      */
     public long getLastUD(long currencyId) {
+        if (!Configuration.instance().isNetworkBlockFeedEnable()) {
+            return mUDCache.get(currencyId);
+        }
+
+        // Listen new blocks, to get new UD
+        if (mListenedCurrencyIds.add(currencyId)) {
+            blockchainRemoteService.addNewBlockListener(currencyId, message -> onNewBlock(currencyId, message));
+        }
+
+        // Feed is open: UD only change with a pushed block
+        if (blockchainRemoteService.isNewBlockListenerOpen(currencyId)) {
+            Long lastUD = mPushedUDs.get(currencyId);
+            if (lastUD == null) {
+                lastUD = mUDCache.get(currencyId);
+                Long pushedUD = mPushedUDs.putIfAbsent(currencyId, lastUD);
+                if (pushedUD != null) {
+                    lastUD = pushedUD;
+                }
+            }
+            return lastUD;
+        }
+
+        // Feed is down: a UD may be missed
+        mPushedUDs.remove(currencyId);
+
+        // Fallback: TTL cache
         return mUDCache.get(currencyId);
     }
 
@@ -245,4 +280,28 @@ public class CurrencyServiceImpl implements CurrencyService, InitializingBean {
         return currencyDao.getAllUD(currencyId);
     }
 
+
+    /* -- internal methods -- */
+
+    /**
+     * Update the UD cache, when a pushed block has a dividend
+     */
+    protected void onNewBlock(long currencyId, String blockJson) {
+        JsonFieldExtractor.Values values = DIVIDEND_EXTRACTOR.extract(blockJson);
+        if (!values.isNumber(0)) {
+            return; // no dividend
+        }
+        long lastUD = values.getLong(0);
+        mPushedUDs.put(currencyId, lastUD);
+        mUDCache.put(currencyId, lastUD);
+        updateLastUD(currencyId, lastUD);
+    }
+
+    protected void updateLastUD(long currencyId, long lastUD) {
+        Currency currency = getCurrencyById(currencyId);
+        if (currency != null && !ObjectUtils.equals(currency.getLastUD(), lastUD)) {
+            currency.setLastUD(lastUD);
+            currencyDao.update(currency);
+        }
+    }
 }
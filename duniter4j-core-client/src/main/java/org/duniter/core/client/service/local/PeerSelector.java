@@ -0,0 +1,214 @@
+package org.duniter.core.client.service.local;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.duniter.core.client.model.local.Peer;
+import org.duniter.core.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Select a peer, using "power of two choices": pick two random healthy peers, and keep the one with the lower cost.
+ * <p/>
+ * The cost of a peer is its EWMA latency, weighted by its pending requests and its EWMA error rate.
+ * A peer is unhealthy (evicted) when:
+ * <ul>
+ *     <li>its head block lags behind the best known head, by more than <code>maxBlockLag</code> blocks;</li>
+ *     <li>or after <code>maxFailures</code> consecutive failures (until a backoff delay expires).</li>
+ * </ul>
+ * If all peers are unhealthy, the lowest cost peer is returned anyway.
+ * This class is thread-safe.
+ */
+public class PeerSelector {
+
+    /** weight of the last sample, in EWMA */
+    private static final double EWMA_ALPHA = 0.2;
+
+    /** cost multiplier, for a peer that always fails */
+    private static final double ERROR_PENALTY = 10;
+
+    private static final long EVICTION_DELAY_MS = 30 * 1000; // 30s
+    private static final long EVICTION_MAX_DELAY_MS = 10 * 60 * 1000; // 10min
+
+    private final Map<String, PeerStats> statsByUrl = new ConcurrentHashMap<>();
+    private final int maxBlockLag;
+    private final int maxFailures;
+
+    public PeerSelector(int maxBlockLag, int maxFailures) {
+        this.maxBlockLag = maxBlockLag;
+        this.maxFailures = maxFailures;
+    }
+
+    public Peer select(List<Peer> peers) {
+        if (CollectionUtils.isEmpty(peers)) {
+            return null;
+        }
+        if (peers.size() == 1) {
+            return peers.get(0);
+        }
+
+        long now = System.currentTimeMillis();
+        int bestHeadNumber = -1;
+        for (Peer peer: peers) {
+            bestHeadNumber = Math.max(bestHeadNumber, getStats(peer).headNumber);
+        }
+
+        List<Peer> healthyPeers = new ArrayList<>(peers.size());
+        for (Peer peer: peers) {
+            if (isHealthy(getStats(peer), bestHeadNumber, now)) {
+                healthyPeers.add(peer);
+            }
+        }
+
+        // No healthy peer: use the lowest cost one
+        if (healthyPeers.isEmpty()) {
+            Peer result = null;
+            double resultCost = Double.MAX_VALUE;
+            for (Peer peer: peers) {
+                double cost = getStats(peer).getCost();
+                if (result == null || cost < resultCost) {
+                    result = peer;
+                    resultCost = cost;
+                }
+            }
+            return result;
+        }
+        if (healthyPeers.size() == 1) {
+            return healthyPeers.get(0);
+        }
+
+        // Power of two choices
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = healthyPeers.size();
+        int i = random.nextInt(size);
+        int j = random.nextInt(size - 1);
+        if (j >= i) j++;
+        Peer first = healthyPeers.get(i);
+        Peer second = healthyPeers.get(j);
+        return getStats(first).getCost() <= getStats(second).getCost() ? first : second;
+    }
+
+    public void onRequestStart(Peer peer) {
+        getStats(peer).onStart();
+    }
+
+    public void onRequestSuccess(Peer peer, long elapsedMs) {
+        getStats(peer).onSuccess(elapsedMs);
+    }
+
+    public void onRequestFailure(Peer peer, long elapsedMs) {
+        getStats(peer).onFailure(elapsedMs, maxFailures);
+    }
+
+    public void onHeadNumber(Peer peer, int headNumber) {
+        PeerStats stats = getStats(peer);
+        synchronized (stats) {
+            stats.headNumber = Math.max(stats.headNumber, headNumber);
+        }
+    }
+
+    public PeerStats getStats(Peer peer) {
+        return statsByUrl.computeIfAbsent(peer.getUrl(), url -> new PeerStats());
+    }
+
+    /* -- internal methods -- */
+
+    protected boolean isHealthy(PeerStats stats, int bestHeadNumber, long now) {
+        if (stats.evictedUntil > now) {
+            return false;
+        }
+        // Unknown head: consider as in sync
+        return stats.headNumber == -1 || bestHeadNumber - stats.headNumber <= maxBlockLag;
+    }
+
+    /**
+     * Statistics of a peer (latency and error rate are exponentially weighted moving averages)
+     */
+    public static class PeerStats {
+        private double latencyMs;
+        private double errorRate;
+        private int pendingCount;
+        private int consecutiveFailures;
+        private volatile long evictedUntil;
+        private volatile int headNumber = -1;
+
+        public synchronized double getLatencyMs() {
+            return latencyMs;
+        }
+
+        public synchronized double getErrorRate() {
+            return errorRate;
+        }
+
+        public synchronized int getPendingCount() {
+            return pendingCount;
+        }
+
+        public int getHeadNumber() {
+            return headNumber;
+        }
+
+        /**
+         * @return the cost of the next request. A peer never used has a zero cost, so it will be tried.
+         */
+        public synchronized double getCost() {
+            return latencyMs * (pendingCount + 1) * (1 + ERROR_PENALTY * errorRate);
+        }
+
+        synchronized void onStart() {
+            pendingCount++;
+        }
+
+        synchronized void onSuccess(long elapsedMs) {
+            pendingCount = Math.max(0, pendingCount - 1);
+            latencyMs = latencyMs == 0 ? elapsedMs : ewma(latencyMs, elapsedMs);
+            errorRate = ewma(errorRate, 0);
+            consecutiveFailures = 0;
+            evictedUntil = 0;
+        }
+
+        synchronized void onFailure(long elapsedMs, int maxFailures) {
+            pendingCount = Math.max(0, pendingCount - 1);
+            latencyMs = latencyMs == 0 ? elapsedMs : ewma(latencyMs, elapsedMs);
+            errorRate = ewma(errorRate, 1);
+            consecutiveFailures++;
+            if (consecutiveFailures >= maxFailures) {
+                long delay = Math.min(EVICTION_MAX_DELAY_MS, EVICTION_DELAY_MS * (consecutiveFailures - maxFailures + 1));
+                evictedUntil = System.currentTimeMillis() + delay;
+            }
+        }
+
+        private double ewma(double average, double sample) {
+            return average + EWMA_ALPHA * (sample - average);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("latency=%.1fms, errorRate=%.2f, pending=%s, head=%s", latencyMs, errorRate, pendingCount, headNumber);
+        }
+    }
+}
@@ -37,12 +37,19 @@ public interface PeerService extends Service {
     Peer getPeerById(long peerId);
 
     /**
-     * Return a (cached) active peer, by currency id
+     * Return an active peer, by currency id.
+     * When many peers exist, read traffic is spread over healthy and in-sync peers (see {@link PeerSelector})
      * @param currencyId
      * @return
      */
     Peer getActivePeerByCurrencyId(long currencyId);
 
+    /**
+     * Latency, error rate and head block of each peer, used to select the active peer.
+     * Remote services should report each request result.
+     */
+    PeerSelector getPeerSelector();
+
     /**
      * Return a (cached) peer list, by currency id
      * @param currencyId
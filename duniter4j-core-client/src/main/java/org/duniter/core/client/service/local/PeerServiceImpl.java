@@ -23,6 +23,7 @@ package org.duniter.core.client.service.local;
  */
 
 import org.duniter.core.beans.InitializingBean;
+import org.duniter.core.client.config.Configuration;
 import org.duniter.core.client.dao.PeerDao;
 import org.duniter.core.client.model.local.Currency;
 import org.duniter.core.client.model.local.Peer;
@@ -44,7 +45,7 @@ import java.util.List;
 public class PeerServiceImpl implements PeerService, InitializingBean {
 
     private Cache<Long, List<Peer>> peersByCurrencyIdCache;
-    private Cache<Long, Peer> activePeerByCurrencyIdCache;
+    private PeerSelector peerSelector;
 
     private CurrencyService currencyService;
     private PeerDao peerDao;
@@ -57,6 +58,9 @@ public class PeerServiceImpl implements PeerService, InitializingBean {
     public void afterPropertiesSet() throws Exception {
         currencyService = ServiceLocator.instance().getCurrencyService();
         peerDao = ServiceLocator.instance().getBean(PeerDao.class);
+
+        Configuration config = Configuration.instance();
+        peerSelector = new PeerSelector(config.getNetworkPeerMaxBlockLag(), config.getNetworkPeerMaxFailures());
     }
 
     @Override
@@ -64,7 +68,7 @@ public class PeerServiceImpl implements PeerService, InitializingBean {
         currencyService = null;
         peerDao = null;
         peersByCurrencyIdCache = null;
-        activePeerByCurrencyIdCache = null;
+        peerSelector = null;
     }
 
     public Peer save(final Peer peer) {
@@ -107,31 +111,30 @@ public class PeerServiceImpl implements PeerService, InitializingBean {
     }
 
     /**
-     * Return a (cached) active peer, by currency id
+     * Return an active peer, by currency id: the best of two random healthy peers (see {@link PeerSelector})
      * @param currencyId
      * @return
      */
     public Peer getActivePeerByCurrencyId(long currencyId) {
         // Check if cache as been loaded
-        if (activePeerByCurrencyIdCache == null) {
-
-            activePeerByCurrencyIdCache = new SimpleCache<Long, Peer>() {
-                @Override
-                public Peer load(Long currencyId) {
-                    List<Peer> peers = peerDao.getPeersByCurrencyId(currencyId);
-                    if (CollectionUtils.isEmpty(peers)) {
-                        String currencyName = currencyService.getCurrencyNameById(currencyId);
-                        throw new TechnicalException(String.format(
-                                "No peers configure for currency [%s]",
-                                currencyName != null ? currencyName : currencyId));
-                    }
-
-                    return peers.get(0);
-                }
-            };
+        if (peersByCurrencyIdCache == null) {
+            initPeersCache();
+        }
+
+        List<Peer> peers = peersByCurrencyIdCache.get(currencyId);
+        if (CollectionUtils.isEmpty(peers)) {
+            String currencyName = currencyService.getCurrencyNameById(currencyId);
+            throw new TechnicalException(String.format(
+                    "No peers configure for currency [%s]",
+                    currencyName != null ? currencyName : currencyId));
         }
 
-        return activePeerByCurrencyIdCache.get(currencyId);
+        return peerSelector.select(peers);
+    }
+
+    @Override
+    public PeerSelector getPeerSelector() {
+        return peerSelector;
     }
 
     /**
@@ -157,12 +160,7 @@ public class PeerServiceImpl implements PeerService, InitializingBean {
             return;
         }
 
-        peersByCurrencyIdCache = new SimpleCache<Long, List<Peer>>() {
-            @Override
-            public List<Peer> load(Long currencyId) {
-                return peerDao.getPeersByCurrencyId(currencyId);
-            }
-        };
+        initPeersCache();
 
         List<Currency> currencies = ServiceLocator.instance().getCurrencyService().getCurrencies(accountId);
 
@@ -177,4 +175,17 @@ public class PeerServiceImpl implements PeerService, InitializingBean {
         }
     }
 
+    /* -- internal methods -- */
+
+    protected synchronized void initPeersCache() {
+        if (peersByCurrencyIdCache != null) {
+            return;
+        }
+        peersByCurrencyIdCache = new SimpleCache<Long, List<Peer>>() {
+            @Override
+            public List<Peer> load(Long currencyId) {
+                return peerDao.getPeersByCurrencyId(currencyId);
+            }
+        };
+    }
 }
@@ -45,4 +45,18 @@ public class JsonArrayParserTest {
         result = parser.getValuesAsArray("[]");
         Assert.assertNull(result);
     }
+
+    @Test
+    public void getValuesWithBracesInString() {
+        String obj = "{\"id\":\"a}b{c\",\"text\":\"escaped \\\" } quote\",\"foo\":{\"bar\":\"[{\"}}";
+        String string = String.format("[%s,%s]", obj, obj);
+
+        JsonArrayParser parser = new JsonArrayParser();
+        String[] result = parser.getValuesAsArray(string);
+
+        Assert.assertNotNull(result);
+        Assert.assertEquals(2, result.length);
+        Assert.assertEquals(obj, result[0]);
+        Assert.assertEquals(obj, result[1]);
+    }
 }
@@ -0,0 +1,87 @@
+package org.duniter.core.client.model.bma.gson;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JsonArrayStreamParserTest {
+
+    @Test
+    public void parse() throws Exception {
+        String obj = "{'id':'joe','ts':'2014-12-02T13:58:23.801+0100','foo':{'bar':{'v1':50019820,'v2':0, 'b':true, 'list':[1,2]}}}".replace("'", "\"");
+        String string = String.format("[%s, %s,\n%s,%s]", obj, obj, obj, obj);
+
+        // Use a small buffer, so items are split across many reads
+        List<String> result = parse(new JsonArrayStreamParser(7), string);
+
+        Assert.assertEquals(4, result.size());
+        for (String item: result) {
+            Assert.assertEquals(obj, item);
+        }
+
+        Assert.assertEquals(0, parse(new JsonArrayStreamParser(), "[]").size());
+        Assert.assertEquals(0, parse(new JsonArrayStreamParser(), " [ ] ").size());
+    }
+
+    @Test
+    public void parseWithBracesInString() throws Exception {
+        String obj = "{\"id\":\"a}b{c\",\"text\":\"escaped \\\" } quote\",\"foo\":{\"bar\":\"[{\"}}";
+        String string = String.format("[%s,%s]", obj, obj);
+
+        List<String> result = parse(new JsonArrayStreamParser(3), string);
+
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals(obj, result.get(0));
+        Assert.assertEquals(obj, result.get(1));
+    }
+
+    @Test
+    public void parseScalars() throws Exception {
+        List<String> result = parse(new JsonArrayStreamParser(2), "[1, \"a,]b\" ,true,[2,3]]");
+
+        Assert.assertEquals(4, result.size());
+        Assert.assertEquals("1", result.get(0));
+        Assert.assertEquals("\"a,]b\"", result.get(1));
+        Assert.assertEquals("true", result.get(2));
+        Assert.assertEquals("[2,3]", result.get(3));
+    }
+
+    @Test(expected = com.google.gson.JsonParseException.class)
+    public void parseTruncated() throws Exception {
+        parse(new JsonArrayStreamParser(), "[{\"id\":1},{\"id\":");
+    }
+
+    private List<String> parse(JsonArrayStreamParser parser, String json) throws Exception {
+        List<String> result = new ArrayList<>();
+        int count = parser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                (bytes, offset, length) -> result.add(new String(bytes, offset, length, StandardCharsets.UTF_8)));
+        Assert.assertEquals(result.size(), count);
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package org.duniter.core.client.model.bma.gson;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.duniter.core.exception.TechnicalException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class JsonFieldExtractorTest {
+
+    private static final String BLOCK = ("{'version':2,'nonce':-12,'number':50019820,'powMin':4.5," +
+            "'identities':[{'number':1,'hash':'nested'}],'inner':{'hash':'nested'}," +
+            "'issuer':'HnFcSms8jzwngtVomTTnzudZx7SHUQY8sVE1y8yBmULk','currency':'meta_brouzouf'," +
+            "'memo':'a \\\"quoted\\\" \\u00e9t\\u00e9','hash':'0000A','previousHash':null}").replace('\'', '"');
+
+    @Test
+    public void extract() throws Exception {
+        JsonFieldExtractor extractor = new JsonFieldExtractor("number", "hash", "currency", "nonce", "powMin", "previousHash", "missing");
+        JsonFieldExtractor.Values values = extractor.extract(BLOCK);
+
+        // Nested "number" and "hash" must be ignored
+        Assert.assertEquals(50019820, values.getInt(0));
+        Assert.assertEquals("0000A", values.getString(1));
+        Assert.assertEquals("meta_brouzouf", values.getString("currency"));
+        Assert.assertEquals(-12L, values.getLong(3));
+        Assert.assertEquals(4.5, values.getDouble(4), 0.0001);
+        Assert.assertTrue(values.isPresent(5));
+        Assert.assertTrue(values.isNull(5));
+        Assert.assertNull(values.getString(5));
+        Assert.assertFalse(values.isPresent(6));
+        Assert.assertEquals(0, values.getInt(6));
+        Assert.assertNull(values.getNumber(6));
+    }
+
+    @Test
+    public void extractBytes() throws Exception {
+        JsonFieldExtractor extractor = new JsonFieldExtractor("memo", "number");
+        byte[] bytes = ("[" + BLOCK + "]").getBytes(StandardCharsets.UTF_8);
+
+        JsonFieldExtractor.Values values = extractor.extract(bytes, 1, bytes.length - 2);
+        Assert.assertEquals("a \"quoted\" été", values.getString(0));
+        Assert.assertEquals(50019820, values.getInt(1));
+
+        // Reuse the same holder
+        values = extractor.extract("{\"number\":3}", values);
+        Assert.assertFalse(values.isPresent(0));
+        Assert.assertEquals(3, values.getInt(1));
+    }
+
+    @Test(expected = TechnicalException.class)
+    public void extractNotAnObject() throws Exception {
+        new JsonFieldExtractor("number").extract("[1,2]");
+    }
+}
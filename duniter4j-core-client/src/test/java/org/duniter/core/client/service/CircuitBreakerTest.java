@@ -0,0 +1,91 @@
+package org.duniter.core.client.service;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void openAndClose() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("http://localhost:9201", 2, 50);
+
+        Assert.assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // Fail fast
+        Assert.assertFalse(breaker.tryAcquire());
+        Assert.assertFalse(breaker.isAvailable());
+        Assert.assertEquals(1, breaker.getRejectedCount());
+
+        // Half-open: only one probe
+        Thread.sleep(60);
+        Assert.assertTrue(breaker.isAvailable());
+        Assert.assertTrue(breaker.tryAcquire());
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        Assert.assertFalse(breaker.tryAcquire());
+
+        // Probe failed: open again
+        breaker.onFailure();
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(2, breaker.getOpenedCount());
+
+        // Probe succeed: close
+        Thread.sleep(60);
+        Assert.assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assert.assertEquals(1, breaker.getClosedCount());
+        Assert.assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void retryBudget() {
+        RetryPolicy policy = new RetryPolicy(2, 100, 1000, 0.5, 2);
+
+        // Max retries
+        Assert.assertTrue(policy.tryRetry(0));
+        Assert.assertTrue(policy.tryRetry(1));
+        Assert.assertFalse(policy.tryRetry(2));
+
+        // Budget exhausted, then refilled by new requests
+        Assert.assertFalse(policy.tryRetry(0));
+        Assert.assertEquals(1, policy.getBudgetExhaustedCount());
+        policy.onRequest();
+        policy.onRequest();
+        Assert.assertTrue(policy.tryRetry(0));
+        Assert.assertEquals(3, policy.getRetryCount());
+
+        // Jittered backoff
+        for (int i = 0; i < 20; i++) {
+            long delay = policy.getBackoffDelay(1);
+            Assert.assertTrue(delay >= 100 && delay <= 200);
+            Assert.assertTrue(policy.getBackoffDelay(10) <= 1000);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.duniter.core.client.service;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.apache.http.entity.ByteArrayEntity;
+import org.duniter.core.client.model.bma.TxSource;
+import org.duniter.core.client.model.bma.gson.GsonUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class HttpResponseDecoderTest {
+
+    private static final String JSON = "{\"currency\":\"meta_brouzouf\",\"pubkey\":\"HnFcSms8jzwngtVomTTnzudZx7SHUQY8sVE1y8yBmULk\",\"sources\":[]}";
+
+    private final HttpResponseDecoder decoder = new HttpResponseDecoder(GsonUtils.newBuilder().create(), 16);
+
+    @Test
+    public void decode() throws Exception {
+        TxSource result = decoder.decode(newEntity(JSON), TxSource.class);
+        Assert.assertEquals("meta_brouzouf", result.getCurrency());
+        Assert.assertEquals(0, result.getSources().length);
+
+        Assert.assertEquals(JSON, decoder.decode(newEntity(JSON), String.class));
+        Assert.assertArrayEquals(JSON.getBytes(StandardCharsets.UTF_8), decoder.decode(newEntity(JSON), byte[].class));
+        Assert.assertEquals(JSON.length(), decoder.decode(newEntity(JSON), ByteBuffer.class).remaining());
+    }
+
+    private ByteArrayEntity newEntity(String content) {
+        return new ByteArrayEntity(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,184 @@
+package org.duniter.core.client.service;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import com.google.gson.Gson;
+import org.apache.http.*;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.duniter.core.client.model.local.Peer;
+import org.duniter.core.exception.TechnicalException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.function.Supplier;
+
+public class HttpServiceImplTest {
+
+    private final Peer peer = new Peer("localhost", 9201);
+
+    private StubHttpClient stubClient;
+    private HttpServiceImpl service;
+
+    @Before
+    public void setUp() {
+        stubClient = new StubHttpClient();
+        service = new HttpServiceImpl();
+        service.responseDecoder = new HttpResponseDecoder(new Gson());
+        service.retryPolicy = new RetryPolicy(2, 0, 0, 1, 10);
+        service.circuitBreakerFailureThreshold = 5;
+        service.circuitBreakerOpenTimeout = 1000;
+        service.httpClient = stubClient;
+    }
+
+    @Test
+    public void retryTransportError() {
+        // Connection lost before the response
+        stubClient.responses.add(null);
+        stubClient.responses.add(() -> newResponse(HttpStatus.SC_OK, newStream("ok")));
+
+        Assert.assertEquals("ok", service.executeRequest(peer, "/blockchain/current", String.class));
+        Assert.assertEquals(2, stubClient.executionCount);
+        Assert.assertEquals(1, service.getCircuitBreaker(peer).getFailureCount());
+    }
+
+    @Test
+    public void neverRetryWhileParsing() {
+        // Connection lost in the middle of the body
+        stubClient.responses.add(() -> newResponse(HttpStatus.SC_OK, new SequenceInputStream(newStream("[{\"number\":0},"), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        })));
+        stubClient.responses.add(() -> newResponse(HttpStatus.SC_OK, newStream("[]")));
+
+        try {
+            service.executeRequest(peer, "/blockchain/blocks/10/0", content -> {
+                while (content.read() != -1) {
+                    // read all
+                }
+                return null;
+            });
+            Assert.fail("Should have failed");
+        }
+        catch (TechnicalException e) {
+            // OK
+        }
+        Assert.assertEquals(1, stubClient.executionCount);
+        Assert.assertEquals(0, service.getCircuitBreaker(peer).getFailureCount());
+    }
+
+    @Test
+    public void releaseProbeOnRuntimeException() {
+        service.circuitBreakerFailureThreshold = 1;
+        service.circuitBreakerOpenTimeout = 0;
+        CircuitBreaker circuitBreaker = service.getCircuitBreaker(peer);
+        circuitBreaker.onFailure();
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        // The half-open probe fails, without reaching the peer
+        stubClient.responses.add(() -> {
+            throw new IllegalStateException("Connection pool shut down");
+        });
+        try {
+            service.executeRequest(peer, "/blockchain/current", String.class);
+            Assert.fail("Should have failed");
+        }
+        catch (IllegalStateException e) {
+            // OK
+        }
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        Assert.assertTrue(circuitBreaker.isAvailable());
+
+        // Next probe is allowed
+        stubClient.responses.add(() -> newResponse(HttpStatus.SC_OK, newStream("ok")));
+        Assert.assertEquals("ok", service.executeRequest(peer, "/blockchain/current", String.class));
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    /* -- internal methods -- */
+
+    private static InputStream newStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CloseableHttpResponse newResponse(int statusCode, InputStream content) {
+        StubHttpResponse response = new StubHttpResponse(statusCode);
+        response.setEntity(new InputStreamEntity(content));
+        return response;
+    }
+
+    private static class StubHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        StubHttpResponse(int statusCode) {
+            super(HttpVersion.HTTP_1_1, statusCode, null);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class StubHttpClient extends CloseableHttpClient {
+        final Queue<Supplier<CloseableHttpResponse>> responses = new LinkedList<>();
+        int executionCount;
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) throws IOException {
+            executionCount++;
+            Supplier<CloseableHttpResponse> response = responses.poll();
+            if (response == null) {
+                throw new IOException("Connection reset");
+            }
+            return response.get();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public HttpParams getParams() {
+            return null;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public ClientConnectionManager getConnectionManager() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.duniter.core.client.service;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestCoalescerTest {
+
+    private static final String URL = "http://localhost:9201/blockchain/current";
+
+    @Test
+    public void coalesce() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(null);
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> coalescer.execute(URL, "/blockchain/current", String.class, () -> {
+                loadCount.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "block";
+            }));
+            loading.await();
+
+            Future<String> second = executor.submit(() -> coalescer.execute(URL, "/blockchain/current", String.class, () -> {
+                loadCount.incrementAndGet();
+                return "other";
+            }));
+            // Wait the second call to be blocked
+            while (coalescer.getCoalescedCount() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            Assert.assertEquals("block", first.get());
+            Assert.assertEquals("block", second.get());
+            Assert.assertEquals(1, loadCount.get());
+            Assert.assertEquals(0, coalescer.getInFlightCount());
+
+            // No cache: load again
+            Assert.assertEquals("new", coalescer.execute(URL, "/blockchain/current", String.class, () -> "new"));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cacheByEndpoint() {
+        RequestCoalescer coalescer = new RequestCoalescer("/blockchain=10, /blockchain/current=60000");
+        Assert.assertEquals(60000, coalescer.getTtl("/blockchain/current"));
+        Assert.assertEquals(10, coalescer.getTtl("/blockchain/parameters"));
+        Assert.assertEquals(0, coalescer.getTtl("/wot/lookup/test"));
+
+        Assert.assertEquals("block", coalescer.execute(URL, "/blockchain/current", String.class, () -> "block"));
+        Assert.assertEquals("block", coalescer.execute(URL, "/blockchain/current", String.class, () -> "other"));
+        Assert.assertEquals(1, coalescer.getCacheHitCount());
+
+        // Errors are not cached
+        String url = "http://localhost:9201/wot/lookup/test";
+        try {
+            coalescer.execute(url, "/wot/lookup/test", String.class, () -> {
+                throw new IllegalStateException();
+            });
+            Assert.fail();
+        }
+        catch (IllegalStateException e) {
+            // OK
+        }
+        Assert.assertEquals("test", coalescer.execute(url, "/wot/lookup/test", String.class, () -> "test"));
+    }
+
+    @Test
+    public void coalesceAsync() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(null);
+        CompletableFuture<String> response = new CompletableFuture<>();
+
+        CompletableFuture<String> first = coalescer.executeAsync(URL, "/blockchain/current", String.class, () -> response);
+        CompletableFuture<String> second = coalescer.executeAsync(URL, "/blockchain/current", String.class,
+                () -> CompletableFuture.completedFuture("other"));
+        Assert.assertFalse(second.isDone());
+
+        response.complete("block");
+        Assert.assertEquals("block", first.get());
+        Assert.assertEquals("block", second.get());
+        Assert.assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void copyArrays() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer("/blockchain/block=60000");
+        String url = "http://localhost:9201/blockchain/block/0";
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+
+        CompletableFuture<byte[]> first = coalescer.executeAsync(url, "/blockchain/block/0", byte[].class, () -> response);
+        CompletableFuture<byte[]> second = coalescer.executeAsync(url, "/blockchain/block/0", byte[].class,
+                () -> CompletableFuture.completedFuture(new byte[]{9}));
+        response.complete(new byte[]{1, 2});
+
+        // Each caller has its own array
+        byte[] firstResult = first.get();
+        firstResult[0] = 0;
+        Assert.assertArrayEquals(new byte[]{1, 2}, second.get());
+
+        // Cached value is not shared either
+        byte[] cachedResult = coalescer.execute(url, "/blockchain/block/0", byte[].class, () -> new byte[]{9});
+        Assert.assertArrayEquals(new byte[]{1, 2}, cachedResult);
+        cachedResult[1] = 0;
+        Assert.assertArrayEquals(new byte[]{1, 2}, coalescer.execute(url, "/blockchain/block/0", byte[].class, () -> new byte[]{9}));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
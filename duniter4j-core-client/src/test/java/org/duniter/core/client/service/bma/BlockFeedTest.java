@@ -0,0 +1,131 @@
+package org.duniter.core.client.service.bma;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import org.duniter.core.client.config.Configuration;
+import org.duniter.core.client.config.ConfigurationOption;
+import org.duniter.core.client.model.bma.BlockchainBlock;
+import org.duniter.core.client.model.local.Peer;
+import org.duniter.core.client.service.local.PeerService;
+import org.duniter.core.util.websocket.WebsocketClientEndpoint;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuiton.config.ApplicationConfig;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Switch between the blocks pushed by the block feed (/ws/block), and polling
+ */
+public class BlockFeedTest {
+
+    private static final long CURRENCY_ID = 1;
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private StubEndpoint endpoint;
+    private BlockchainRemoteServiceImpl service;
+
+    @Before
+    public void setUp() throws Exception {
+        ApplicationConfig applicationConfig = new ApplicationConfig();
+        applicationConfig.setOption(ConfigurationOption.NETWORK_BLOCK_FEED_ENABLE.getKey(), "true");
+        applicationConfig.setOption(ConfigurationOption.CACHE_DISK_ENABLE.getKey(), "false");
+
+        endpoint = new StubEndpoint();
+        service = new BlockchainRemoteServiceImpl() {
+            @Override
+            public BlockchainBlock getCurrentBlock(long currencyId) {
+                // Polling: each request returns a new block number
+                BlockchainBlock block = new BlockchainBlock();
+                block.setNumber(requestCount.incrementAndGet());
+                return block;
+            }
+
+            @Override
+            protected WebsocketClientEndpoint getBlockWsEndPoint(Peer peer) {
+                return endpoint;
+            }
+        };
+        service.peerService = (PeerService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{PeerService.class},
+                (proxy, method, args) -> "getActivePeerByCurrencyId".equals(method.getName()) ? new Peer("localhost", 9201) : null);
+        service.init(new Configuration(applicationConfig));
+    }
+
+    @Test
+    public void pushThenFallback() {
+        // Getter never opens the feed
+        Assert.assertEquals(1, service.getCurrentBlock(CURRENCY_ID, true).getNumber().intValue());
+        Assert.assertFalse(service.isNewBlockListenerOpen(CURRENCY_ID));
+
+        // Open the feed, then request the current block once
+        service.listenCurrentBlock(CURRENCY_ID);
+        Assert.assertTrue(service.isNewBlockListenerOpen(CURRENCY_ID));
+        Assert.assertEquals(2, service.getCurrentBlock(CURRENCY_ID, true).getNumber().intValue());
+
+        // Pushed blocks are used, without any request
+        endpoint.onMessage("{\"number\":100,\"currency\":\"test\"}");
+        Assert.assertEquals(100, service.getCurrentBlock(CURRENCY_ID, true).getNumber().intValue());
+        Assert.assertEquals(2, requestCount.get());
+
+        // Feed closed: use the TTL cache (filled by the last pushed block)
+        endpoint.closed = true;
+        Assert.assertEquals(100, service.getCurrentBlock(CURRENCY_ID, true).getNumber().intValue());
+
+        // Feed open again: blocks may have been missed, so request the current block once
+        endpoint.closed = false;
+        Assert.assertEquals(3, service.getCurrentBlock(CURRENCY_ID, true).getNumber().intValue());
+        Assert.assertEquals(3, service.getCurrentBlock(CURRENCY_ID, true).getNumber().intValue());
+        Assert.assertEquals(3, requestCount.get());
+    }
+
+    @Test
+    public void addListenerWhileOpen() {
+        List<String> messages = new ArrayList<>();
+        service.addNewBlockListener(CURRENCY_ID, messages::add);
+        Assert.assertTrue(service.isNewBlockListenerOpen(CURRENCY_ID));
+
+        // Added on the open endpoint (not only kept for the next connection)
+        List<String> otherMessages = new ArrayList<>();
+        service.addNewBlockListener(CURRENCY_ID, otherMessages::add);
+        endpoint.onMessage("{\"number\":100}");
+        Assert.assertEquals(1, messages.size());
+        Assert.assertEquals(1, otherMessages.size());
+    }
+
+    private static class StubEndpoint extends WebsocketClientEndpoint {
+        volatile boolean closed;
+
+        StubEndpoint() {
+            super(URI.create("ws://localhost:9201/ws/block"), false);
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.duniter.core.client.service.local;
+
+/*
+ * #%L
+ * UCoin Java :: Core Client API
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.duniter.core.client.model.local.Peer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class PeerSelectorTest {
+
+    private final Peer fastPeer = new Peer("fast.localhost", 9201);
+    private final Peer slowPeer = new Peer("slow.localhost", 9201);
+    private final Peer laggingPeer = new Peer("lagging.localhost", 9201);
+
+    @Test
+    public void selectLowerCost() {
+        PeerSelector selector = new PeerSelector(3, 3);
+        selector.onRequestSuccess(fastPeer, 10);
+        selector.onRequestSuccess(slowPeer, 500);
+
+        List<Peer> peers = Arrays.asList(fastPeer, slowPeer);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(fastPeer, selector.select(peers));
+        }
+    }
+
+    @Test
+    public void skipLaggingAndFailingPeers() {
+        PeerSelector selector = new PeerSelector(3, 2);
+        selector.onHeadNumber(fastPeer, 100);
+        selector.onHeadNumber(slowPeer, 100);
+        selector.onHeadNumber(laggingPeer, 90);
+        selector.onRequestSuccess(fastPeer, 500);
+        selector.onRequestSuccess(slowPeer, 10);
+        selector.onRequestSuccess(laggingPeer, 1);
+
+        // Lagging peer is never selected
+        List<Peer> peers = Arrays.asList(fastPeer, slowPeer, laggingPeer);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(slowPeer, selector.select(peers));
+        }
+
+        // Evict after 2 consecutive failures
+        selector.onRequestFailure(slowPeer, 10);
+        selector.onRequestFailure(slowPeer, 10);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(fastPeer, selector.select(peers));
+        }
+    }
+}
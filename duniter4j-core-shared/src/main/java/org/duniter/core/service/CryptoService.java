@@ -25,6 +25,11 @@ package org.duniter.core.service;
 
 import org.duniter.core.beans.Bean;
 import org.duniter.core.util.crypto.KeyPair;
+import org.duniter.core.util.crypto.SignedMessage;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.List;
 
 
 /**
@@ -57,8 +62,36 @@ public interface CryptoService extends Bean {
 
     String sign(String message, String secretKey);
 
+    /**
+     * @return the signature (64 bytes)
+     */
+    byte[] sign(byte[] message, byte[] secretKey);
+
+    /**
+     * Sign the remaining bytes of <code>message</code>, and write the signature (64 bytes) at the position of
+     * <code>signature</code>. Buffer positions are not modified.
+     * Direct buffers are used without any copy.
+     */
+    void sign(ByteBuffer message, ByteBuffer signature, ByteBuffer secretKey);
+
     boolean verify(String message, String signature, String publicKey);
 
+    boolean verify(byte[] message, byte[] signature, byte[] publicKey);
+
+    /**
+     * Verify the remaining bytes of <code>message</code>. Buffer positions are not modified.
+     * Direct buffers are used without any copy.
+     */
+    boolean verify(ByteBuffer message, ByteBuffer signature, ByteBuffer publicKey);
+
+    /**
+     * Verify many signatures at once (in parallel, for large batches).
+     * An invalid input (e.g. a malformed key or signature) is reported as an invalid signature.
+     * @param messages
+     * @return the valid signatures: bit <code>i</code> is set if <code>messages.get(i)</code> is valid
+     */
+    BitSet verifyBatch(List<SignedMessage> messages);
+
     /**
      * Do a SHA256 then a hexa convert
      * @param message
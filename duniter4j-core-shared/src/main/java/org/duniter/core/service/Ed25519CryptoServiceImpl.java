@@ -25,14 +25,36 @@ package org.duniter.core.service;
 
 import com.lambdaworks.crypto.SCrypt;
 import org.duniter.core.exception.TechnicalException;
+import org.duniter.core.util.cache.CacheStats;
+import org.duniter.core.util.cache.SimpleCache;
+import org.duniter.core.util.cache.TinyLfuEvictionPolicy;
 import org.duniter.core.util.crypto.CryptoUtils;
 import org.duniter.core.util.crypto.KeyPair;
-import jnr.ffi.byref.LongLongByReference;
+import org.duniter.core.util.crypto.SignedMessage;
+import jnr.ffi.LibraryLoader;
+import jnr.ffi.Pointer;
+import jnr.ffi.annotations.In;
+import jnr.ffi.annotations.Out;
+import jnr.ffi.types.u_int64_t;
 import org.abstractj.kalium.NaCl;
 import org.abstractj.kalium.NaCl.Sodium;
 import org.abstractj.kalium.crypto.Util;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
 import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -60,10 +82,63 @@ public class Ed25519CryptoServiceImpl implements CryptoService {
     // Hash
     private static int HASH_BYTES = 256;
 
+    // Batch verification: minimal number of signatures verified by a worker
+    private static int BATCH_MIN_CHUNK_SIZE = 32;
+
+    // Verified signatures cache
+    public static final int DEFAULT_VERIFIED_CACHE_MAX_SIZE = 10000;
+    public static final long DEFAULT_VERIFIED_CACHE_TIME_IN_MILLIS = 60 * 60 * 1000; // 1h
+
+    // Largest message buffer kept by a thread
+    private static int MAX_SCRATCH_MESSAGE_BYTES = 1024 * 1024;
+
+    // Direct buffers, reused by each thread (to avoid allocation, in verify and sign)
+    private static final ThreadLocal<ScratchBuffers> SCRATCH_BUFFERS = ThreadLocal.withInitial(ScratchBuffers::new);
+
     private final Sodium naCl;
 
+    private final Ed25519Sodium sodium;
+
+    private final int batchThreadCount;
+
+    private volatile ExecutorService batchExecutor;
+
+    private final SimpleCache<VerifiedSignatureKey, Boolean> verifiedSignatures;
+
     public Ed25519CryptoServiceImpl() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param batchThreadCount number of threads used by <code>verifyBatch()</code> (1 = caller thread only)
+     */
+    public Ed25519CryptoServiceImpl(int batchThreadCount) {
+        this(batchThreadCount, DEFAULT_VERIFIED_CACHE_MAX_SIZE, DEFAULT_VERIFIED_CACHE_TIME_IN_MILLIS);
+    }
+
+    /**
+     * @param batchThreadCount number of threads used by <code>verifyBatch()</code> (1 = caller thread only)
+     * @param verifiedCacheMaxSize max number of verified signatures kept in cache (0 to disable the cache)
+     * @param verifiedCacheTimeInMillis time to keep a verified signature in cache
+     */
+    public Ed25519CryptoServiceImpl(int batchThreadCount, int verifiedCacheMaxSize, long verifiedCacheTimeInMillis) {
         naCl = NaCl.sodium();
+        sodium = LibraryLoader.create(Ed25519Sodium.class)
+                .search("/usr/local/lib")
+                .search("/opt/local/lib")
+                .search("lib")
+                .load("sodium");
+        this.batchThreadCount = Math.max(1, batchThreadCount);
+
+        // Only valid signatures are cached. Keys are SHA-256 digests (32 bytes), so the cache size does not depend on documents length
+        verifiedSignatures = verifiedCacheMaxSize <= 0 ? null : new SimpleCache<VerifiedSignatureKey, Boolean>(
+                verifiedCacheTimeInMillis, verifiedCacheMaxSize, -1/*no refresh*/,
+                new TinyLfuEvictionPolicy<VerifiedSignatureKey>(verifiedCacheMaxSize)) {
+            @Override
+            public Boolean load(VerifiedSignatureKey key) {
+                return null; // never loaded: filled by verify()
+            }
+        };
     }
 
     @Override
@@ -99,27 +174,110 @@ public class Ed25519CryptoServiceImpl implements CryptoService {
 
     @Override
     public String sign(String message, byte[] secretKey) {
-        byte[] messageBinary = CryptoUtils.decodeUTF8(message);
-        return CryptoUtils.encodeBase64(
-                sign(messageBinary, secretKey)
-        );
+        checkLength(secretKey, SECRETKEY_BYTES, "secret key");
+        ScratchBuffers buffers = SCRATCH_BUFFERS.get();
+        ByteBuffer messageBuffer = buffers.encode(message);
+        // The secret key is passed as is (never copied into the scratch buffers)
+        Util.isValid(sodium.crypto_sign_ed25519_detached(buffers.signature, null, messageBuffer, messageBuffer.remaining(), secretKey),
+                "Failed to sign message");
+        return CryptoUtils.encodeBase64(buffers.getSignatureBytes());
     }
 
     @Override
     public String sign(String message, String secretKey) {
-        byte[] messageBinary = CryptoUtils.decodeUTF8(message);
-        byte[] secretKeyBinary = CryptoUtils.decodeBase58(secretKey);
-        return CryptoUtils.encodeBase64(
-                sign(messageBinary, secretKeyBinary)
-        );
+        return sign(message, CryptoUtils.decodeBase58(secretKey));
+    }
+
+    @Override
+    public byte[] sign(byte[] message, byte[] secretKey) {
+        checkLength(secretKey, SECRETKEY_BYTES, "secret key");
+        byte[] signature = new byte[SIGNATURE_BYTES];
+        Util.isValid(sodium.crypto_sign_ed25519_detached(signature, null, message, message.length, secretKey),
+                "Failed to sign message");
+        return signature;
+    }
+
+    @Override
+    public void sign(ByteBuffer message, ByteBuffer signature, ByteBuffer secretKey) {
+        checkRemaining(signature, SIGNATURE_BYTES, "signature");
+        checkRemaining(secretKey, SECRETKEY_BYTES, "secret key");
+        ScratchBuffers buffers = SCRATCH_BUFFERS.get();
+        ByteBuffer messageBuffer = message.isDirect() ? message : buffers.copyMessage(message);
+        if (signature.isDirect() && secretKey.isDirect()) {
+            Util.isValid(sodium.crypto_sign_ed25519_detached(atPosition(signature), null, atPosition(messageBuffer), messageBuffer.remaining(), atPosition(secretKey)),
+                    "Failed to sign message");
+            return;
+        }
+
+        // Heap buffers: sign into the scratch buffers
+        ByteBuffer secretKeyBuffer = secretKey.isDirect() ? secretKey : buffers.copyKey(secretKey);
+        try {
+            Util.isValid(sodium.crypto_sign_ed25519_detached(buffers.signature, null, atPosition(messageBuffer), messageBuffer.remaining(), atPosition(secretKeyBuffer)),
+                    "Failed to sign message");
+        }
+        finally {
+            // Never keep a secret key in the scratch buffers
+            if (secretKeyBuffer != secretKey) {
+                buffers.wipeKey();
+            }
+        }
+        ByteBuffer out = signature.duplicate();
+        out.put(buffers.signature.duplicate());
     }
 
     @Override
     public boolean verify(String message, String signature, String publicKey) {
-        byte[] messageBinary = CryptoUtils.decodeUTF8(message);
-        byte[] signatureBinary = CryptoUtils.decodeBase64(signature);
-        byte[] publicKeyBinary = CryptoUtils.decodeBase58(publicKey);
-        return verify(messageBinary, signatureBinary, publicKeyBinary);
+        return verify(message, signature, publicKey, SCRATCH_BUFFERS.get());
+    }
+
+    @Override
+    public boolean verify(byte[] message, byte[] signature, byte[] publicKey) {
+        if (signature.length != SIGNATURE_BYTES || publicKey.length != PUBLICKEY_BYTES) {
+            return false;
+        }
+        return sodium.crypto_sign_ed25519_verify_detached(signature, message, message.length, publicKey) == 0;
+    }
+
+    @Override
+    public boolean verify(ByteBuffer message, ByteBuffer signature, ByteBuffer publicKey) {
+        if (signature.remaining() < SIGNATURE_BYTES || publicKey.remaining() < PUBLICKEY_BYTES) {
+            return false;
+        }
+        ScratchBuffers buffers = SCRATCH_BUFFERS.get();
+        ByteBuffer messageBuffer = message.isDirect() ? message : buffers.copyMessage(message);
+        ByteBuffer signatureBuffer = signature.isDirect() ? signature : buffers.copySignature(signature);
+        ByteBuffer publicKeyBuffer = publicKey.isDirect() ? publicKey : buffers.copyKey(publicKey);
+        return sodium.crypto_sign_ed25519_verify_detached(atPosition(signatureBuffer), atPosition(messageBuffer), messageBuffer.remaining(), atPosition(publicKeyBuffer)) == 0;
+    }
+
+    @Override
+    public BitSet verifyBatch(List<SignedMessage> messages) {
+        int size = messages.size();
+        boolean[] valid = new boolean[size];
+
+        int chunkCount = Math.min(batchThreadCount, size / BATCH_MIN_CHUNK_SIZE);
+        if (chunkCount <= 1) {
+            verifyRange(messages, 0, size, valid);
+        }
+        else {
+            // Split into chunks: the caller thread verifies the last one
+            int chunkSize = (size + chunkCount - 1) / chunkCount;
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[chunkCount - 1];
+            ExecutorService executor = getBatchExecutor();
+            for (int i = 0; i < chunkCount - 1; i++) {
+                final int from = i * chunkSize;
+                final int to = Math.min(size, from + chunkSize);
+                futures[i] = CompletableFuture.runAsync(() -> verifyRange(messages, from, to, valid), executor);
+            }
+            verifyRange(messages, (chunkCount - 1) * chunkSize, size, valid);
+            CompletableFuture.allOf(futures).join();
+        }
+
+        BitSet result = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (valid[i]) result.set(i);
+        }
+        return result;
     }
 
     @Override
@@ -130,30 +288,263 @@ public class Ed25519CryptoServiceImpl implements CryptoService {
         return bytesToHex(hash).toUpperCase();
     }
 
+    /**
+     * @return statistics of the verified signatures cache (or null if disabled)
+     */
+    public CacheStats getVerifiedSignatureCacheStats() {
+        return verifiedSignatures != null ? verifiedSignatures.getStats() : null;
+    }
+
     /* -- Internal methods -- */
 
-    protected byte[] sign(byte[] message, byte[] secretKey) {
-        byte[] signature = Util.prependZeros(SIGNATURE_BYTES, message);
-        LongLongByReference smLen = new LongLongByReference(0);
-        naCl.crypto_sign_ed25519(signature, smLen, message, message.length, secretKey);
-        signature = Util.slice(signature, 0, SIGNATURE_BYTES);
+    /**
+     * Verify a range of messages (invalid inputs are reported as invalid signatures)
+     */
+    protected void verifyRange(List<SignedMessage> messages, int from, int to, boolean[] valid) {
+        ScratchBuffers buffers = SCRATCH_BUFFERS.get();
+        for (int i = from; i < to; i++) {
+            SignedMessage message = messages.get(i);
+            try {
+                valid[i] = message != null && verify(message.getMessage(), message.getSignature(), message.getPublicKey(), buffers);
+            }
+            catch (RuntimeException e) {
+                // Malformed key or signature
+                valid[i] = false;
+            }
+        }
+    }
 
-        Util.checkLength(signature, SIGNATURE_BYTES);
-        return signature;
+    /**
+     * Verify a signature, or get it from the verified signatures cache (no decoding, no native call)
+     */
+    protected boolean verify(String message, String signature, String publicKey, ScratchBuffers buffers) {
+        ByteBuffer messageBuffer = buffers.encode(message);
+        VerifiedSignatureKey key = verifiedSignatures != null
+                ? new VerifiedSignatureKey(buffers.digest(publicKey, signature, messageBuffer))
+                : null;
+        if (key != null && verifiedSignatures.getIfPresent(key) != null) {
+            return true;
+        }
+
+        boolean valid = verify(messageBuffer, CryptoUtils.decodeBase64(signature), CryptoUtils.decodeBase58(publicKey), buffers);
+        if (valid && key != null) {
+            verifiedSignatures.put(key, Boolean.TRUE);
+        }
+        return valid;
+    }
+
+    /**
+     * @param messageBuffer the message, encoded in the scratch buffers
+     */
+    protected boolean verify(ByteBuffer messageBuffer, byte[] signature, byte[] publicKey, ScratchBuffers buffers) {
+        if (signature.length != SIGNATURE_BYTES || publicKey.length != PUBLICKEY_BYTES) {
+            return false;
+        }
+        ByteBuffer signatureBuffer = buffers.copySignature(signature);
+        ByteBuffer publicKeyBuffer = buffers.copyKey(publicKey, PUBLICKEY_BYTES);
+        return sodium.crypto_sign_ed25519_verify_detached(signatureBuffer, messageBuffer, messageBuffer.remaining(), publicKeyBuffer) == 0;
+    }
+
+    protected ExecutorService getBatchExecutor() {
+        if (batchExecutor == null) {
+            synchronized (this) {
+                if (batchExecutor == null) {
+                    final AtomicInteger threadNumber = new AtomicInteger();
+                    batchExecutor = Executors.newFixedThreadPool(batchThreadCount - 1, runnable -> {
+                        Thread thread = new Thread(runnable, "duniter4j-crypto-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return batchExecutor;
+    }
+
+    /**
+     * Direct buffers are passed by address, ignoring their position: slice them if needed
+     */
+    private static ByteBuffer atPosition(ByteBuffer buffer) {
+        return buffer.position() == 0 ? buffer : buffer.slice();
+    }
+
+    private static void checkLength(byte[] data, int length, String name) {
+        if (data == null || data.length != length) {
+            throw new TechnicalException(String.format("Invalid %s length: expected %s bytes", name, length));
+        }
+    }
+
+    private static void checkRemaining(ByteBuffer data, int length, String name) {
+        if (data == null || data.remaining() < length) {
+            throw new TechnicalException(String.format("Invalid %s length: expected %s bytes", name, length));
+        }
+    }
+
+    /**
+     * Key of a verified signature. The hash is computed once; equality compares all fields.
+     */
+    protected static class VerifiedSignatureKey {
+        private final byte[] digest;
+        private final int hash;
+
+        protected VerifiedSignatureKey(byte[] digest) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof VerifiedSignatureKey)) return false;
+            VerifiedSignatureKey other = (VerifiedSignatureKey) o;
+            return hash == other.hash && Arrays.equals(digest, other.digest);
+        }
+    }
+
+    /**
+     * Ed25519 detached signatures: unlike <code>crypto_sign_ed25519()</code>, no signature+message copy is needed.
+     * Direct buffers are passed to libsodium without any copy (by address: their position is ignored).
+     */
+    public interface Ed25519Sodium {
+
+        int crypto_sign_ed25519_detached(@Out byte[] signature, @Out Pointer signatureLength,
+                                         @In byte[] message, @u_int64_t long messageLength, @In byte[] secretKey);
+
+        int crypto_sign_ed25519_detached(@Out ByteBuffer signature, @Out Pointer signatureLength,
+                                         @In ByteBuffer message, @u_int64_t long messageLength, @In ByteBuffer secretKey);
+
+        int crypto_sign_ed25519_detached(@Out ByteBuffer signature, @Out Pointer signatureLength,
+                                         @In ByteBuffer message, @u_int64_t long messageLength, @In byte[] secretKey);
+
+        int crypto_sign_ed25519_verify_detached(@In byte[] signature, @In byte[] message,
+                                                @u_int64_t long messageLength, @In byte[] publicKey);
+
+        int crypto_sign_ed25519_verify_detached(@In ByteBuffer signature, @In ByteBuffer message,
+                                                @u_int64_t long messageLength, @In ByteBuffer publicKey);
     }
 
-    protected boolean verify(byte[] message, byte[] signature, byte[] publicKey) {
-        byte[] sigAndMsg = new byte[SIGNATURE_BYTES + message.length];
-        for (int i = 0; i < SIGNATURE_BYTES; i++) sigAndMsg[i] = signature[i];
-        for (int i = 0; i < message.length; i++) sigAndMsg[i+SIGNATURE_BYTES] = message[i];
+    /**
+     * Direct buffers, reused by a thread. The message buffer grows to the largest message seen (up to 1MB).
+     */
+    protected static class ScratchBuffers {
+        // Same replacement as String.getBytes(), for malformed chars
+        private final CharsetEncoder encoder = CryptoUtils.CHARSET_UTF8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer signature = ByteBuffer.allocateDirect(SIGNATURE_BYTES);
+        private final ByteBuffer key = ByteBuffer.allocateDirect(SECRETKEY_BYTES);
+        private final byte[] signatureBytes = new byte[SIGNATURE_BYTES];
+        private final MessageDigest sha256;
+        private ByteBuffer message = ByteBuffer.allocateDirect(1024);
 
-        byte[] buffer = new byte[SIGNATURE_BYTES + message.length];
-        LongLongByReference bufferLength = new LongLongByReference(0);
+        protected ScratchBuffers() {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            }
+            catch (NoSuchAlgorithmException e) {
+                throw new TechnicalException("SHA-256 not available", e);
+            }
+        }
 
-        int result = naCl.crypto_sign_ed25519_open(buffer, bufferLength, sigAndMsg, sigAndMsg.length, publicKey);
-        boolean validSignature = (result == 0);
+        /**
+         * Encode a message in UTF-8
+         */
+        protected ByteBuffer encode(String data) {
+            ByteBuffer out = getMessageBuffer((int) Math.ceil(data.length() * (double) encoder.maxBytesPerChar()));
+            encoder.reset();
+            CoderResult result = encoder.encode(CharBuffer.wrap(data), out, true);
+            if (!result.isUnderflow()) {
+                throw new TechnicalException("Unable to encode message: " + result);
+            }
+            encoder.flush(out);
+            out.flip();
+            return out;
+        }
+
+        protected ByteBuffer copyMessage(ByteBuffer data) {
+            ByteBuffer out = getMessageBuffer(data.remaining());
+            out.put(data.duplicate());
+            out.flip();
+            return out;
+        }
 
-        return validSignature;
+        protected ByteBuffer copySignature(byte[] data) {
+            signature.clear();
+            signature.put(data, 0, SIGNATURE_BYTES);
+            signature.flip();
+            return signature;
+        }
+
+        protected ByteBuffer copySignature(ByteBuffer data) {
+            ByteBuffer source = data.duplicate();
+            source.limit(source.position() + SIGNATURE_BYTES);
+            signature.clear();
+            signature.put(source);
+            signature.flip();
+            return signature;
+        }
+
+        protected ByteBuffer copyKey(byte[] data, int length) {
+            checkLength(data, length, "key");
+            key.clear();
+            key.put(data, 0, length);
+            key.flip();
+            return key;
+        }
+
+        protected ByteBuffer copyKey(ByteBuffer data) {
+            ByteBuffer source = data.duplicate();
+            source.limit(source.position() + Math.min(source.remaining(), SECRETKEY_BYTES));
+            key.clear();
+            key.put(source);
+            key.flip();
+            return key;
+        }
+
+        /**
+         * SHA-256 of public key, signature and message. The separator cannot appear in Base58 and Base64 strings.
+         */
+        protected byte[] digest(String publicKey, String signature, ByteBuffer message) {
+            sha256.reset();
+            sha256.update(publicKey.getBytes(CryptoUtils.CHARSET_UTF8));
+            sha256.update((byte) 0);
+            sha256.update(signature.getBytes(CryptoUtils.CHARSET_UTF8));
+            sha256.update((byte) 0);
+            sha256.update(message.duplicate());
+            return sha256.digest();
+        }
+
+        protected void wipeKey() {
+            key.clear();
+            while (key.hasRemaining()) {
+                key.put((byte) 0);
+            }
+            key.clear();
+        }
+
+        protected byte[] getSignatureBytes() {
+            signature.duplicate().get(signatureBytes);
+            return signatureBytes;
+        }
+
+        /**
+         * @return an empty buffer. Buffers larger than MAX_SCRATCH_MESSAGE_BYTES are not kept.
+         */
+        private ByteBuffer getMessageBuffer(int capacity) {
+            if (capacity > MAX_SCRATCH_MESSAGE_BYTES) {
+                return ByteBuffer.allocateDirect(capacity);
+            }
+            if (message.capacity() < capacity) {
+                message = ByteBuffer.allocateDirect(Math.min(MAX_SCRATCH_MESSAGE_BYTES, Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1));
+            }
+            message.clear();
+            return message;
+        }
     }
 
     protected static String bytesToHex(byte[] bytes) {
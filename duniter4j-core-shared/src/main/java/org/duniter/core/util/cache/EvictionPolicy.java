@@ -0,0 +1,59 @@
+package org.duniter.core.util.cache;
+
+/*
+ * #%L
+ * UCoin Java :: Core Shared
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.function.Consumer;
+
+/**
+ * Decide which keys to evict, when a cache exceeds its max weight.
+ * Implementations are not thread-safe: the cache calls them under its own lock.
+ * All operations should be O(1) (amortized).
+ */
+public interface EvictionPolicy<K> {
+
+    /**
+     * A key has been read
+     */
+    void onAccess(K key);
+
+    /**
+     * A key has been inserted, or its value replaced
+     * @param weight weight of the new value (>= 0)
+     */
+    void onWrite(K key, int weight);
+
+    /**
+     * A key has been removed by the cache (expired, invalidated...)
+     */
+    void onRemove(K key);
+
+    /**
+     * Evict keys, until the total weight fits the given max weight
+     * @param evicted called for each evicted key (already removed from the policy)
+     */
+    void evict(long maxWeight, Consumer<K> evicted);
+
+    long getTotalWeight();
+
+    void clear();
+}
@@ -0,0 +1,79 @@
+package org.duniter.core.util.cache;
+
+/*
+ * #%L
+ * UCoin Java :: Core Shared
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Least recently used eviction (access order).
+ */
+public class LruEvictionPolicy<K> implements EvictionPolicy<K> {
+
+    // Weight by key, from least to most recently used
+    private final LinkedHashMap<K, Integer> weights = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    @Override
+    public void onAccess(K key) {
+        weights.get(key);
+    }
+
+    @Override
+    public void onWrite(K key, int weight) {
+        Integer oldWeight = weights.put(key, weight);
+        totalWeight += weight - (oldWeight != null ? oldWeight : 0);
+    }
+
+    @Override
+    public void onRemove(K key) {
+        Integer oldWeight = weights.remove(key);
+        if (oldWeight != null) {
+            totalWeight -= oldWeight;
+        }
+    }
+
+    @Override
+    public void evict(long maxWeight, Consumer<K> evicted) {
+        Iterator<Map.Entry<K, Integer>> it = weights.entrySet().iterator();
+        while (totalWeight > maxWeight && it.hasNext()) {
+            Map.Entry<K, Integer> entry = it.next();
+            it.remove();
+            totalWeight -= entry.getValue();
+            evicted.accept(entry.getKey());
+        }
+    }
+
+    @Override
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    @Override
+    public void clear() {
+        weights.clear();
+        totalWeight = 0;
+    }
+}
@@ -0,0 +1,435 @@
+package org.duniter.core.util.cache;
+
+/*
+ * #%L
+ * UCoin Java :: Core Shared
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.duniter.core.exception.TechnicalException;
+import org.duniter.core.util.FileUtils;
+import org.duniter.core.util.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent, append-only cache of immutable values, stored in memory-mapped segment files.
+ * <p/>
+ * Each record is written once: <code>[magic, keyLength, valueLength, crc32, key, value]</code>.
+ * When the active segment is full, it is sealed: a compact index file (keys and offsets) is written next to it,
+ * so that reopening the cache only scans the active segment. A torn write (e.g. after a crash) is detected by its CRC,
+ * and the segment is truncated at the last valid record.
+ * <p/>
+ * In memory, the index stores one <code>long</code> (segment and offset) by key. Values are read from the mapped
+ * files, so they live in the OS page cache, not on the heap.
+ * There is no eviction: use <code>clear()</code> to drop all values.
+ * This class is thread-safe (appends are serialized, reads are lock-free).
+ */
+public class MappedDiskCache implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedDiskCache.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024; // 16MB
+
+    private static final int RECORD_MAGIC = 0xD4C1D4C1;
+    private static final int INDEX_MAGIC = 0xD4C11D00;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAX_KEY_LENGTH = Short.MAX_VALUE;
+
+    private static final String SEGMENT_EXTENSION = ".dat";
+    private static final String INDEX_EXTENSION = ".idx";
+    private static final Pattern SEGMENT_FILE_PATTERN = Pattern.compile("segment-(\\d+)\\" + SEGMENT_EXTENSION);
+
+    private final File directory;
+    private final int segmentSize;
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final CacheStats stats = new CacheStats();
+    private Segment activeSegment;
+    private volatile boolean closed;
+
+    public MappedDiskCache(File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public MappedDiskCache(File directory, int segmentSize) {
+        ObjectUtils.checkNotNull(directory);
+        ObjectUtils.checkArgument(segmentSize > HEADER_SIZE);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        open();
+    }
+
+    /**
+     * @return the value, or null if absent (or unreadable)
+     */
+    public byte[] get(String key) {
+        Long location = closed ? null : index.get(key);
+        if (location == null) {
+            stats.recordMiss();
+            return null;
+        }
+        Segment segment = segments.get(segmentId(location));
+        byte[] result = segment != null ? segment.readValue(offset(location), key) : null;
+        if (result == null) {
+            log.warn(String.format("Corrupted record [%s] in cache directory [%s]: ignoring it", key, directory));
+            index.remove(key, location);
+            stats.recordMiss();
+            return null;
+        }
+        stats.recordHit();
+        return result;
+    }
+
+    public boolean contains(String key) {
+        return !closed && index.containsKey(key);
+    }
+
+    /**
+     * Append a value. Values are immutable: if the key already exists, nothing is written.
+     * @return true if the value has been written
+     */
+    public synchronized boolean put(String key, byte[] value) {
+        ObjectUtils.checkNotNull(key);
+        ObjectUtils.checkNotNull(value);
+        if (closed || index.containsKey(key)) {
+            return false;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ObjectUtils.checkArgument(keyBytes.length <= MAX_KEY_LENGTH, "Key too long");
+        int recordSize = HEADER_SIZE + keyBytes.length + value.length;
+
+        try {
+            if (activeSegment.position + recordSize > activeSegment.capacity) {
+                seal(activeSegment);
+                activeSegment = createSegment(activeSegment.id + 1, Math.max(segmentSize, recordSize));
+            }
+            int offset = activeSegment.append(keyBytes, value);
+            index.put(key, location(activeSegment.id, offset));
+            return true;
+        }
+        catch (IOException e) {
+            throw new TechnicalException(String.format("Unable to write into cache directory [%s]: %s", directory, e.getMessage()), e);
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Remove all values (segment files are deleted)
+     */
+    public synchronized void clear() {
+        index.clear();
+        for (Segment segment : segments.values()) {
+            segment.delete();
+        }
+        segments.clear();
+        activeSegment = null;
+        if (!closed) {
+            open();
+        }
+    }
+
+    /**
+     * Flush the active segment to disk. Values are no longer readable after closing.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (activeSegment != null) {
+            activeSegment.force();
+        }
+        index.clear();
+        segments.clear();
+        activeSegment = null;
+    }
+
+    /* -- internal methods -- */
+
+    protected void open() {
+        try {
+            FileUtils.forceMkdir(directory);
+
+            SortedMap<Integer, File> segmentFiles = new TreeMap<>();
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    Matcher matcher = SEGMENT_FILE_PATTERN.matcher(file.getName());
+                    if (matcher.matches()) {
+                        segmentFiles.put(Integer.parseInt(matcher.group(1)), file);
+                    }
+                }
+            }
+
+            if (segmentFiles.isEmpty()) {
+                activeSegment = createSegment(0, segmentSize);
+                return;
+            }
+
+            int lastId = segmentFiles.lastKey();
+            for (Map.Entry<Integer, File> entry : segmentFiles.entrySet()) {
+                int id = entry.getKey();
+                File file = entry.getValue();
+                boolean active = id == lastId;
+                Segment segment = new Segment(id, file, active ? Math.max(segmentSize, (int) file.length()) : (int) file.length());
+                segments.put(id, segment);
+
+                // Sealed segment, with an index: no need to scan it
+                if (!active && loadIndex(segment)) {
+                    continue;
+                }
+                segment.position = scan(segment);
+                if (active) {
+                    activeSegment = segment;
+                }
+                else {
+                    writeIndex(segment);
+                }
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Opened cache directory [%s]: %s segments, %s values", directory, segments.size(), index.size()));
+            }
+        }
+        catch (IOException e) {
+            throw new TechnicalException(String.format("Unable to open cache directory [%s]: %s", directory, e.getMessage()), e);
+        }
+    }
+
+    protected Segment createSegment(int id, int capacity) throws IOException {
+        File file = new File(directory, String.format("segment-%05d%s", id, SEGMENT_EXTENSION));
+        Segment segment = new Segment(id, file, capacity);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    /**
+     * Read records, until the first invalid one
+     * @return the position after the last valid record
+     */
+    protected int scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int position = 0;
+        while (position + HEADER_SIZE <= segment.capacity) {
+            byte[][] record = segment.readRecord(buffer, position);
+            if (record == null) {
+                break;
+            }
+            index.putIfAbsent(new String(record[0], StandardCharsets.UTF_8), location(segment.id, position));
+            position += HEADER_SIZE + record[0].length + record[1].length;
+        }
+        return position;
+    }
+
+    protected void seal(Segment segment) throws IOException {
+        segment.force();
+        writeIndex(segment);
+    }
+
+    /**
+     * Write the index of a sealed segment: <code>[magic, count, (keyLength, key, offset)*]</code>
+     */
+    protected void writeIndex(Segment segment) throws IOException {
+        File file = indexFile(segment);
+        File tmpFile = new File(file.getPath() + ".tmp");
+        List<Map.Entry<String, Long>> entries = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : index.entrySet()) {
+            if (segmentId(entry.getValue()) == segment.id) {
+                entries.add(entry);
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Long> entry : entries) {
+                byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(keyBytes.length);
+                out.write(keyBytes);
+                out.writeInt(offset(entry.getValue()));
+            }
+        }
+        if (!tmpFile.renameTo(file)) {
+            throw new IOException("Unable to rename " + tmpFile);
+        }
+    }
+
+    /**
+     * @return false if the index file is missing or invalid
+     */
+    protected boolean loadIndex(Segment segment) {
+        File file = indexFile(segment);
+        if (!file.exists()) {
+            return false;
+        }
+        Map<String, Long> entries = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != INDEX_MAGIC) {
+                return false;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] keyBytes = new byte[in.readUnsignedShort()];
+                in.readFully(keyBytes);
+                int offset = in.readInt();
+                if (offset < 0 || offset + HEADER_SIZE > segment.capacity) {
+                    return false;
+                }
+                entries.put(new String(keyBytes, StandardCharsets.UTF_8), location(segment.id, offset));
+            }
+        }
+        catch (IOException e) {
+            log.warn(String.format("Invalid cache index [%s]: segment will be scanned", file), e);
+            return false;
+        }
+        for (Map.Entry<String, Long> entry : entries.entrySet()) {
+            index.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        segment.position = segment.capacity;
+        return true;
+    }
+
+    protected File indexFile(Segment segment) {
+        String name = segment.file.getName();
+        return new File(directory, name.substring(0, name.length() - SEGMENT_EXTENSION.length()) + INDEX_EXTENSION);
+    }
+
+    private static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int segmentId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    /**
+     * A segment file, mapped in memory
+     */
+    protected static class Segment {
+        private final int id;
+        private final File file;
+        private final int capacity;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        protected Segment(int id, File file, int capacity) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.capacity = capacity;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            }
+        }
+
+        protected int append(byte[] keyBytes, byte[] value) {
+            int offset = position;
+            ByteBuffer out = buffer.duplicate();
+            out.position(offset + HEADER_SIZE);
+            out.put(keyBytes);
+            out.put(value);
+            out.putInt(offset + 4, keyBytes.length);
+            out.putInt(offset + 8, value.length);
+            out.putInt(offset + 12, crc(keyBytes, value));
+            // Write the magic last: a record is never visible before being complete
+            out.putInt(offset, RECORD_MAGIC);
+            position += HEADER_SIZE + keyBytes.length + value.length;
+            return offset;
+        }
+
+        /**
+         * @return the value, or null if the record is invalid (or does not match the key)
+         */
+        protected byte[] readValue(int offset, String key) {
+            byte[][] record = readRecord(buffer.duplicate(), offset);
+            if (record == null || !key.equals(new String(record[0], StandardCharsets.UTF_8))) {
+                return null;
+            }
+            return record[1];
+        }
+
+        /**
+         * @return the key and the value bytes, or null if the record is invalid
+         */
+        protected byte[][] readRecord(ByteBuffer in, int offset) {
+            if (offset < 0 || offset + HEADER_SIZE > capacity || in.getInt(offset) != RECORD_MAGIC) {
+                return null;
+            }
+            int keyLength = in.getInt(offset + 4);
+            int valueLength = in.getInt(offset + 8);
+            if (keyLength < 0 || keyLength > MAX_KEY_LENGTH || valueLength < 0
+                    || (long) offset + HEADER_SIZE + keyLength + valueLength > capacity) {
+                return null;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            byte[] value = new byte[valueLength];
+            in.position(offset + HEADER_SIZE);
+            in.get(keyBytes);
+            in.get(value);
+            if (in.getInt(offset + 12) != crc(keyBytes, value)) {
+                return null;
+            }
+            return new byte[][]{keyBytes, value};
+        }
+
+        protected void force() {
+            buffer.force();
+        }
+
+        protected void delete() {
+            File indexFile = new File(file.getParentFile(), file.getName().replace(SEGMENT_EXTENSION, INDEX_EXTENSION));
+            if ((file.exists() && !file.delete()) || (indexFile.exists() && !indexFile.delete())) {
+                log.warn(String.format("Unable to delete cache file [%s]", file));
+            }
+        }
+
+        private static int crc(byte[] keyBytes, byte[] value) {
+            CRC32 crc = new CRC32();
+            crc.update(keyBytes, 0, keyBytes.length);
+            crc.update(value, 0, value.length);
+            return (int) crc.getValue();
+        }
+    }
+}
@@ -22,24 +22,55 @@ package org.duniter.core.util.cache;
  * #L%
  */
 
+import org.duniter.core.exception.TechnicalException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * A concurrent cache, with per-key loading:
+ * <ul>
+ *     <li>hits are lock-free;</li>
+ *     <li>concurrent misses on the same key share one call to <code>load()</code>. Loads of other keys are not blocked;</li>
+ *     <li>when a refresh time is set, a value older than this time is still returned, while
+ *     a background <code>load()</code> refreshes it (refresh-after-write). Expired values are never returned.</li>
+ * </ul>
+ * When a max size is set, entries are weighted by <code>weigh()</code> (1 by default), and evicted by
+ * an {@link EvictionPolicy} (LRU by default, or {@link TinyLfuEvictionPolicy} for scan-heavy workloads).
+ * Expired entries are removed by a {@link TimerWheel}. Maintenance is done on writes, under a lock;
+ * reads are recorded only when this lock is free (some reads may be lost, never blocked).
+ * Null values are not cached.
  * Created by eis on 30/03/15.
  */
 public abstract class SimpleCache<K, V> implements Cache<K, V> {
 
+    private static final Logger log = LoggerFactory.getLogger(SimpleCache.class);
+
     private static final long ETERNAL_TIME = -1l;
     private static final long ILLIMITED_ITEMS_COUNT = -1l;
-    private static final long ITEMS_COUNT_FOR_DEFAULT_CLEANING = 1000;
+    private static final long NO_REFRESH_TIME = -1l;
+
+    private static final int TIMER_WHEEL_BUCKET_COUNT = 64;
 
-    private final Map<K, V> mCachedValues;
-    private final Map<K, Long> mCachedTimes;
+    private final ConcurrentHashMap<K, CacheEntry<V>> mCachedEntries;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> mLoadingValues;
     private final long mCacheTimeInMillis;
     private final long mCacheMaxItemCount;
+    private final long mRefreshTimeInMillis;
+    private final CacheStats mStats = new CacheStats();
 
-    final Object      mutex;
+    // Maintenance (eviction and expiration), guarded by mEvictionLock
+    private final ReentrantLock mEvictionLock = new ReentrantLock();
+    private final EvictionPolicy<K> mEvictionPolicy;
+    private final TimerWheel<K> mTimerWheel;
+
+    // Incremented on each write, to ignore loads started before a clear()
+    private final AtomicLong mSequence = new AtomicLong();
+    private volatile long mClearSequence;
 
     public SimpleCache() {
         this(ETERNAL_TIME, ILLIMITED_ITEMS_COUNT);
@@ -50,26 +81,48 @@ public abstract class SimpleCache<K, V> implements Cache<K, V> {
     }
 
     public SimpleCache(long cacheTimeInMillis, long cacheMaxItemsCount) {
-        this.mCachedValues = Collections.synchronizedMap(new ConcurrentHashMap<K, V>());
-        this.mCachedTimes = new ConcurrentHashMap<K, Long>();
+        this(cacheTimeInMillis, cacheMaxItemsCount, NO_REFRESH_TIME);
+    }
+
+    /**
+     * @param cacheTimeInMillis expiration time (-1 for eternal)
+     * @param cacheMaxItemsCount max items, or max total weight if <code>weigh()</code> is overridden (-1 for illimited)
+     * @param refreshTimeInMillis age after which a value is refreshed in background (-1 to disable).
+     *                            Should be lower than <code>cacheTimeInMillis</code>
+     */
+    public SimpleCache(long cacheTimeInMillis, long cacheMaxItemsCount, long refreshTimeInMillis) {
+        this(cacheTimeInMillis, cacheMaxItemsCount, refreshTimeInMillis,
+                cacheMaxItemsCount != ILLIMITED_ITEMS_COUNT ? new LruEvictionPolicy<K>() : null);
+    }
+
+    /**
+     * @param evictionPolicy the eviction policy, used when <code>cacheMaxItemsCount</code> is set
+     */
+    public SimpleCache(long cacheTimeInMillis, long cacheMaxItemsCount, long refreshTimeInMillis, EvictionPolicy<K> evictionPolicy) {
+        this.mCachedEntries = new ConcurrentHashMap<>();
+        this.mLoadingValues = new ConcurrentHashMap<>();
         this.mCacheTimeInMillis = cacheTimeInMillis;
         this.mCacheMaxItemCount = cacheMaxItemsCount;
-        this.mutex = mCachedValues;
+        this.mRefreshTimeInMillis = refreshTimeInMillis;
+        this.mEvictionPolicy = cacheMaxItemsCount != ILLIMITED_ITEMS_COUNT ? evictionPolicy : null;
+        this.mTimerWheel = cacheTimeInMillis != ETERNAL_TIME
+                // Wheel span = 2 x cache time
+                ? new TimerWheel<K>(Math.max(1, cacheTimeInMillis * 2 / TIMER_WHEEL_BUCKET_COUNT), TIMER_WHEEL_BUCKET_COUNT, System.currentTimeMillis())
+                : null;
+        if (cacheMaxItemsCount != ILLIMITED_ITEMS_COUNT && mEvictionPolicy == null) {
+            throw new IllegalArgumentException("An eviction policy is required, when cacheMaxItemsCount is set");
+        }
     }
 
     public V getIfPresent(K key) {
-        synchronized (mutex) {
-            V cachedValue = mCachedValues.get(key);
-            long timeInMillis = System.currentTimeMillis();
-            if (cachedValue != null) {
-                Long cachedTime = mCachedTimes.get(key);
-                if (mCacheTimeInMillis == ETERNAL_TIME
-                        || cachedTime.longValue() - timeInMillis < mCacheTimeInMillis) {
-                    return cachedValue;
-                }
-            }
-            return null;
+        CacheEntry<V> entry = mCachedEntries.get(key);
+        if (entry != null && !isExpired(entry, System.currentTimeMillis())) {
+            mStats.recordHit();
+            afterRead(key);
+            return entry.value;
         }
+        mStats.recordMiss();
+        return null;
     }
 
     /**
@@ -79,25 +132,27 @@ public abstract class SimpleCache<K, V> implements Cache<K, V> {
      * @return
      */
     public V get(K key) {
-        synchronized (mutex) {
-            V cachedValue = mCachedValues.get(key);
-            long timeInMillis = System.currentTimeMillis();
-            if (cachedValue != null) {
-                Long cachedTime = mCachedTimes.get(key);
-                if (timeInMillis - cachedTime.longValue() < mCacheTimeInMillis) {
-                    return cachedValue;
+        CacheEntry<V> entry = mCachedEntries.get(key);
+        if (entry != null) {
+            long now = System.currentTimeMillis();
+            if (!isExpired(entry, now)) {
+                mStats.recordHit();
+                afterRead(key);
+                if (mRefreshTimeInMillis != NO_REFRESH_TIME && now - entry.time >= mRefreshTimeInMillis) {
+                    refresh(key);
                 }
+                return entry.value;
             }
+        }
+        mStats.recordMiss();
 
-            // Load a new value
-            cachedValue = load(key);
-
-            // Fill caches
-            mCachedValues.put(key, cachedValue);
-            mCachedTimes.put(key, timeInMillis);
-
-            return cachedValue;
+        // Load a new value (or wait for the current load)
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> loadingValue = mLoadingValues.putIfAbsent(key, future);
+        if (loadingValue != null) {
+            return join(key, loadingValue);
         }
+        return loadAndComplete(key, future);
     }
 
     /**
@@ -105,115 +160,264 @@ public abstract class SimpleCache<K, V> implements Cache<K, V> {
      * @param key
      * @param value
      */
-    public synchronized void put(K key, V value) {
-        synchronized (mutex) {
-            // Fill caches
-            mCachedValues.put(key, value);
-            mCachedTimes.put(key, System.currentTimeMillis());
-
-            clean();
+    public void put(K key, V value) {
+        if (value == null) {
+            remove(key);
+            return;
         }
+        putEntry(key, value, mSequence.incrementAndGet());
     }
 
     /**
      * @see Map#keySet()
      */
     public Set<K> keySet() {
-        return mCachedValues.keySet();
+        return Collections.unmodifiableSet(mCachedEntries.keySet());
     }
 
     /**
      * @see Map#entrySet()
      */
     public Set<Map.Entry<K,V>> entrySet() {
-        return mCachedValues.entrySet();
+        Map<K, V> result = new LinkedHashMap<>(mCachedEntries.size());
+        for (Map.Entry<K, CacheEntry<V>> entry : mCachedEntries.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().value);
+        }
+        return Collections.unmodifiableMap(result).entrySet();
     }
 
     /**
-     * Clear cached values
+     * Clear cached values. Loads already started will not fill the cache.
      */
     public void clear() {
-        synchronized (mutex) {
-            mCachedValues.clear();
-            mCachedTimes.clear();
+        mEvictionLock.lock();
+        try {
+            mClearSequence = mSequence.incrementAndGet();
+            mCachedEntries.clear();
+            if (mEvictionPolicy != null) {
+                mEvictionPolicy.clear();
+            }
+            if (mTimerWheel != null) {
+                mTimerWheel.clear();
+            }
+        }
+        finally {
+            mEvictionLock.unlock();
         }
     }
 
     public abstract V load(K key);
 
+    /**
+     * @return hit, miss, load, eviction and expiration counters
+     */
+    public CacheStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * @return the number of cached entries (may include expired entries, not yet removed)
+     */
+    public int size() {
+        return mCachedEntries.size();
+    }
+
     /** -- protected methods -- */
 
-    protected void clean() {
-        synchronized (mutex) {
-            // Clean older items, to fit the max size
-            if (mCacheMaxItemCount != ILLIMITED_ITEMS_COUNT
-                    && mCachedValues.size() > mCacheMaxItemCount) {
+    /**
+     * Weight of a value, when a max size is set (1 by default)
+     */
+    protected int weigh(K key, V value) {
+        return 1;
+    }
 
-                // Clean too old items
-                if (mCacheTimeInMillis != ETERNAL_TIME) {
-                    removeOldItems();
-                }
+    /**
+     * Executor used to refresh values in background
+     */
+    protected Executor getRefreshExecutor() {
+        return ForkJoinPool.commonPool();
+    }
 
-                // Size still exceed max: clean older items also
-                if (mCachedValues.size() > mCacheMaxItemCount) {
-                    reduceSizeToExpectedMaxItemCount();
+    /**
+     * Start a background refresh of the key, unless a load is already running
+     */
+    protected void refresh(final K key) {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        if (mLoadingValues.putIfAbsent(key, future) != null) {
+            return;
+        }
+        try {
+            getRefreshExecutor().execute(() -> {
+                try {
+                    loadAndComplete(key, future);
                 }
-            } else if (mCacheMaxItemCount == ILLIMITED_ITEMS_COUNT
-                    && mCachedValues.size() > ITEMS_COUNT_FOR_DEFAULT_CLEANING) {
-                removeOldItems();
+                catch (Throwable t) {
+                    // Keep the stale value, until it expires
+                    log.warn(String.format("Could not refresh cached value of [%s]: %s", key, t.getMessage()));
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            mLoadingValues.remove(key, future);
+            future.cancel(false);
+        }
+    }
+
+    protected void remove(K key) {
+        mEvictionLock.lock();
+        try {
+            if (mCachedEntries.remove(key) != null) {
+                afterRemove(key);
             }
         }
+        finally {
+            mEvictionLock.unlock();
+        }
     }
 
     /** -- private methods -- */
 
+    private V loadAndComplete(K key, CompletableFuture<V> future) {
+        long sequence = mSequence.incrementAndGet();
+        try {
+            V value = load(key);
+            mStats.recordLoadSuccess();
+            if (value != null) {
+                putEntry(key, value, sequence);
+            }
+            future.complete(value);
+            return value;
+        }
+        catch (RuntimeException | Error e) {
+            mStats.recordLoadFailure();
+            future.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            mLoadingValues.remove(key, future);
+        }
+    }
+
     /**
-     * Remove items older than <code>cacheTimeInMillis</code>
+     * Store a value, unless the cache has been cleared, or the key updated, since the given sequence.
+     * Then expire and evict entries.
      */
-    private void removeOldItems() {
+    private void putEntry(K key, V value, long sequence) {
         long now = System.currentTimeMillis();
+        final CacheEntry<V> newEntry = new CacheEntry<>(value, now, sequence);
 
-        List<K> keysToRemove = new ArrayList<>();
-        for (Map.Entry<K, Long> entry : mCachedTimes.entrySet()) {
-            if (now - entry.getValue() > mCacheTimeInMillis) {
-                keysToRemove.add(entry.getKey());
+        mEvictionLock.lock();
+        try {
+            // Checked under the lock, so a clear() cannot happen between the check and the write
+            if (sequence < mClearSequence) {
+                return;
+            }
+            CacheEntry<V> entry = mCachedEntries.merge(key, newEntry, (oldEntry, e) -> oldEntry.sequence > e.sequence ? oldEntry : e);
+            if (entry != newEntry) {
+                return;
             }
-        }
 
-        for (K key : keysToRemove) {
-            mCachedValues.remove(key);
-            mCachedTimes.remove(key);
+            if (mEvictionPolicy != null) {
+                mEvictionPolicy.onWrite(key, weigh(key, value));
+            }
+            if (mTimerWheel != null) {
+                mTimerWheel.schedule(key, now + mCacheTimeInMillis);
+            }
+            maintenance(now);
+        }
+        finally {
+            mEvictionLock.unlock();
         }
     }
 
     /**
-     * Reduce size of items: will first remove older items
+     * Remove expired entries, then evict entries to fit the max weight. Must be called under the lock.
      */
-    private void reduceSizeToExpectedMaxItemCount() {
+    private void maintenance(long now) {
+        if (mTimerWheel != null) {
+            mTimerWheel.advance(now, key -> {
+                CacheEntry<V> entry = mCachedEntries.get(key);
+                if (entry != null && isExpired(entry, now) && mCachedEntries.remove(key, entry)) {
+                    mStats.recordExpiration();
+                    if (mEvictionPolicy != null) {
+                        mEvictionPolicy.onRemove(key);
+                    }
+                }
+            });
+        }
+        if (mEvictionPolicy != null && mEvictionPolicy.getTotalWeight() > mCacheMaxItemCount) {
+            mEvictionPolicy.evict(mCacheMaxItemCount, key -> {
+                mCachedEntries.remove(key);
+                mStats.recordEviction();
+                if (mTimerWheel != null) {
+                    mTimerWheel.cancel(key);
+                }
+            });
+        }
+    }
 
-        K keyToRemove = null;
-        Long olderTime = null;
+    private void afterRead(K key) {
+        if (mEvictionPolicy != null && mEvictionLock.tryLock()) {
+            try {
+                if (mCachedEntries.containsKey(key)) {
+                    mEvictionPolicy.onAccess(key);
+                }
+            }
+            finally {
+                mEvictionLock.unlock();
+            }
+        }
+    }
 
-        while (mCachedValues.size() > mCacheMaxItemCount) {
+    private void afterRemove(K key) {
+        if (mEvictionPolicy != null) {
+            mEvictionPolicy.onRemove(key);
+        }
+        if (mTimerWheel != null) {
+            mTimerWheel.cancel(key);
+        }
+    }
 
-            K olderKey = getOlderKey();
-            mCachedValues.remove(olderKey);
-            mCachedTimes.remove(olderKey);
+    /**
+     * Wait for a load started by another thread. If this load has been cancelled (e.g. a rejected refresh),
+     * load the value in the caller thread.
+     */
+    private V join(K key, CompletableFuture<V> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechnicalException(e.getMessage(), e);
+        }
+        catch (CancellationException e) {
+            return loadAndComplete(key, new CompletableFuture<>());
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new TechnicalException(cause.getMessage(), cause);
         }
     }
 
-    private K getOlderKey() {
+    private boolean isExpired(CacheEntry<V> entry, long now) {
+        return mCacheTimeInMillis != ETERNAL_TIME && now - entry.time >= mCacheTimeInMillis;
+    }
 
-        K olderKey = null;
-        long olderTime = -1;
+    private static class CacheEntry<V> {
+        private final V value;
+        private final long time;
+        private final long sequence;
 
-        for (Map.Entry<K, Long> entry : mCachedTimes.entrySet()) {
-            if (olderTime == -1 || entry.getValue() < olderTime) {
-                olderTime = entry.getValue();
-                olderKey = entry.getKey();
-            }
+        private CacheEntry(V value, long time, long sequence) {
+            this.value = value;
+            this.time = time;
+            this.sequence = sequence;
         }
-
-        return olderKey;
     }
 }
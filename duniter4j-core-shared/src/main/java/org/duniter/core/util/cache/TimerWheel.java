@@ -0,0 +1,149 @@
+package org.duniter.core.util.cache;
+
+/*
+ * #%L
+ * UCoin Java :: Core Shared
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel, to expire keys without scanning the whole cache.
+ * Each key is linked into the bucket of its expiration tick. Advancing the wheel only visits
+ * the buckets of the elapsed ticks; keys scheduled more than one revolution ahead stay in their bucket.
+ * With a wheel span close to the expiration time, maintenance is O(1) amortized per key.
+ * This class is not thread-safe.
+ */
+public class TimerWheel<K> {
+
+    private static class Node<K> {
+        private final K key;
+        private long expirationTime;
+        private Node<K> previous;
+        private Node<K> next;
+
+        private Node(K key) {
+            this.key = key;
+        }
+    }
+
+    private final long tickInMillis;
+    private final Node<K>[] buckets;
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * @param tickInMillis duration of a bucket
+     * @param bucketCount number of buckets (the wheel span is <code>tickInMillis * bucketCount</code>)
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickInMillis, int bucketCount, long now) {
+        this.tickInMillis = Math.max(1, tickInMillis);
+        this.buckets = new Node[Math.max(1, bucketCount)];
+        for (int i = 0; i < buckets.length; i++) {
+            // Sentinel of a circular list
+            Node<K> sentinel = new Node<>(null);
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+            buckets[i] = sentinel;
+        }
+        this.currentTick = now / this.tickInMillis;
+    }
+
+    /**
+     * Schedule (or reschedule) the expiration of a key
+     */
+    public void schedule(K key, long expirationTime) {
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        }
+        else {
+            unlink(node);
+        }
+        node.expirationTime = expirationTime;
+        link(buckets[(int) ((expirationTime / tickInMillis) % buckets.length)], node);
+    }
+
+    public void cancel(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * Advance the wheel to the given time
+     * @param expired called for each expired key (already removed from the wheel)
+     */
+    public void advance(long now, Consumer<K> expired) {
+        long targetTick = now / tickInMillis;
+        if (targetTick < currentTick) {
+            return;
+        }
+        // Visit each bucket at most once (a full revolution covers all keys)
+        long tickCount = Math.min(targetTick - currentTick + 1, buckets.length);
+        for (long tick = targetTick - tickCount + 1; tick <= targetTick; tick++) {
+            Node<K> sentinel = buckets[(int) (tick % buckets.length)];
+            Node<K> node = sentinel.next;
+            while (node != sentinel) {
+                Node<K> next = node.next;
+                if (node.expirationTime <= now) {
+                    unlink(node);
+                    nodes.remove(node.key);
+                    expired.accept(node.key);
+                }
+                node = next;
+            }
+        }
+        currentTick = targetTick;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public void clear() {
+        for (Node<K> sentinel : buckets) {
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+        }
+        nodes.clear();
+    }
+
+    /* -- internal methods -- */
+
+    private void link(Node<K> sentinel, Node<K> node) {
+        node.previous = sentinel.previous;
+        node.next = sentinel;
+        sentinel.previous.next = node;
+        sentinel.previous = node;
+    }
+
+    private void unlink(Node<K> node) {
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+        node.previous = null;
+        node.next = null;
+    }
+}
@@ -0,0 +1,329 @@
+package org.duniter.core.util.cache;
+
+/*
+ * #%L
+ * UCoin Java :: Core Shared
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Frequency-aware eviction (W-TinyLFU), for scan-heavy workloads (e.g. wallet or identity lookups):
+ * <ul>
+ *     <li>new keys enter a small LRU <i>window</i> (1% of the max weight);</li>
+ *     <li>keys leaving the window are <i>candidates</i> for the main space, split in a <i>probation</i> segment
+ *     and a <i>protected</i> segment (80%) for keys read again;</li>
+ *     <li>when the cache is full, a candidate is admitted only if its estimated frequency
+ *     is higher than the one of the probation LRU key (the victim). So a scan cannot flush popular keys.</li>
+ * </ul>
+ * Frequencies are estimated by a count-min sketch (4 bits counters), halved periodically so that old
+ * popularity fades.
+ */
+public class TinyLfuEvictionPolicy<K> implements EvictionPolicy<K> {
+
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private enum Segment {
+        WINDOW,
+        PROBATION,
+        PROTECTED
+    }
+
+    private static class Node {
+        private int weight;
+        private Segment segment;
+
+        private Node(int weight, Segment segment) {
+            this.weight = weight;
+            this.segment = segment;
+        }
+    }
+
+    // Segments, from least to most recently used
+    private final LinkedHashMap<K, Node> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, Node> nodes = new HashMap<>();
+
+    // Keys that left the window, not yet compared to a victim
+    private final ArrayDeque<K> candidates = new ArrayDeque<>();
+
+    private final long maxWindowWeight;
+    private final long maxProtectedWeight;
+    private long windowWeight;
+    private long protectedWeight;
+    private long totalWeight;
+
+    private final FrequencySketch sketch;
+
+    public TinyLfuEvictionPolicy(long maxWeight) {
+        this.maxWindowWeight = Math.max(1, (long) (maxWeight * WINDOW_RATIO));
+        this.maxProtectedWeight = (long) ((maxWeight - maxWindowWeight) * PROTECTED_RATIO);
+        this.sketch = new FrequencySketch((int) Math.min(maxWeight, 1 << 16));
+    }
+
+    @Override
+    public void onAccess(K key) {
+        sketch.increment(key);
+        Node node = nodes.get(key);
+        if (node != null) {
+            touch(key, node);
+        }
+    }
+
+    @Override
+    public void onWrite(K key, int weight) {
+        sketch.increment(key);
+        Node node = nodes.get(key);
+        if (node == null) {
+            node = new Node(weight, Segment.WINDOW);
+            nodes.put(key, node);
+            window.put(key, node);
+            windowWeight += weight;
+            totalWeight += weight;
+            return;
+        }
+
+        // Update weight
+        int delta = weight - node.weight;
+        node.weight = weight;
+        totalWeight += delta;
+        if (node.segment == Segment.WINDOW) {
+            windowWeight += delta;
+        }
+        else if (node.segment == Segment.PROTECTED) {
+            protectedWeight += delta;
+        }
+        touch(key, node);
+    }
+
+    @Override
+    public void onRemove(K key) {
+        Node node = nodes.remove(key);
+        if (node != null) {
+            removeFromSegment(key, node);
+        }
+    }
+
+    @Override
+    public void evict(long maxWeight, Consumer<K> evicted) {
+        // Move window overflow to probation: they become candidates
+        Iterator<Map.Entry<K, Node>> it = window.entrySet().iterator();
+        while (windowWeight > maxWindowWeight && it.hasNext()) {
+            Map.Entry<K, Node> entry = it.next();
+            it.remove();
+            Node node = entry.getValue();
+            windowWeight -= node.weight;
+            node.segment = Segment.PROBATION;
+            probation.put(entry.getKey(), node);
+            candidates.addLast(entry.getKey());
+        }
+
+        while (totalWeight > maxWeight && !nodes.isEmpty()) {
+            K victim = firstKey(probation);
+            if (victim == null) {
+                // Probation empty: evict from protected, then window
+                victim = firstKey(protectedSegment);
+                if (victim == null) {
+                    victim = firstKey(window);
+                }
+                evict(victim, evicted);
+                continue;
+            }
+
+            K candidate = pollCandidate();
+            if (candidate == null || candidate.equals(victim)) {
+                evict(victim, evicted);
+            }
+            // Admission: keep the more frequent
+            else if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+                evict(victim, evicted);
+            }
+            else {
+                evict(candidate, evicted);
+            }
+        }
+        candidates.clear();
+    }
+
+    @Override
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    @Override
+    public void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        nodes.clear();
+        candidates.clear();
+        windowWeight = 0;
+        protectedWeight = 0;
+        totalWeight = 0;
+    }
+
+    /* -- internal methods -- */
+
+    private void touch(K key, Node node) {
+        switch (node.segment) {
+            case WINDOW:
+                window.get(key);
+                break;
+            case PROBATION:
+                // Read again: promote to protected
+                probation.remove(key);
+                node.segment = Segment.PROTECTED;
+                protectedSegment.put(key, node);
+                protectedWeight += node.weight;
+                demoteProtectedOverflow();
+                break;
+            case PROTECTED:
+            default:
+                protectedSegment.get(key);
+                break;
+        }
+    }
+
+    private void demoteProtectedOverflow() {
+        Iterator<Map.Entry<K, Node>> it = protectedSegment.entrySet().iterator();
+        while (protectedWeight > maxProtectedWeight && it.hasNext()) {
+            Map.Entry<K, Node> entry = it.next();
+            it.remove();
+            Node node = entry.getValue();
+            protectedWeight -= node.weight;
+            node.segment = Segment.PROBATION;
+            probation.put(entry.getKey(), node);
+        }
+    }
+
+    private K pollCandidate() {
+        K candidate;
+        while ((candidate = candidates.pollFirst()) != null) {
+            Node node = nodes.get(candidate);
+            // Skip candidates removed or promoted since
+            if (node != null && node.segment == Segment.PROBATION) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void evict(K key, Consumer<K> evicted) {
+        Node node = nodes.remove(key);
+        if (node != null) {
+            removeFromSegment(key, node);
+            evicted.accept(key);
+        }
+    }
+
+    private void removeFromSegment(K key, Node node) {
+        totalWeight -= node.weight;
+        switch (node.segment) {
+            case WINDOW:
+                window.remove(key);
+                windowWeight -= node.weight;
+                break;
+            case PROBATION:
+                probation.remove(key);
+                break;
+            case PROTECTED:
+            default:
+                protectedSegment.remove(key);
+                protectedWeight -= node.weight;
+                break;
+        }
+    }
+
+    private K firstKey(LinkedHashMap<K, Node> segment) {
+        return segment.isEmpty() ? null : segment.keySet().iterator().next();
+    }
+
+    /**
+     * Count-min sketch, with 4 rows of counters (max 15). All counters are halved after <code>10 * expectedSize</code> increments.
+     */
+    protected static class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x97cb3127, 0xc2b2ae35, 0x85ebca6b, 0x27d4eb2f};
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        protected FrequencySketch(int expectedSize) {
+            expectedSize = Math.max(16, expectedSize);
+            // 16 counters by expected key (4 by row), to limit collisions
+            int width = (Integer.highestOneBit(expectedSize - 1) << 1) * 4;
+            this.table = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * expectedSize;
+        }
+
+        protected void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                int index = indexOf(hash, i);
+                if (table[i][index] < MAX_COUNT) {
+                    table[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        protected int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int result = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                result = Math.min(result, table[i][indexOf(hash, i)]);
+            }
+            return result;
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = (byte) (row[j] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+            h ^= h >>> 16;
+            return h & mask;
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 17;
+            hash *= 0xed5ad4bb;
+            hash ^= hash >>> 11;
+            return hash;
+        }
+    }
+}
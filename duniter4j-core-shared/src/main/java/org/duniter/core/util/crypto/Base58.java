@@ -23,7 +23,6 @@ package org.duniter.core.util.crypto;
  */
 
 
-import java.io.UnsupportedEncodingException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -64,130 +63,129 @@ public class Base58 {
         }
     }
 
-    /** Encodes the given bytes in base58. No checksum is appended. */
+    // 58^5: the largest power of 58 that fits in 30 bits. Numbers are processed by 5 base58 digits at once.
+    private static final long BASE58_POW5 = 58L * 58 * 58 * 58 * 58;
+    private static final int BASE58_POW5_DIGITS = 5;
+
+    /**
+     * Encodes the given bytes in base58. No checksum is appended.
+     * The number is stored in 32-bit limbs, and divided by 58^5 at each pass (a 32-byte key needs 9 passes on 8 limbs,
+     * instead of 44 byte-wise passes).
+     */
     public static String encode(byte[] input) {
         if (input.length == 0) {
             return "";
-        }       
-        input = copyOfRange(input, 0, input.length);
+        }
         // Count leading zeroes.
         int zeroCount = 0;
         while (zeroCount < input.length && input[zeroCount] == 0) {
             ++zeroCount;
         }
-        // The actual encoding.
-        byte[] temp = new byte[input.length * 2];
-        int j = temp.length;
-
-        int startAt = zeroCount;
-        while (startAt < input.length) {
-            byte mod = divmod58(input, startAt);
-            if (input[startAt] == 0) {
+
+        // Big-endian 32-bit limbs
+        int byteCount = input.length - zeroCount;
+        int limbCount = (byteCount + 3) / 4;
+        int[] limbs = new int[limbCount];
+        for (int i = zeroCount; i < input.length; i++) {
+            int bytePosition = input.length - 1 - i; // from the least significant byte
+            limbs[limbCount - 1 - bytePosition / 4] |= (input[i] & 0xFF) << ((bytePosition % 4) * 8);
+        }
+
+        // Max digit count: byteCount * log(256) / log(58) (< 1.38), rounded up to the group size
+        int maxDigitCount = ((byteCount * 138 / 100 + 1) / BASE58_POW5_DIGITS + 1) * BASE58_POW5_DIGITS;
+        char[] output = new char[zeroCount + maxDigitCount];
+        int j = output.length;
+
+        int startAt = 0;
+        while (startAt < limbCount) {
+            // number -> number / 58^5
+            long remainder = 0;
+            for (int i = startAt; i < limbCount; i++) {
+                long temp = (remainder << 32) | (limbs[i] & 0xFFFFFFFFL);
+                limbs[i] = (int) (temp / BASE58_POW5);
+                remainder = temp % BASE58_POW5;
+            }
+            while (startAt < limbCount && limbs[startAt] == 0) {
                 ++startAt;
             }
-            temp[--j] = (byte) ALPHABET[mod];
+            for (int k = 0; k < BASE58_POW5_DIGITS; k++) {
+                output[--j] = ALPHABET[(int) (remainder % 58)];
+                remainder /= 58;
+            }
         }
 
         // Strip extra '1' if there are some after decoding.
-        while (j < temp.length && temp[j] == ALPHABET[0]) {
+        while (j < output.length && output[j] == ALPHABET[0]) {
             ++j;
         }
         // Add as many leading '1' as there were leading zeros.
         while (--zeroCount >= 0) {
-            temp[--j] = (byte) ALPHABET[0];
+            output[--j] = ALPHABET[0];
         }
 
-        byte[] output = copyOfRange(temp, j, temp.length);
-        try {
-            return new String(output, "US-ASCII");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);  // Cannot happen.
-        }
+        return new String(output, j, output.length - j);
     }
 
+    /**
+     * Decodes the given base58 string. Digits are read by groups of 5, and accumulated into 32-bit limbs.
+     */
     public static byte[] decode(String input) throws AddressFormatException {
-        if (input.length() == 0) {
+        int length = input.length();
+        if (length == 0) {
             return new byte[0];
         }
-        byte[] input58 = new byte[input.length()];
-        // Transform the String to a base58 byte sequence
-        for (int i = 0; i < input.length(); ++i) {
-            char c = input.charAt(i);
-
-            int digit58 = -1;
-            if (c >= 0 && c < 128) {
-                digit58 = INDEXES[c];
-            }
-            if (digit58 < 0) {
-                throw new AddressFormatException("Illegal character " + c + " at " + i);
-            }
-
-            input58[i] = (byte) digit58;
-        }
         // Count leading zeroes
         int zeroCount = 0;
-        while (zeroCount < input58.length && input58[zeroCount] == 0) {
+        while (zeroCount < length && input.charAt(zeroCount) == ALPHABET[0]) {
             ++zeroCount;
         }
-        // The encoding
-        byte[] temp = new byte[input.length()];
-        int j = temp.length;
-
-        int startAt = zeroCount;
-        while (startAt < input58.length) {
-            byte mod = divmod256(input58, startAt);
-            if (input58[startAt] == 0) {
-                ++startAt;
+
+        // Max limb count: digitCount * log(58) / log(2^32) (log2(58) < 5.86)
+        int digitCount = length - zeroCount;
+        int limbCount = (int) (((long) digitCount * 586 / 100 + 31) / 32) + 1;
+        int[] limbs = new int[limbCount];
+
+        // The first group holds the remaining digits, so that next groups are full
+        int groupSize = digitCount % BASE58_POW5_DIGITS == 0 ? BASE58_POW5_DIGITS : digitCount % BASE58_POW5_DIGITS;
+        int i = zeroCount;
+        while (i < length) {
+            long groupValue = 0;
+            long multiplier = 1;
+            for (int k = 0; k < groupSize; k++, i++) {
+                char c = input.charAt(i);
+                int digit58 = c < 128 ? INDEXES[c] : -1;
+                if (digit58 < 0) {
+                    throw new AddressFormatException("Illegal character " + c + " at " + i);
+                }
+                groupValue = groupValue * 58 + digit58;
+                multiplier *= 58;
             }
 
-            temp[--j] = mod;
-        }
-        // Do no add extra leading zeroes, move j to first non null byte.
-        while (j < temp.length && temp[j] == 0) {
-            ++j;
+            // number -> number * 58^groupSize + groupValue
+            long carry = groupValue;
+            for (int l = limbCount - 1; l >= 0; l--) {
+                long temp = (limbs[l] & 0xFFFFFFFFL) * multiplier + carry;
+                limbs[l] = (int) temp;
+                carry = temp >>> 32;
+            }
+            groupSize = BASE58_POW5_DIGITS;
         }
 
-        return copyOfRange(temp, j - zeroCount, temp.length);
-    }
-    
-    //
-    // number -> number / 58, returns number % 58
-    //
-    private static byte divmod58(byte[] number, int startAt) {
-        int remainder = 0;
-        for (int i = startAt; i < number.length; i++) {
-            int digit256 = (int) number[i] & 0xFF;
-            int temp = remainder * 256 + digit256;
-
-            number[i] = (byte) (temp / 58);
-
-            remainder = temp % 58;
+        // Do no add extra leading zeroes, move to first non null byte.
+        int byteCount = limbCount * 4;
+        int firstByte = 0;
+        while (firstByte < byteCount && limbByte(limbs, firstByte) == 0) {
+            ++firstByte;
         }
-
-        return (byte) remainder;
-    }
-
-    //
-    // number -> number / 256, returns number % 256
-    //
-    private static byte divmod256(byte[] number58, int startAt) {
-        int remainder = 0;
-        for (int i = startAt; i < number58.length; i++) {
-            int digit58 = (int) number58[i] & 0xFF;
-            int temp = remainder * 58 + digit58;
-
-            number58[i] = (byte) (temp / 256);
-
-            remainder = temp % 256;
+        byte[] output = new byte[zeroCount + byteCount - firstByte];
+        for (int b = firstByte, j = zeroCount; b < byteCount; b++, j++) {
+            output[j] = limbByte(limbs, b);
         }
-
-        return (byte) remainder;
+        return output;
     }
 
-    private static byte[] copyOfRange(byte[] source, int from, int to) {
-        byte[] range = new byte[to - from];
-        System.arraycopy(source, from, range, 0, range.length);
-
-        return range;
+    // Byte at the given big-endian position
+    private static byte limbByte(int[] limbs, int position) {
+        return (byte) (limbs[position / 4] >>> (24 - (position % 4) * 8));
     }
 }
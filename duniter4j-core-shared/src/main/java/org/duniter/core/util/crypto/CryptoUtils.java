@@ -28,12 +28,19 @@ import org.duniter.core.exception.TechnicalException;
 import org.abstractj.kalium.crypto.Util;
 
 import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class CryptoUtils extends Util {
 	
 	public static final Charset CHARSET_UTF8 = Charset.forName("UTF-8");
 	public static final Charset CHARSET_ASCII = Charset.forName("US-ASCII");
 	
+	// Decoded public keys cache: a key replaces the previous one of its slot (bounded, lock-free)
+	private static final int PUBLIC_KEY_BYTES = 32;
+	private static final int PUBLIC_KEY_MAX_BASE58_LENGTH = 44;
+	private static final int DECODED_KEYS_CACHE_SIZE = 4096; // power of 2
+	private static final AtomicReferenceArray<DecodedKey> DECODED_KEYS = new AtomicReferenceArray<>(DECODED_KEYS_CACHE_SIZE);
+
 	public static byte[] zeros(int n) {
         return new byte[n];
     }
@@ -74,15 +81,53 @@ public class CryptoUtils extends Util {
 		return new String(Base64.encode(data));
 	}
 	
+	/**
+	 * Decode from Base58. Public keys (32 bytes) are kept in a bounded cache, so that
+	 * verifying many documents from the same issuer does not decode the key again.
+	 * @return a new array (the cache is never shared with callers)
+	 */
 	public static byte[] decodeBase58(String data) {
+		boolean cacheable = data.length() <= PUBLIC_KEY_MAX_BASE58_LENGTH;
+		int slot = 0;
+		if (cacheable) {
+			slot = cacheSlot(data);
+			DecodedKey cachedKey = DECODED_KEYS.get(slot);
+			if (cachedKey != null && cachedKey.base58.equals(data)) {
+				return cachedKey.bytes.clone();
+			}
+		}
+
+		byte[] result;
 		try {
-			return Base58.decode(data);
+			result = Base58.decode(data);
 		} catch (AddressFormatException e) {
 			throw new TechnicalException("Could decode from base 58: " + e.getMessage());
 		}
+
+		if (cacheable && result.length == PUBLIC_KEY_BYTES) {
+			DECODED_KEYS.set(slot, new DecodedKey(data, result.clone()));
+		}
+		return result;
 	}
 	
 	public static String encodeBase58(byte[] data) {
 		return Base58.encode(data);
 	}
+
+	/* -- internal methods -- */
+
+	private static int cacheSlot(String data) {
+		int hash = data.hashCode();
+		return (hash ^ (hash >>> 16)) & (DECODED_KEYS_CACHE_SIZE - 1);
+	}
+
+	private static class DecodedKey {
+		private final String base58;
+		private final byte[] bytes;
+
+		private DecodedKey(String base58, byte[] bytes) {
+			this.base58 = base58;
+			this.bytes = bytes;
+		}
+	}
 }
@@ -22,7 +22,6 @@ package org.duniter.core.util.websocket;
  * #L%
  */
 
-import com.google.common.collect.Lists;
 import org.duniter.core.util.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +31,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * ChatServer Client
@@ -44,11 +44,22 @@ public class WebsocketClientEndpoint implements Closeable {
     private static final Logger log = LoggerFactory.getLogger(WebsocketClientEndpoint.class);
 
     private Session userSession = null;
-    private List<MessageHandler> messageHandlers = Lists.newArrayList();
+    // Copy on write: handlers are called without lock, from the websocket thread
+    private final List<MessageHandler> messageHandlers = new CopyOnWriteArrayList<>();
     private final URI endpointURI;
 
     public WebsocketClientEndpoint(URI endpointURI) {
+        this(endpointURI, true);
+    }
+
+    /**
+     * @param connect if false, the endpoint is not connected (e.g. for tests)
+     */
+    protected WebsocketClientEndpoint(URI endpointURI, boolean connect) {
         this.endpointURI = endpointURI;
+        if (!connect) {
+            return;
+        }
         try {
             WebSocketContainer container = ContainerProvider.getWebSocketContainer();
             container.connectToServer(this, endpointURI);
@@ -100,18 +111,16 @@ public class WebsocketClientEndpoint implements Closeable {
      */
     @OnMessage
     public void onMessage(String message) {
-        synchronized (messageHandlers) {
-            if (CollectionUtils.isNotEmpty(messageHandlers)) {
-                if (log.isDebugEnabled()) {
-                    log.debug("[%s] Received message: " + message);
-                }
+        if (CollectionUtils.isNotEmpty(messageHandlers)) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("[%s] Received message: %s", endpointURI, message));
+            }
 
-                for (MessageHandler messageHandler : messageHandlers) {
-                    try {
-                        messageHandler.handleMessage(message);
-                    } catch (Exception e) {
-                        log.error(String.format("[%s] Error during message handling: %s", endpointURI, e.getMessage()), e);
-                    }
+            for (MessageHandler messageHandler : messageHandlers) {
+                try {
+                    messageHandler.handleMessage(message);
+                } catch (Exception e) {
+                    log.error(String.format("[%s] Error during message handling: %s", endpointURI, e.getMessage()), e);
                 }
             }
         }
@@ -123,9 +132,7 @@ public class WebsocketClientEndpoint implements Closeable {
      * @param msgHandler
      */
     public void addMessageHandler(MessageHandler msgHandler) {
-        synchronized (messageHandlers) {
-            this.messageHandlers.add(msgHandler);
-        }
+        this.messageHandlers.add(msgHandler);
     }
 
     /**
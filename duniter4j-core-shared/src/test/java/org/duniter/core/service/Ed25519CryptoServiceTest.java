@@ -25,12 +25,18 @@ package org.duniter.core.service;
 
 import org.duniter.core.test.TestFixtures;
 import org.duniter.core.util.crypto.Base58;
+import org.duniter.core.util.crypto.CryptoUtils;
 import org.duniter.core.util.crypto.SecretBox;
+import org.duniter.core.util.crypto.SignedMessage;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 
 public class Ed25519CryptoServiceTest {
 
@@ -65,6 +71,106 @@ public class Ed25519CryptoServiceTest {
         Assert.assertTrue(validSignature);
 	}
 
+    @Test
+    public void signAndVerifyBuffers() throws Exception {
+        SecretBox secretBox = createSecretBox();
+        byte[] secretKey = Base58.decode(secretBox.getSecretKey());
+        byte[] publicKey = Base58.decode(secretBox.getPublicKey());
+        String expectedSignature = service.sign(message, secretKey);
+
+        // byte[]
+        byte[] signature = service.sign(messageAsBytes, secretKey);
+        Assert.assertEquals(expectedSignature, CryptoUtils.encodeBase64(signature));
+        Assert.assertTrue(service.verify(messageAsBytes, signature, publicKey));
+        signature[0]++;
+        Assert.assertFalse(service.verify(messageAsBytes, signature, publicKey));
+
+        // Direct and heap buffers, not at position 0
+        for (boolean direct: new boolean[]{true, false}) {
+            ByteBuffer messageBuffer = newBuffer(direct, 3, messageAsBytes);
+            ByteBuffer secretKeyBuffer = newBuffer(direct, 5, secretKey);
+            ByteBuffer publicKeyBuffer = newBuffer(direct, 7, publicKey);
+            ByteBuffer signatureBuffer = newBuffer(direct, 11, new byte[64]);
+
+            service.sign(messageBuffer, signatureBuffer, secretKeyBuffer);
+            Assert.assertEquals(11, signatureBuffer.position());
+            byte[] signatureBytes = new byte[64];
+            signatureBuffer.duplicate().get(signatureBytes);
+            Assert.assertEquals(expectedSignature, CryptoUtils.encodeBase64(signatureBytes));
+
+            Assert.assertTrue(service.verify(messageBuffer, signatureBuffer, publicKeyBuffer));
+            Assert.assertEquals(3, messageBuffer.position());
+            Assert.assertEquals(7, publicKeyBuffer.position());
+
+            messageBuffer.put(messageBuffer.position(), (byte) 'M');
+            Assert.assertFalse(service.verify(messageBuffer, signatureBuffer, publicKeyBuffer));
+        }
+    }
+
+    @Test
+    public void verifiedSignatureCache() throws Exception {
+        SecretBox secretBox = createSecretBox();
+        Ed25519CryptoServiceImpl service = new Ed25519CryptoServiceImpl(1, 100, 60000);
+        String signature = service.sign(message, Base58.decode(secretBox.getSecretKey()));
+
+        Assert.assertTrue(service.verify(message, signature, secretBox.getPublicKey()));
+        Assert.assertTrue(service.verify(message, signature, secretBox.getPublicKey()));
+        Assert.assertEquals(1, service.getVerifiedSignatureCacheStats().getHitCount());
+
+        // Invalid signatures are never cached
+        Assert.assertFalse(service.verify(message + "!", signature, secretBox.getPublicKey()));
+        Assert.assertFalse(service.verify(message + "!", signature, secretBox.getPublicKey()));
+        Assert.assertEquals(1, service.getVerifiedSignatureCacheStats().getHitCount());
+
+        // Batch use the same cache
+        List<SignedMessage> messages = new ArrayList<>();
+        messages.add(new SignedMessage(message, signature, secretBox.getPublicKey()));
+        messages.add(new SignedMessage(message + "!", signature, secretBox.getPublicKey()));
+        Assert.assertEquals("{0}", service.verifyBatch(messages).toString());
+        Assert.assertEquals(2, service.getVerifiedSignatureCacheStats().getHitCount());
+
+        // Large documents are cached too (keys are digests)
+        String largeMessage = new String(new char[200 * 1024]).replace('\0', 'a');
+        String largeSignature = service.sign(largeMessage, Base58.decode(secretBox.getSecretKey()));
+        Assert.assertTrue(service.verify(largeMessage, largeSignature, secretBox.getPublicKey()));
+        Assert.assertTrue(service.verify(largeMessage, largeSignature, secretBox.getPublicKey()));
+        Assert.assertEquals(3, service.getVerifiedSignatureCacheStats().getHitCount());
+
+        // Disabled cache
+        Assert.assertNull(new Ed25519CryptoServiceImpl(1, 0, 0).getVerifiedSignatureCacheStats());
+    }
+
+    @Test
+    public void verifyBatch() throws Exception {
+        SecretBox secretBox = createSecretBox();
+        byte[] secretKey = Base58.decode(secretBox.getSecretKey());
+
+        // Enough messages to use many threads
+        List<SignedMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String aMessage = message + " #" + i + " \u00e9\u20ac";
+            String signature = service.sign(aMessage, secretKey);
+            if (i % 10 == 3) {
+                aMessage += " (altered)";
+            }
+            messages.add(new SignedMessage(aMessage, signature, secretBox.getPublicKey()));
+        }
+        // Malformed signature and public key
+        messages.set(5, new SignedMessage(message, "not a signature", secretBox.getPublicKey()));
+        messages.set(6, new SignedMessage(message, service.sign(message, secretKey), "0OIl"));
+
+        BitSet result = new Ed25519CryptoServiceImpl(4).verifyBatch(messages);
+        for (int i = 0; i < messages.size(); i++) {
+            SignedMessage signedMessage = messages.get(i);
+            boolean expected = i != 5 && i != 6 && service.verify(signedMessage.getMessage(), signedMessage.getSignature(), signedMessage.getPublicKey());
+            Assert.assertEquals("message #" + i, expected, result.get(i));
+            Assert.assertEquals("message #" + i, i != 5 && i != 6 && i % 10 != 3, result.get(i));
+        }
+
+        // Single-threaded
+        Assert.assertEquals(result, new Ed25519CryptoServiceImpl(1).verifyBatch(messages));
+    }
+
     @Test
     public void hash() throws Exception {
 
@@ -79,6 +185,15 @@ public class Ed25519CryptoServiceTest {
 
 	/* -- internal methods */
 
+    protected ByteBuffer newBuffer(boolean direct, int position, byte[] content) {
+        ByteBuffer result = direct ? ByteBuffer.allocateDirect(position + content.length + 2) : ByteBuffer.allocate(position + content.length + 2);
+        result.position(position);
+        result.put(content);
+        result.position(position);
+        result.limit(position + content.length);
+        return result;
+    }
+
 	protected SecretBox createSecretBox() {
         TestFixtures fixtures = new TestFixtures();
 		String salt = fixtures.getUserSalt();
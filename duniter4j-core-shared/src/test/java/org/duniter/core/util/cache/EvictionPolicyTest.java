@@ -0,0 +1,101 @@
+package org.duniter.core.util.cache;
+
+/*
+ * #%L
+ * UCoin Java :: Core Shared
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EvictionPolicyTest {
+
+    @Test
+    public void lru() {
+        LruEvictionPolicy<String> policy = new LruEvictionPolicy<>();
+        policy.onWrite("A", 1);
+        policy.onWrite("B", 1);
+        policy.onWrite("C", 2);
+        policy.onAccess("A");
+        Assert.assertEquals(4, policy.getTotalWeight());
+
+        List<String> evicted = new ArrayList<>();
+        policy.evict(2, evicted::add);
+        Assert.assertEquals("[B, C]", evicted.toString());
+        Assert.assertEquals(1, policy.getTotalWeight());
+    }
+
+    @Test
+    public void tinyLfuResistsScan() {
+        int maxSize = 100;
+        TinyLfuEvictionPolicy<Integer> policy = new TinyLfuEvictionPolicy<>(maxSize);
+        List<Integer> evicted = new ArrayList<>();
+
+        // Popular keys
+        for (int i = 0; i < maxSize; i++) {
+            policy.onWrite(i, 1);
+            policy.evict(maxSize, evicted::add);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < maxSize; i++) {
+                policy.onAccess(i);
+            }
+        }
+
+        // Scan of keys read once
+        for (int i = 1000; i < 2000; i++) {
+            policy.onWrite(i, 1);
+            policy.evict(maxSize, evicted::add);
+        }
+        Assert.assertEquals(maxSize, policy.getTotalWeight());
+
+        int popularEvictedCount = 0;
+        for (Integer key : evicted) {
+            if (key < maxSize) popularEvictedCount++;
+        }
+        // (a LRU policy would evict all of them)
+        Assert.assertTrue("Too many popular keys evicted: " + popularEvictedCount, popularEvictedCount < maxSize / 10);
+    }
+
+    @Test
+    public void timerWheel() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 8, 0);
+        wheel.schedule("A", 25);
+        wheel.schedule("B", 55);
+        wheel.schedule("C", 500); // more than one revolution
+        wheel.schedule("D", 35);
+        wheel.cancel("D");
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(30, expired::add);
+        Assert.assertEquals("[A]", expired.toString());
+
+        wheel.advance(100, expired::add);
+        Assert.assertEquals("[A, B]", expired.toString());
+        Assert.assertEquals(1, wheel.size());
+
+        wheel.advance(1000, expired::add);
+        Assert.assertEquals("[A, B, C]", expired.toString());
+        Assert.assertEquals(0, wheel.size());
+    }
+}
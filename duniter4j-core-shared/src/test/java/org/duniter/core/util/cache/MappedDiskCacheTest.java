@@ -0,0 +1,127 @@
+package org.duniter.core.util.cache;
+
+/*
+ * #%L
+ * UCoin Java :: Core Shared
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class MappedDiskCacheTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory(new File("target").toPath(), "disk-cache").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void putAndReopen() {
+        MappedDiskCache cache = new MappedDiskCache(directory, 256);
+        for (int i = 0; i < 50; i++) {
+            Assert.assertTrue(cache.put("meta_brouzouf/block/" + i, bytes("block " + i)));
+        }
+        // Immutable values: the first write wins
+        Assert.assertFalse(cache.put("meta_brouzouf/block/0", bytes("other")));
+        Assert.assertEquals("block 0", string(cache.get("meta_brouzouf/block/0")));
+        Assert.assertNull(cache.get("meta_brouzouf/block/50"));
+        cache.close();
+
+        // Sealed segments are loaded from their index, the active one is scanned
+        File[] indexFiles = directory.listFiles((dir, name) -> name.endsWith(".idx"));
+        Assert.assertNotNull(indexFiles);
+        Assert.assertTrue(indexFiles.length > 0);
+
+        cache = new MappedDiskCache(directory, 256);
+        Assert.assertEquals(50, cache.size());
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals("block " + i, string(cache.get("meta_brouzouf/block/" + i)));
+        }
+        Assert.assertEquals(50, cache.getStats().getHitCount());
+        cache.close();
+    }
+
+    @Test
+    public void largeValue() {
+        MappedDiskCache cache = new MappedDiskCache(directory, 64);
+        byte[] value = new byte[1000];
+        value[999] = 1;
+        Assert.assertTrue(cache.put("large", value));
+        Assert.assertTrue(cache.put("small", bytes("small")));
+        Assert.assertArrayEquals(value, cache.get("large"));
+        Assert.assertEquals("small", string(cache.get("small")));
+        cache.close();
+    }
+
+    @Test
+    public void tornWrite() throws Exception {
+        MappedDiskCache cache = new MappedDiskCache(directory, 1024);
+        cache.put("A", bytes("value A"));
+        cache.put("B", bytes("value B"));
+        cache.close();
+
+        // Corrupt the last byte of the last record
+        File segmentFile = new File(directory, "segment-00000.dat");
+        int lastByteOffset = 2 * 16 + 2 + 14 - 1;
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile, "rw")) {
+            raf.seek(lastByteOffset);
+            raf.write('X');
+        }
+
+        cache = new MappedDiskCache(directory, 1024);
+        Assert.assertEquals("value A", string(cache.get("A")));
+        Assert.assertNull(cache.get("B"));
+
+        // The torn record is overwritten by the next append
+        Assert.assertTrue(cache.put("C", bytes("value C")));
+        cache.close();
+        cache = new MappedDiskCache(directory, 1024);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals("value C", string(cache.get("C")));
+        cache.close();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,193 @@
+package org.duniter.core.util.cache;
+
+/*
+ * #%L
+ * UCoin Java :: Core Shared
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SimpleCacheTest {
+
+    @Test
+    public void loadOncePerKey() throws Exception {
+        final AtomicInteger loadCount = new AtomicInteger();
+        final CountDownLatch loadingA = new CountDownLatch(1);
+        final CountDownLatch releaseA = new CountDownLatch(1);
+
+        final Cache<String, String> cache = new SimpleCache<String, String>() {
+            @Override
+            public String load(String key) {
+                loadCount.incrementAndGet();
+                if ("A".equals(key)) {
+                    loadingA.countDown();
+                    try {
+                        releaseA.await();
+                    }
+                    catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return key.toLowerCase();
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> cache.get("A"));
+            loadingA.await();
+            Future<String> second = executor.submit(() -> cache.get("A"));
+
+            // A slow load must not block other keys
+            Assert.assertEquals("b", executor.submit(() -> cache.get("B")).get(1, TimeUnit.SECONDS));
+
+            releaseA.countDown();
+            Assert.assertEquals("a", first.get());
+            Assert.assertEquals("a", second.get());
+
+            // Eternal cache: no reload
+            Assert.assertEquals("a", cache.get("A"));
+            Assert.assertEquals(2, loadCount.get());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void refreshAfterWrite() throws Exception {
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Cache<String, Integer> cache = new SimpleCache<String, Integer>(60000, -1, 20) {
+            @Override
+            public Integer load(String key) {
+                return loadCount.incrementAndGet();
+            }
+        };
+
+        Assert.assertEquals(1, cache.get("A").intValue());
+        Thread.sleep(30);
+
+        // Stale value returned, while refreshing
+        Assert.assertEquals(1, cache.get("A").intValue());
+        for (int i = 0; i < 100 && cache.getIfPresent("A") == 1; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(2, cache.getIfPresent("A").intValue());
+    }
+
+    @Test
+    public void loadWhenRefreshRejected() throws Exception {
+        final AtomicInteger loadCount = new AtomicInteger();
+        final CountDownLatch refreshing = new CountDownLatch(1);
+        final CountDownLatch rejectRefresh = new CountDownLatch(1);
+        final Cache<String, Integer> cache = new SimpleCache<String, Integer>(100, -1, 10) {
+            @Override
+            public Integer load(String key) {
+                return loadCount.incrementAndGet();
+            }
+
+            @Override
+            protected Executor getRefreshExecutor() {
+                return command -> {
+                    refreshing.countDown();
+                    try {
+                        rejectRefresh.await();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new RejectedExecutionException("Refresh executor is full");
+                };
+            }
+        };
+
+        Assert.assertEquals(1, cache.get("A").intValue());
+        Thread.sleep(20);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Start a refresh (stale value returned)
+            Future<Integer> refresh = executor.submit(() -> cache.get("A"));
+            refreshing.await();
+
+            // Value expired: wait for the refresh
+            Thread.sleep(100);
+            Future<Integer> expired = executor.submit(() -> cache.get("A"));
+            Thread.sleep(50);
+
+            // Refresh rejected: value should be loaded by the waiting thread
+            rejectRefresh.countDown();
+            Assert.assertEquals(1, refresh.get(1, TimeUnit.SECONDS).intValue());
+            Assert.assertEquals(2, expired.get(1, TimeUnit.SECONDS).intValue());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void expire() throws Exception {
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Cache<String, Integer> cache = new SimpleCache<String, Integer>(20) {
+            @Override
+            public Integer load(String key) {
+                return loadCount.incrementAndGet();
+            }
+        };
+
+        Assert.assertEquals(1, cache.get("A").intValue());
+        Assert.assertEquals(1, cache.get("A").intValue());
+        Thread.sleep(30);
+        Assert.assertNull(cache.getIfPresent("A"));
+        Assert.assertEquals(2, cache.get("A").intValue());
+
+        cache.put("A", 10);
+        Assert.assertEquals(10, cache.get("A").intValue());
+        cache.clear();
+        Assert.assertNull(cache.getIfPresent("A"));
+    }
+
+    @Test
+    public void boundedSize() {
+        final Cache<Integer, Integer> cache = new SimpleCache<Integer, Integer>(60000, 10) {
+            @Override
+            public Integer load(Integer key) {
+                return key;
+            }
+        };
+        cache.get(0);
+        for (int i = 1; i < 100; i++) {
+            cache.get(i);
+            cache.get(0); // keep 0 as most recently used
+        }
+        Assert.assertEquals(10, cache.keySet().size());
+        Assert.assertNotNull(cache.getIfPresent(0));
+        Assert.assertNotNull(cache.getIfPresent(99));
+
+        CacheStats stats = ((SimpleCache<Integer, Integer>) cache).getStats();
+        Assert.assertEquals(90, stats.getEvictionCount());
+        Assert.assertEquals(99 + 2/*getIfPresent*/, stats.getHitCount());
+        Assert.assertEquals(100, stats.getMissCount());
+    }
+}
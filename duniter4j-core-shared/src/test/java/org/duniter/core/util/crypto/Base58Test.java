@@ -0,0 +1,97 @@
+package org.duniter.core.util.crypto;
+
+/*
+ * #%L
+ * UCoin Java :: Core Shared
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+import org.duniter.core.exception.TechnicalException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+public class Base58Test {
+
+    private static final String PUBKEY = "HnFcSms8jzwngtVomTTnzudZx7SHUQY8sVE1y8yBmULk";
+
+    @Test
+    public void encodeAndDecode() throws Exception {
+        Random random = new Random(58);
+        for (int i = 0; i < 2000; i++) {
+            // 32 and 64 bytes keys, and any other length (with leading zeros)
+            int length = i % 3 == 0 ? 32 : (i % 3 == 1 ? 64 : random.nextInt(100));
+            byte[] input = new byte[length];
+            random.nextBytes(input);
+            int zeroCount = length == 0 ? 0 : random.nextInt(Math.min(length, 4) + 1) % 3;
+            for (int j = 0; j < zeroCount; j++) input[j] = 0;
+
+            String expected = encodeWithBigInteger(input);
+            Assert.assertEquals(expected, Base58.encode(input));
+            Assert.assertArrayEquals(input, Base58.decode(expected));
+        }
+
+        Assert.assertEquals("", Base58.encode(new byte[0]));
+        Assert.assertEquals("111", Base58.encode(new byte[3]));
+        Assert.assertArrayEquals(new byte[3], Base58.decode("111"));
+        Assert.assertEquals(PUBKEY, Base58.encode(Base58.decode(PUBKEY)));
+    }
+
+    @Test(expected = AddressFormatException.class)
+    public void decodeIllegalCharacter() throws Exception {
+        Base58.decode("HnFcSms8jzwngtVomTTnzudZx7SHUQY8sVE1y8yBmUL0");
+    }
+
+    @Test
+    public void decodeBase58Cache() throws Exception {
+        byte[] expected = Base58.decode(PUBKEY);
+        byte[] result = CryptoUtils.decodeBase58(PUBKEY);
+        Assert.assertArrayEquals(expected, result);
+
+        // Cached key must not be shared
+        result[0]++;
+        Assert.assertArrayEquals(expected, CryptoUtils.decodeBase58(PUBKEY));
+
+        try {
+            CryptoUtils.decodeBase58("0OIl");
+            Assert.fail();
+        }
+        catch (TechnicalException e) {
+            // OK
+        }
+    }
+
+    /* -- internal methods -- */
+
+    private String encodeWithBigInteger(byte[] input) {
+        StringBuilder sb = new StringBuilder();
+        BigInteger number = new BigInteger(1, input);
+        BigInteger base = BigInteger.valueOf(58);
+        while (number.signum() > 0) {
+            BigInteger[] divMod = number.divideAndRemainder(base);
+            sb.append(Base58.ALPHABET[divMod[1].intValue()]);
+            number = divMod[0];
+        }
+        for (int i = 0; i < input.length && input[i] == 0; i++) {
+            sb.append(Base58.ALPHABET[0]);
+        }
+        return sb.reverse().toString();
+    }
+}
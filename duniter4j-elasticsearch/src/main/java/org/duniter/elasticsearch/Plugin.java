@@ -27,6 +27,7 @@ import org.duniter.elasticsearch.action.RestModule;
 import org.duniter.elasticsearch.node.DuniterNode;
 import org.duniter.elasticsearch.threadpool.ThreadPool;
 import org.duniter.elasticsearch.security.SecurityModule;
+import org.duniter.elasticsearch.service.IndexingService;
 import org.duniter.elasticsearch.service.ServiceModule;
 import org.elasticsearch.common.component.LifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -79,6 +80,7 @@ public class Plugin extends org.elasticsearch.plugins.Plugin {
         }
         components.add(PluginSettings.class);
         components.add(ThreadPool.class);
+        components.add(IndexingService.class);
         components.add(DuniterNode.class);
         return components;
     }
@@ -38,6 +38,9 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.ESLoggerFactory;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.nuiton.config.ApplicationConfig;
 import org.nuiton.config.ApplicationConfigHelper;
 import org.nuiton.config.ApplicationConfigProvider;
@@ -161,6 +164,103 @@ public class PluginSettings extends AbstractLifecycleComponent<PluginSettings> {
         return settings.getAsInt("duniter.bulk.size", 1000);
     }
 
+    public boolean isIndexPipelineEnable() {
+        return settings.getAsBoolean("duniter.bulk.pipeline.enable", false);
+    }
+
+    /**
+     * @return the max number of block ranges waiting between two stages of the pipeline (also the max number of bulk requests in flight)
+     */
+    public int getIndexPipelineDepth() {
+        return settings.getAsInt("duniter.bulk.pipeline.depth", 4);
+    }
+
+    public int getIndexPipelineFetcherCount() {
+        return settings.getAsInt("duniter.bulk.pipeline.fetchers", 2);
+    }
+
+    /**
+     * @return true if blocks should be downloaded from all peers in the same blockchain state, in parallel
+     */
+    public boolean isSyncFromPeersEnable() {
+        return settings.getAsBoolean("duniter.blockchain.sync.peers.enable", false);
+    }
+
+    public int getSyncFromPeersMaxCount() {
+        return settings.getAsInt("duniter.blockchain.sync.peers.max", 10);
+    }
+
+    /**
+     * @return max number of new blocks (received from websocket) waiting to be indexed.
+     * When full, new blocks are dropped, then indexed later by a catch-up
+     */
+    public int getNewBlockQueueSize() {
+        return settings.getAsInt("duniter.blockchain.listen.queue.size", 1000);
+    }
+
+    /**
+     * @return max number of blocks walked back to find the common ancestor of a fork.
+     * A deeper fork is not resolved (blocks are not replaced)
+     */
+    public int getForkMaxDepth() {
+        return settings.getAsInt("duniter.blockchain.fork.depth", 100);
+    }
+
+    /**
+     * @return max size of a bulk request, sent by the indexing engine (default: 5mb)
+     */
+    public ByteSizeValue getIndexBulkMaxBytes() {
+        return settings.getAsBytesSize("duniter.bulk.bytes", new ByteSizeValue(5, ByteSizeUnit.MB));
+    }
+
+    /**
+     * @return max number of bulk requests executed concurrently, by the indexing engine
+     */
+    public int getIndexBulkConcurrentRequests() {
+        return settings.getAsInt("duniter.bulk.concurrent", 2);
+    }
+
+    public TimeValue getIndexBulkFlushInterval() {
+        return settings.getAsTime("duniter.bulk.flush.interval", TimeValue.timeValueSeconds(1));
+    }
+
+    /**
+     * @return initial delay, before retrying a rejected bulk request (then increased exponentially)
+     */
+    public TimeValue getIndexBulkBackoffDelay() {
+        return settings.getAsTime("duniter.bulk.backoff.delay", TimeValue.timeValueMillis(50));
+    }
+
+    public int getIndexBulkBackoffMaxRetry() {
+        return settings.getAsInt("duniter.bulk.backoff.retries", 8);
+    }
+
+    public int getIndexNumberOfShards() {
+        return settings.getAsInt("duniter.index.shards", 1);
+    }
+
+    public int getIndexNumberOfReplicas() {
+        return settings.getAsInt("duniter.index.replicas", 1);
+    }
+
+    /**
+     * @return true if refresh and replicas should be disabled, during a full (or large) blockchain indexation
+     */
+    public boolean isBulkLoadEnable() {
+        return settings.getAsBoolean("duniter.bulk.load.enable", true);
+    }
+
+    /**
+     * @return min number of blocks to index, to start the bulk-load mode (always used when indexing from block #0)
+     */
+    public int getBulkLoadMinBlockCount() {
+        return settings.getAsInt("duniter.bulk.load.threshold", 10000);
+    }
+
+    public boolean isBulkLoadForceMerge() {
+        return settings.getAsBoolean("duniter.bulk.load.forcemerge", false);
+    }
+
     public String getDefaultStringAnalyzer() {
         return settings.get("duniter.string.analyzer", "english");
     }
@@ -127,10 +127,9 @@ public class DuniterNode extends AbstractLifecycleComponent<DuniterNode> {
             // Index (or refresh) node's currency
             injector.getInstance(RegistryService.class).indexCurrencyFromPeer(peer);
 
-            // Index blocks (and listen if new block appear)
+            // Fill holes in blocks index (since last checkpoint), then listen if new block appear
             injector.getInstance(BlockchainService.class)
-                    //.indexLastBlocks(peer)
-                    .listenAndIndexNewBlock(peer);
+                    .catchUpAndListenNewBlock(peer);
 
         }
     }
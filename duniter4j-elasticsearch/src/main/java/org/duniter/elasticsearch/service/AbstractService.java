@@ -44,6 +44,8 @@ import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsReques
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.common.bytes.BytesArray;
@@ -52,8 +54,11 @@ import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.IndexNotFoundException;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -73,6 +78,7 @@ public abstract class AbstractService implements Bean {
     protected final PluginSettings pluginSettings;
     protected final ObjectMapper objectMapper;
     protected final CryptoService cryptoService;
+    protected IndexingService indexingService;
 
     public AbstractService(Client client, PluginSettings pluginSettings, CryptoService cryptoService) {
         this.logger = Loggers.getLogger(getClass());
@@ -90,6 +96,11 @@ public abstract class AbstractService implements Bean {
         this.objectMapper = new ObjectMapper();
     }
 
+    @Inject
+    public void setIndexingService(IndexingService indexingService) {
+        this.indexingService = indexingService;
+    }
+
     /* -- protected methods  -- */
 
     protected boolean existsIndex(String indexes) {
@@ -184,6 +195,80 @@ public abstract class AbstractService implements Bean {
 
 
 
+    /**
+     * Get a document source, using a realtime GET (no search, and no refresh need)
+     * @return the source as JSON, or null if not exists
+     */
+    protected String getSourceAsStringById(String index, String type, String id) {
+        GetResponse response;
+        try {
+            response = client.prepareGet(index, type, id)
+                    .setRealtime(true)
+                    .execute().actionGet();
+        }
+        catch(IndexNotFoundException e) {
+            return null;
+        }
+        if (!response.isExists() || response.isSourceEmpty()) {
+            return null;
+        }
+        return response.getSourceAsString();
+    }
+
+    /**
+     * Get many documents sources, using one realtime multi-get request
+     * @return sources as JSON, in the same order as ids (null if a document not exists)
+     */
+    protected List<String> getSourcesAsStringByIds(String index, String type, List<String> ids) {
+        List<String> result = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return result;
+        }
+        MultiGetRequestBuilder request = client.prepareMultiGet().setRealtime(true);
+        for (String id: ids) {
+            request.add(index, type, id);
+        }
+        for (MultiGetItemResponse item: request.execute().actionGet()) {
+            boolean exists = !item.isFailed() && item.getResponse().isExists() && !item.getResponse().isSourceEmpty();
+            result.add(exists ? item.getResponse().getSourceAsString() : null);
+        }
+        return result;
+    }
+
+    /**
+     * Get a field value, using a realtime GET
+     * @return the field value, or null if index, document (or field) not exists
+     */
+    protected Object getFieldById(String index, String type, String id, String fieldName) {
+        GetResponse response;
+        try {
+            response = client.prepareGet(index, type, id)
+                    .setRealtime(true)
+                    .setFields(fieldName)
+                    .execute().actionGet();
+        }
+        catch(IndexNotFoundException e) {
+            return null;
+        }
+        if (!response.isExists() || response.getField(fieldName) == null) {
+            return null;
+        }
+        return response.getField(fieldName).getValue();
+    }
+
+    protected boolean existsById(String index, String type, String id) {
+        try {
+            return client.prepareGet(index, type, id)
+                    .setRealtime(true)
+                    .setFetchSource(false)
+                    .execute().actionGet()
+                    .isExists();
+        }
+        catch(IndexNotFoundException e) {
+            return false;
+        }
+    }
+
     protected String getIssuer(JsonNode actualObj) {
         return  actualObj.get(Record.PROPERTY_ISSUER).asText();
     }
@@ -289,7 +374,8 @@ public abstract class AbstractService implements Bean {
         }
 
         try {
-            client.bulk(bulkRequest).actionGet();
+            // Send using batches (and not one big bulk request)
+            indexingService.executeBulk(bulkRequest);
         } catch(Exception e) {
             throw new TechnicalException(String.format("[%s] Error while inserting rows into %s", indexName, indexType), e);
         }
@@ -31,8 +31,10 @@ import org.duniter.core.client.model.bma.BlockchainBlock;
 import org.duniter.core.client.model.bma.BlockchainParameters;
 import org.duniter.core.client.model.bma.EndpointProtocol;
 import org.duniter.core.client.model.bma.gson.GsonUtils;
-import org.duniter.core.client.model.bma.gson.JsonAttributeParser;
+import org.duniter.core.client.model.bma.gson.JsonArrayParser;
+import org.duniter.core.client.model.bma.gson.JsonFieldExtractor;
 import org.duniter.core.client.model.local.Peer;
+import org.duniter.core.client.service.HttpService;
 import org.duniter.core.client.service.bma.BlockchainRemoteService;
 import org.duniter.core.client.service.bma.NetworkRemoteService;
 import org.duniter.core.client.service.exception.HttpBadRequestException;
@@ -43,35 +45,57 @@ import org.duniter.core.model.ProgressionModelImpl;
 import org.duniter.core.util.CollectionUtils;
 import org.duniter.core.util.ObjectUtils;
 import org.duniter.core.util.StringUtils;
+import org.duniter.core.util.websocket.WebsocketClientEndpoint;
 import org.duniter.elasticsearch.PluginSettings;
 import org.duniter.elasticsearch.exception.*;
 import org.duniter.elasticsearch.threadpool.ThreadPool;
-import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
 import org.elasticsearch.action.index.IndexRequestBuilder;
-import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.inject.Inject;
-import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.engine.EngineConfig;
+import org.elasticsearch.index.get.GetField;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHitField;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
 import org.elasticsearch.search.aggregations.metrics.max.Max;
 import org.elasticsearch.search.highlight.HighlightField;
 import org.elasticsearch.search.sort.SortOrder;
 import org.nuiton.i18n.I18n;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created by Benoit on 30/03/2015.
@@ -80,9 +104,35 @@ public class BlockchainService extends AbstractService {
 
     public static final String BLOCK_TYPE = "block";
     public static final String CURRENT_BLOCK_ID = "current";
+    public static final String SYNC_TYPE = "sync";
+    public static final String SYNC_CHECKPOINT_ID = "checkpoint";
+    public static final String SYNC_BULK_LOAD_ID = "bulkLoad";
 
     private static final int SYNC_MISSING_BLOCK_MAX_RETRY = 5;
 
+    private static final long PIPELINE_POLL_TIMEOUT_MS = 100;
+
+    private static final long SYNC_PEER_CHECK_TIMEOUT_MS = 10 * 1000; // 10s
+    private static final long SYNC_PEER_STEAL_DELAY_MS = 5 * 1000; // 5s
+    private static final int SYNC_PEER_MAX_ERROR = 3;
+
+    private static final int FORK_WALK_BACK_BATCH_SIZE = 100;
+
+    private static final String INDEX_REFRESH_INTERVAL = "index.refresh_interval";
+    private static final String INDEX_NUMBER_OF_REPLICAS = "index.number_of_replicas";
+
+    // Extractors of block fields (thread-safe, so shared)
+    private static final JsonFieldExtractor BLOCK_NUMBER_EXTRACTOR = new JsonFieldExtractor("number");
+    private static final JsonFieldExtractor BLOCK_HEADER_EXTRACTOR = new JsonFieldExtractor("number", "currency", "hash", "previousHash");
+    private static final int BLOCK_HEADER_NUMBER = 0;
+    private static final int BLOCK_HEADER_CURRENCY = 1;
+    private static final int BLOCK_HEADER_HASH = 2;
+    private static final int BLOCK_HEADER_PREVIOUS_HASH = 3;
+
+    private final ThreadPool threadPool;
+    private final List<ReorgListener> reorgListeners = new CopyOnWriteArrayList<>();
+    // Running bulk-loads, by currency (writes guarded by the map itself)
+    private final Map<String, BulkLoad> bulkLoads = new ConcurrentHashMap<>();
     private BlockchainRemoteService blockchainRemoteService;
     private RegistryService registryService;
 
@@ -92,6 +142,7 @@ public class BlockchainService extends AbstractService {
     public BlockchainService(Client client, PluginSettings settings, ThreadPool threadPool, final ServiceLocator serviceLocator){
         super(client, settings);
         this.gson = GsonUtils.newBuilder().create();
+        this.threadPool = threadPool;
         threadPool.scheduleOnStarted(() -> {
             blockchainRemoteService = serviceLocator.getBlockchainRemoteService();
         });
@@ -102,9 +153,75 @@ public class BlockchainService extends AbstractService {
         this.registryService = registryService;
     }
 
+    /**
+     * Register a listener, notified when a fork has been resolved (blocks replaced by another branch)
+     */
+    public BlockchainService addReorgListener(ReorgListener listener) {
+        reorgListeners.add(listener);
+        return this;
+    }
+
     public BlockchainService listenAndIndexNewBlock(Peer peer){
+        blockchainRemoteService.addNewBlockListener(peer, new NewBlockQueue(peer));
+        return this;
+    }
+
+    /**
+     * Fill all holes in the blocks index (since the last checkpoint), then listen new blocks.
+     * New blocks received during the catch-up are buffered, and indexed when catch-up is finished.
+     * Catch-up is executed asynchronously.
+     */
+    public BlockchainService catchUpAndListenNewBlock(Peer peer) {
+        final Object lock = new Object();
+        final List<String> bufferedBlocks = Lists.newArrayList();
+        final AtomicBoolean catchingUp = new AtomicBoolean(true);
+        final NewBlockQueue newBlockQueue = new NewBlockQueue(peer);
+
+        // Start to listen, before the catch-up, so no block can be lost
         blockchainRemoteService.addNewBlockListener(peer, message -> {
-            indexBlockAsJson(peer, message, true /*refresh*/, true /*wait*/);
+            synchronized (lock) {
+                if (catchingUp.get()) {
+                    bufferedBlocks.add(message);
+                    return;
+                }
+            }
+            newBlockQueue.handleMessage(message);
+        });
+
+        threadPool.execute(() -> {
+            int lastNumber = -1;
+            try {
+                lastNumber = catchUp(peer, new ProgressionModelImpl());
+            }
+            catch(Exception e) {
+                logger.error("Error during blocks catch-up: " + e.getMessage(), e);
+            }
+            finally {
+                // Index buffered blocks, then switch to live mode.
+                // Buffer is swapped under the lock, but indexed outside, so the websocket thread is never blocked
+                boolean complete = true;
+                while (true) {
+                    List<String> blocks;
+                    synchronized (lock) {
+                        if (bufferedBlocks.isEmpty()) {
+                            catchingUp.set(false);
+                            break;
+                        }
+                        blocks = Lists.newArrayList(bufferedBlocks);
+                        bufferedBlocks.clear();
+                    }
+                    try {
+                        complete = indexBufferedBlocks(peer, blocks, lastNumber) && complete;
+                    }
+                    catch(Exception e) {
+                        logger.error("Error while indexing blocks received during catch-up: " + e.getMessage(), e);
+                        complete = false;
+                    }
+                }
+                if (!complete) {
+                    newBlockQueue.catchUpLater();
+                }
+            }
         });
         return this;
     }
@@ -114,8 +231,6 @@ public class BlockchainService extends AbstractService {
     }
 
     public BlockchainService indexLastBlocks(Peer peer, ProgressionModel progressionModel) {
-        boolean bulkIndex = pluginSettings.isIndexBulkEnable();
-
         progressionModel.setStatus(ProgressionModel.Status.RUNNING);
         progressionModel.setTotal(100);
         long timeStart = System.currentTimeMillis();
@@ -163,9 +278,8 @@ public class BlockchainService extends AbstractService {
                     currentBlockNumber = indexedCurrentBlock.getNumber();
 
                     // Previous block could have been not indexed : so start at the max(number)
-                    indexedCurrentBlock = getBlockById(currencyName, currentBlockNumber);
                     // If exists on blockchain, so can use it
-                    if (indexedCurrentBlock != null) {
+                    if (existsById(currencyName, BLOCK_TYPE, String.valueOf(currentBlockNumber))) {
                         startNumber = currentBlockNumber + 1;
                     }
                 }
@@ -176,9 +290,7 @@ public class BlockchainService extends AbstractService {
                 }
 
                 if (startNumber <= maxBlockNumber) {
-                    Collection<String> missingBlocks = bulkIndex
-                            ? indexBlocksUsingBulk(peer, currencyName, startNumber, maxBlockNumber, progressionModel)
-                            : indexBlocksNoBulk(peer, currencyName, startNumber, maxBlockNumber, progressionModel);
+                    Collection<String> missingBlocks = indexBlocks(peer, currencyName, startNumber, maxBlockNumber, progressionModel);
 
                     // If some blocks are missing, try to get it using other peers
                     if (CollectionUtils.isNotEmpty(missingBlocks)) {
@@ -223,6 +335,10 @@ public class BlockchainService extends AbstractService {
         if (!existsIndex(currencyName)) {
             createIndex(currencyName);
         }
+        else {
+            // Repair settings, if a bulk-load has been interrupted (e.g. JVM killed)
+            restoreBulkLoadSettingsIfNeed(currencyName);
+        }
         return this;
     }
 
@@ -231,8 +347,8 @@ public class BlockchainService extends AbstractService {
 
         CreateIndexRequestBuilder createIndexRequestBuilder = client.admin().indices().prepareCreate(currencyName);
         org.elasticsearch.common.settings.Settings indexSettings = org.elasticsearch.common.settings.Settings.settingsBuilder()
-                .put("number_of_shards", 1)
-                .put("number_of_replicas", 1)
+                .put("number_of_shards", pluginSettings.getIndexNumberOfShards())
+                .put("number_of_replicas", pluginSettings.getIndexNumberOfReplicas())
                 //.put("analyzer", createDefaultAnalyzer())
                 .build();
         createIndexRequestBuilder.setSettings(indexSettings);
@@ -245,8 +361,7 @@ public class BlockchainService extends AbstractService {
         ObjectUtils.checkNotNull(block.getCurrency(), "block attribute 'blockchain' could not be null");
         ObjectUtils.checkNotNull(block.getNumber(), "block attribute 'number' could not be null");
 
-        BlockchainBlock existingBlock = getBlockById(block.getCurrency(), block.getNumber());
-        if (existingBlock != null) {
+        if (existsById(block.getCurrency(), BLOCK_TYPE, block.getNumber().toString())) {
             throw new DuplicateIndexIdException(String.format("Block with number [%s] already exists.", block.getNumber()));
         }
 
@@ -266,10 +381,11 @@ public class BlockchainService extends AbstractService {
         ObjectUtils.checkNotNull(block.getNumber(), "block attribute 'number' could not be null");
         ObjectUtils.checkNotNull(block.getHash(), "block attribute 'hash' could not be null");
 
-        BlockchainBlock existingBlock = getBlockById(block.getCurrency(), block.getNumber());
+        // Only the hash is need, to compare
+        Object existingHash = getFieldById(block.getCurrency(), BLOCK_TYPE, block.getNumber().toString(), "hash");
 
         // Currency not exists, or has changed, so create it
-        if (existingBlock == null) {
+        if (existingHash == null) {
             if (logger.isTraceEnabled()) {
                 logger.trace(String.format("Insert new block [%s]", block.getNumber()));
             }
@@ -288,10 +404,10 @@ public class BlockchainService extends AbstractService {
                 }
             }
             else {
-                doUpdate = !StringUtils.equals(existingBlock.getHash(), block.getHash());
+                doUpdate = !StringUtils.equals(existingHash.toString(), block.getHash());
                 if (logger.isTraceEnabled()) {
                     if (doUpdate) {
-                        logger.trace(String.format("Update block [%s]: hash has been changed, old=[%s] new=[%s]", block.getNumber(), existingBlock.getHash(), block.getHash()));
+                        logger.trace(String.format("Update block [%s]: hash has been changed, old=[%s] new=[%s]", block.getNumber(), existingHash, block.getHash()));
                     }
                     else {
                         logger.trace(String.format("Skipping update block [%s]: hash is up to date.", block.getNumber()));
@@ -322,12 +438,11 @@ public class BlockchainService extends AbstractService {
                 .setSource(json);
 
         // Execute indexBlocksFromNode
-        ActionFuture<IndexResponse> futureResponse = indexRequest
-                .setRefresh(true)
-                .execute();
-
-        if (wait) {
-            futureResponse.actionGet();
+        if (!wait) {
+            indexingService.add(indexRequest.request());
+        }
+        else {
+            indexingService.execute(block.getCurrency(), indexRequest);
         }
     }
 
@@ -344,15 +459,15 @@ public class BlockchainService extends AbstractService {
         // Preparing indexBlocksFromNode
         IndexRequestBuilder indexRequest = client.prepareIndex(currencyName, BLOCK_TYPE)
                 .setId(String.valueOf(number))
-                .setRefresh(refresh)
+                .setRefresh(refresh && !isBulkLoadMode(currencyName))
                 .setSource(json);
 
         // Execute indexBlocksFromNode
         if (!wait) {
-            indexRequest.execute();
+            indexingService.add(indexRequest.request());
         }
         else {
-            indexRequest.execute().actionGet();
+            indexingService.execute(currencyName, indexRequest);
         }
     }
 
@@ -366,26 +481,24 @@ public class BlockchainService extends AbstractService {
         ObjectUtils.checkNotNull(json);
         ObjectUtils.checkArgument(json.length() > 0);
 
-        JsonAttributeParser blockNumberParser = new JsonAttributeParser("number");
-        JsonAttributeParser blockCurrencyParser = new JsonAttributeParser("blockchain");
-
-        String currencyName = blockCurrencyParser.getValueAsString(json);
-        int number = blockNumberParser.getValueAsInt(json);
+        JsonFieldExtractor.Values header = BLOCK_HEADER_EXTRACTOR.extract(json);
+        String currencyName = header.getString(BLOCK_HEADER_CURRENCY);
+        int number = header.getInt(BLOCK_HEADER_NUMBER);
 
         logger.info(I18n.t("duniter4j.blockIndexerService.indexBlock", currencyName, peer, number));
 
         // Preparing indexBlocksFromNode
         IndexRequestBuilder indexRequest = client.prepareIndex(currencyName, BLOCK_TYPE)
                 .setId(String.valueOf(number))
-                .setRefresh(refresh)
+                .setRefresh(refresh && !isBulkLoadMode(currencyName))
                 .setSource(json);
 
         // Execute indexBlocksFromNode
         if (!wait) {
-            indexRequest.execute();
+            indexingService.add(indexRequest.request());
         }
         else {
-            indexRequest.execute().actionGet();
+            indexingService.execute(currencyName, indexRequest);
         }
     }
 
@@ -419,29 +532,14 @@ public class BlockchainService extends AbstractService {
         // Preparing indexBlocksFromNode
         IndexRequestBuilder indexRequest = client.prepareIndex(currencyName, BLOCK_TYPE)
                 .setId(CURRENT_BLOCK_ID)
-                .setRefresh(true)
                 .setSource(currentBlockJson);
 
-        // Execute indexBlocksFromNode
+        // Execute indexBlocksFromNode (rejected requests are retried by the indexing service)
         if (!wait) {
-            boolean acceptedInPool = false;
-            while(!acceptedInPool)
-                try {
-                    indexRequest.execute();
-                    acceptedInPool = true;
-                }
-                catch(EsRejectedExecutionException e) {
-                    // not accepted, so wait
-                    try {
-                        Thread.sleep(1000); // 1s
-                    }
-                    catch(InterruptedException e2) {
-                        // silent
-                    }
-                }
-
-        } else {
-            indexRequest.execute().actionGet();
+            indexingService.add(indexRequest.request());
+        }
+        else {
+            indexingService.execute(currencyName, indexRequest);
         }
     }
 
@@ -505,6 +603,73 @@ public class BlockchainService extends AbstractService {
                 : (int)result.getValue();
     }
 
+    /**
+     * Find all blocks not indexed, between the two given numbers (inclusive).
+     * Use a histogram aggregation on <code>number</code> (one bucket by bulk), then a detailed histogram on incomplete buckets.
+     * @return missing blocks (number or range), in ascending order
+     */
+    public List<String> findMissingBlocks(String currencyName, int firstNumber, int lastNumber) {
+        List<String> result = Lists.newArrayList();
+        if (firstNumber > lastNumber) {
+            return result;
+        }
+
+        int interval = Math.max(1, pluginSettings.getIndexBulkSize());
+        for (Histogram.Bucket bucket: getBlockNumberHistogram(currencyName, firstNumber, lastNumber, interval).getBuckets()) {
+            int bucketFirstNumber = Math.max(firstNumber, ((Number)bucket.getKey()).intValue());
+            int bucketLastNumber = Math.min(lastNumber, ((Number)bucket.getKey()).intValue() + interval - 1);
+            long expectedCount = bucketLastNumber - bucketFirstNumber + 1;
+            if (bucket.getDocCount() >= expectedCount) {
+                continue;
+            }
+
+            // Whole bucket is missing
+            if (bucket.getDocCount() == 0) {
+                addMissingBlocks(result, bucketFirstNumber, bucketLastNumber);
+                continue;
+            }
+
+            // Some blocks are missing: find them, one by one
+            for (Histogram.Bucket subBucket: getBlockNumberHistogram(currencyName, bucketFirstNumber, bucketLastNumber, 1).getBuckets()) {
+                if (subBucket.getDocCount() == 0) {
+                    int number = ((Number)subBucket.getKey()).intValue();
+                    addMissingBlocks(result, number, number);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the number of the last block, such as all previous blocks has been indexed
+     * @return -1 if no checkpoint exists
+     */
+    public int getCheckpointNumber(String currencyName) {
+        GetResponse response = client.prepareGet(currencyName, SYNC_TYPE, SYNC_CHECKPOINT_ID)
+                .setFields("number")
+                .execute().actionGet();
+        if (!response.isExists() || response.getField("number") == null) {
+            return -1;
+        }
+        return ((Number)response.getField("number").getValue()).intValue();
+    }
+
+    public void saveCheckpointNumber(String currencyName, int number) {
+        try {
+            XContentBuilder source = XContentFactory.jsonBuilder()
+                    .startObject()
+                    .field("number", number)
+                    .field("time", System.currentTimeMillis())
+                    .endObject();
+            indexingService.execute(currencyName, client.prepareIndex(currencyName, SYNC_TYPE, SYNC_CHECKPOINT_ID)
+                    .setSource(source));
+        }
+        catch(IOException e) {
+            throw new TechnicalException(String.format("Unable to save checkpoint of index [%s]", currencyName), e);
+        }
+    }
+
     public BlockchainBlock getBlockById(String currencyName, int number) {
         return getBlockByIdStr(currencyName, String.valueOf(number));
     }
@@ -513,6 +678,24 @@ public class BlockchainService extends AbstractService {
         return getBlockByIdStr(currencyName, CURRENT_BLOCK_ID);
     }
 
+    /**
+     * Get many blocks, using one realtime multi-get request
+     * @return blocks, in the same order as the given numbers (null if a block is not indexed)
+     */
+    public List<BlockchainBlock> getBlocksByIds(String currencyName, int[] numbers) {
+        List<String> ids = Lists.newArrayListWithCapacity(numbers.length);
+        for (int number: numbers) {
+            ids.add(String.valueOf(number));
+        }
+
+        List<String> sources = getSourcesAsStringByIds(currencyName, BLOCK_TYPE, ids);
+        List<BlockchainBlock> result = Lists.newArrayListWithCapacity(numbers.length);
+        for (int i = 0; i < numbers.length; i++) {
+            result.add(toBlock(currencyName, ids.get(i), sources.get(i)));
+        }
+        return result;
+    }
+
     /* -- Internal methods -- */
 
 
@@ -563,31 +746,22 @@ public class BlockchainService extends AbstractService {
     }
 
     public BlockchainBlock getBlockByIdStr(String currencyName, String blockId) {
+        return toBlock(currencyName, blockId, getSourceAsStringById(currencyName, BLOCK_TYPE, blockId));
+    }
 
-        // Prepare request
-        SearchRequestBuilder searchRequest = client
-                .prepareSearch(currencyName)
-                .setTypes(BLOCK_TYPE)
-                .setSearchType(SearchType.DFS_QUERY_THEN_FETCH);
-
-        // If more than a word, search on terms match
-        searchRequest.setQuery(QueryBuilders.matchQuery("_id", blockId));
-
-        // Execute query
+    protected BlockchainBlock toBlock(String currencyName, String blockId, String json) {
+        if (json == null) {
+            return null;
+        }
         try {
-            SearchResponse searchResponse = searchRequest.execute().actionGet();
-            List<BlockchainBlock> currencies = toBlocks(searchResponse, false);
-            if (CollectionUtils.isEmpty(currencies)) {
-                return null;
-            }
-
-            // Return the unique result
-            return CollectionUtils.extractSingleton(currencies);
+            return gson.fromJson(json, BlockchainBlock.class);
         }
-        catch(JsonSyntaxException e) {
+        catch(Exception e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Error while parsing block from JSON:\n" + json);
+            }
             throw new TechnicalException(String.format("Error while getting indexed block #%s for blockchain [%s]", blockId, currencyName), e);
         }
-
     }
 
     protected List<BlockchainBlock> toBlocks(SearchResponse response, boolean withHighlight) {
@@ -648,13 +822,13 @@ public class BlockchainService extends AbstractService {
             }
 
             try {
-                String blockAsJson = blockchainRemoteService.getBlockAsJson(peer, curNumber);
-                indexBlockAsJson(currencyName, curNumber, blockAsJson.getBytes(), false, true /*wait*/);
+                byte[] blockAsBytes = blockchainRemoteService.getBlockAsBytes(peer, curNumber);
+                indexBlockAsJson(currencyName, curNumber, blockAsBytes, false, true /*wait*/);
 
                 // If last block
                 if (curNumber == lastNumber - 1) {
                     // update the current block
-                    indexCurrentBlockAsJson(currencyName, blockAsJson, true /*wait*/);
+                    indexCurrentBlockAsJson(currencyName, new String(blockAsBytes, StandardCharsets.UTF_8), true /*wait*/);
                 }
             }
             catch(Throwable t) {
@@ -673,7 +847,6 @@ public class BlockchainService extends AbstractService {
 
         int batchSize = pluginSettings.getIndexBulkSize();
         String currentBlockJson = null;
-        JsonAttributeParser blockNumberParser = new JsonAttributeParser("number");
 
         for (int batchFirstNumber = firstNumber; batchFirstNumber < lastNumber; ) {
             // Check if stop (e.g. ask by user)
@@ -685,9 +858,25 @@ public class BlockchainService extends AbstractService {
                 return missingBlockNumbers;
             }
 
-            String[] blocksAsJson = null;
+            // Stream blocks (as bytes) directly into the bulk request.
+            // Blocks are returned in ascending order, starting at 'batchFirstNumber', so the id is the position
+            final BulkRequestBuilder bulkRequest = client.prepareBulk();
+            final int requestFirstNumber = batchFirstNumber;
+            final AtomicInteger receivedCount = new AtomicInteger(0);
+            final AtomicReference<String> lastBlockJson = new AtomicReference<>();
             try {
-                blocksAsJson = blockchainRemoteService.getBlocksAsJson(peer, batchSize, batchFirstNumber);
+                blockchainRemoteService.streamBlocksAsJson(peer, batchSize, requestFirstNumber, (bytes, offset, length) -> {
+                    int itemNumber = requestFirstNumber + receivedCount.getAndIncrement();
+                    bulkRequest.add(client.prepareIndex(currencyName, BLOCK_TYPE, String.valueOf(itemNumber))
+                            .setRefresh(false)
+                            .setSource(new BytesArray(bytes, offset, length))
+                    );
+
+                    // If last block : also update the current block
+                    if (itemNumber == lastNumber) {
+                        lastBlockJson.set(new String(bytes, offset, length, StandardCharsets.UTF_8));
+                    }
+                });
             } catch(HttpBadRequestException e) {
                 if (logger.isDebugEnabled()) {
                     logger.debug(String.format("Error while getting blocks from #%s (count=%s): %s. Skipping blocks.", batchFirstNumber, batchSize, e.getMessage()));
@@ -695,7 +884,7 @@ public class BlockchainService extends AbstractService {
             }
 
             // Peer send no blocks
-            if (CollectionUtils.isEmpty(blocksAsJson)) {
+            if (receivedCount.get() == 0) {
 
                 // Add range to missing blocks
                 missingBlockNumbers.add(batchFirstNumber + "-" + (batchFirstNumber+batchSize));
@@ -706,36 +895,16 @@ public class BlockchainService extends AbstractService {
 
             // Process received blocks
             else {
-
-                List<Integer> processedBlockNumbers = Lists.newArrayList();
-                BulkRequestBuilder bulkRequest = client.prepareBulk();
-                for (String blockAsJson : blocksAsJson) {
-                    int itemNumber = blockNumberParser.getValueAsInt(blockAsJson);
-
-                    // update curNumber with max number;
-                    if (itemNumber > batchFirstNumber) {
-                        batchFirstNumber = itemNumber;
-                    }
-
-                    if (!processedBlockNumbers.contains(itemNumber)) {
-                        // Add to bulk
-                        bulkRequest.add(client.prepareIndex(currencyName, BLOCK_TYPE, String.valueOf(itemNumber))
-                                .setRefresh(false)
-                                .setSource(blockAsJson)
-                        );
-                        processedBlockNumbers.add(itemNumber);
-                    }
-
-                    // If last block : also update the current block
-                    if (itemNumber == lastNumber) {
-                        currentBlockJson = blockAsJson;
-                    }
+                // update curNumber with max number;
+                batchFirstNumber += receivedCount.get() - 1;
+                if (lastBlockJson.get() != null) {
+                    currentBlockJson = lastBlockJson.get();
                 }
 
                 if (bulkRequest.numberOfActions() > 0) {
 
                     // Flush the bulk if not empty
-                    BulkResponse bulkResponse = bulkRequest.get();
+                    BulkResponse bulkResponse = indexingService.executeBulk(bulkRequest);
 
                     // If failures, continue but save missing blocks
                     if (bulkResponse.hasFailures()) {
@@ -769,137 +938,1370 @@ public class BlockchainService extends AbstractService {
     }
 
     /**
-     * Get blocks from other peers.
-     * WARNING: given list must be ordered (with ascending order)
-     * @param peer
-     * @param currentBlock
-     * @param sortedMissingBlocks
-     * @param tryCounter
+     * Index blocks using a pipeline of 3 stages, linked by bounded queues:
+     * <ul>
+     *     <li>fetch: some fetchers threads download block ranges from the peer;</li>
+     *     <li>split: a unique thread split each range into blocks, and prepare a bulk request;</li>
+     *     <li>index: the caller thread send bulk requests asynchronously, and wait until all requests are processed.</li>
+     * </ul>
+     * Pipeline depth (queues capacity, and max bulk requests in flight) and fetchers count come from plugin settings.
+     * @return missing blocks (number or range)
      */
-    protected Collection<String> indexMissingBlocksFromOtherPeers(Peer peer, BlockchainBlock currentBlock, Collection<String> sortedMissingBlocks, int tryCounter) {
-        ObjectUtils.checkNotNull(peer);
-        ObjectUtils.checkNotNull(currentBlock);
-        ObjectUtils.checkNotNull(currentBlock.getHash());
-        ObjectUtils.checkNotNull(currentBlock.getNumber());
-        ObjectUtils.checkArgument(CollectionUtils.isNotEmpty(sortedMissingBlocks));
-        ObjectUtils.checkArgument(tryCounter >= 1);
-
-        NetworkRemoteService networkRemoteService = ServiceLocator.instance().getNetworkRemoteService();
-        BlockchainRemoteService blockchainRemoteService = ServiceLocator.instance().getBlockchainRemoteService();
-        String currencyName = currentBlock.getCurrency();
-        boolean debug = logger.isDebugEnabled();
-
-        Set<String> newMissingBlocks = new LinkedHashSet<>();
-        newMissingBlocks.addAll(sortedMissingBlocks);
-
-        if (debug) {
-            logger.debug(String.format("Missing blocks are: %s", newMissingBlocks.toString()));
+    public Collection<String> indexBlocksUsingPipeline(Peer peer, String currencyName, int firstNumber, int lastNumber, ProgressionModel progressionModel) {
+        final Set<String> missingBlockNumbers = Collections.synchronizedSet(new LinkedHashSet<>());
+
+        final boolean debug = logger.isDebugEnabled();
+        final int batchSize = pluginSettings.getIndexBulkSize();
+        final int depth = Math.max(1, pluginSettings.getIndexPipelineDepth());
+        final int fetcherCount = Math.max(1, pluginSettings.getIndexPipelineFetcherCount());
+
+        final BlockingQueue<PipelineRange> fetchedRanges = new ArrayBlockingQueue<>(depth);
+        final BlockingQueue<PipelineRange> splitRanges = new ArrayBlockingQueue<>(depth);
+        final Semaphore bulkInFlight = new Semaphore(depth);
+        final AtomicInteger nextRangeFirstNumber = new AtomicInteger(firstNumber);
+        final AtomicInteger runningFetcherCount = new AtomicInteger(fetcherCount);
+        final AtomicInteger processedBlockCount = new AtomicInteger(0);
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        final AtomicReference<String> currentBlockJson = new AtomicReference<>();
+
+        // Stage 1: fetch ranges
+        for (int i = 0; i < fetcherCount; i++) {
+            threadPool.execute(() -> {
+                try {
+                    int rangeFirstNumber = nextRangeFirstNumber.getAndAdd(batchSize);
+                    while (!stopped.get() && rangeFirstNumber <= lastNumber) {
+                        int count = Math.min(batchSize, lastNumber - rangeFirstNumber + 1);
+                        PipelineRange range = new PipelineRange(rangeFirstNumber, count);
+                        try {
+                            range.json = blockchainRemoteService.getBlocksAsJsonArray(peer, count, rangeFirstNumber);
+                        } catch(TechnicalException e) {
+                            if (debug) {
+                                logger.debug(String.format("Error while getting blocks from #%s (count=%s): %s. Skipping blocks.", rangeFirstNumber, count, e.getMessage()));
+                            }
+                        }
+                        if (!offerUntilStopped(fetchedRanges, range, stopped)) {
+                            break;
+                        }
+                        rangeFirstNumber = nextRangeFirstNumber.getAndAdd(batchSize);
+                    }
+                }
+                finally {
+                    // Last fetcher: notify the next stage
+                    if (runningFetcherCount.decrementAndGet() == 0) {
+                        offerUntilStopped(fetchedRanges, PipelineRange.END, stopped);
+                    }
+                }
+            });
         }
 
-        // Select other peers, in filtering on the same blockchain version
-
-        // TODO : a activer quand les peers seront bien mis à jour (UP/DOWN, block, hash...)
-        //List<Peer> otherPeers = networkRemoteService.findPeers(peer, "UP", EndpointProtocol.BASIC_MERKLED_API,
-        //        currentBlock.getNumber(), currentBlock.getHash());
-        List<Peer> otherPeers = networkRemoteService.findPeers(peer, null, EndpointProtocol.BASIC_MERKLED_API,
-                null, null);
-
-        for(Peer childPeer: otherPeers) {
-            if (logger.isInfoEnabled()) {
-                logger.info(String.format("[%s] Trying to get missing blocks from other peer [%s]...", currencyName, childPeer));
-            }
+        // Stage 2: split ranges into blocks, and prepare bulk requests
+        threadPool.execute(() -> {
+            JsonArrayParser arrayParser = new JsonArrayParser();
+            JsonFieldExtractor.Values blockNumber = BLOCK_NUMBER_EXTRACTOR.newValues();
             try {
-                for(String blockNumberStr: ImmutableSet.copyOf(sortedMissingBlocks)) {
-
-                    boolean isBlockRange = blockNumberStr.indexOf('-') != -1;
-
-                    // Get using bulk
-                    if (isBlockRange) {
-                        String[] rangeParts = blockNumberStr.split("-");
-                        int firstNumber = Integer.parseInt(rangeParts[0]);
-                        int lastNumber = Integer.parseInt(rangeParts[1]);
-
-                        // Remove current blocks range
-                        newMissingBlocks.remove(blockNumberStr);
-
-                        Collection<String> bulkMissingBlocks = indexBlocksUsingBulk(childPeer, currencyName, firstNumber, lastNumber, new ProgressionModelImpl());
+                PipelineRange range = pollUntilStopped(fetchedRanges, stopped);
+                while (range != null && range != PipelineRange.END) {
+                    try {
+                        String[] blocksAsJson = StringUtils.isBlank(range.json) ? null : arrayParser.getValuesAsArray(range.json);
+                        range.json = null; // free memory
 
-                        // Re add if new missing blocks
-                        if (CollectionUtils.isNotEmpty(bulkMissingBlocks)) {
-                            newMissingBlocks.addAll(bulkMissingBlocks);
+                        // Peer send no blocks: add range to missing blocks
+                        if (CollectionUtils.isEmpty(blocksAsJson)) {
+                            missingBlockNumbers.add(range.toString());
                         }
-                    }
+                        else {
+                            Set<Integer> processedBlockNumbers = new HashSet<>(blocksAsJson.length);
+                            range.bulkRequest = client.prepareBulk();
+                            for (String blockAsJson : blocksAsJson) {
+                                int itemNumber = BLOCK_NUMBER_EXTRACTOR.extract(blockAsJson, blockNumber).getInt(0);
+                                if (processedBlockNumbers.add(itemNumber)) {
+                                    range.bulkRequest.add(client.prepareIndex(currencyName, BLOCK_TYPE, String.valueOf(itemNumber))
+                                            .setRefresh(false)
+                                            .setSource(blockAsJson));
+                                }
 
-                    // Get blocks one by one
-                    else {
-                        int blockNumber = Integer.parseInt(blockNumberStr);
-                        String blockAsJson = blockchainRemoteService.getBlockAsJson(childPeer, blockNumber);
-                        if (StringUtils.isNotBlank(blockAsJson)) {
-                            if (debug) {
-                                logger.debug(String.format("Found missing block #%s on peer [%s].", blockNumber, childPeer));
+                                // If last block : keep it, to update the current block
+                                if (itemNumber == lastNumber) {
+                                    currentBlockJson.set(blockAsJson);
+                                }
                             }
+                        }
+                    }
+                    catch(Exception e) {
+                        logger.warn(String.format("Error while reading blocks from #%s (count=%s): %s. Skipping blocks.", range.firstNumber, range.count, e.getMessage()));
+                        range.bulkRequest = null;
+                        missingBlockNumbers.add(range.toString());
+                    }
 
-                            // Index the missing block
-                            indexBlockAsJson(currencyName, blockNumber, blockAsJson.getBytes(), false, true/*wait*/);
+                    if (!offerUntilStopped(splitRanges, range, stopped)) {
+                        return;
+                    }
+                    range = pollUntilStopped(fetchedRanges, stopped);
+                }
+            }
+            finally {
+                offerUntilStopped(splitRanges, PipelineRange.END, stopped);
+            }
+        });
 
-                            // Remove this block number from the final missing list
-                            newMissingBlocks.remove(blockNumber);
-                        }
+        // Stage 3: send bulk requests (asynchronously)
+        try {
+            while (true) {
+                // Check if stop (e.g. ask by user)
+                if (progressionModel.isCancel()) {
+                    stopped.set(true);
+                    progressionModel.setStatus(ProgressionModel.Status.STOPPED);
+                    if (logger.isInfoEnabled()) {
+                        logger.info(I18n.t("duniter4j.blockIndexerService.indexLastBlocks.stopped", currencyName, peer.getUrl()));
                     }
+                    break;
                 }
 
-                if (CollectionUtils.isEmpty(newMissingBlocks)) {
+                PipelineRange range = splitRanges.poll(PIPELINE_POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (range == PipelineRange.END) {
                     break;
                 }
+                if (range == null) {
+                    continue;
+                }
 
-                // Update the list, for the next iteration
-                sortedMissingBlocks =  newMissingBlocks;
-            }
-            catch(TechnicalException e) {
-                if (debug) {
-                    logger.debug(String.format("Error while getting blocks from peer [%s]: %s. Skipping this peer.", childPeer), e.getMessage());
+                // Nothing to index (e.g. missing blocks)
+                if (range.bulkRequest == null || range.bulkRequest.numberOfActions() == 0) {
+                    processedBlockCount.addAndGet(range.count);
                 }
+                else {
+                    bulkInFlight.acquire();
+                    indexingService.executeBulkAsync(range.bulkRequest, new ActionListener<BulkResponse>() {
+                        @Override
+                        public void onResponse(BulkResponse bulkResponse) {
+                            try {
+                                // If failures, continue but save missing blocks
+                                if (bulkResponse.hasFailures()) {
+                                    for (BulkItemResponse itemResponse : bulkResponse) {
+                                        if (itemResponse.isFailed()) {
+                                            if (debug) {
+                                                logger.debug(String.format("Error while indexing block #%s: %s. Skipping this block.", itemResponse.getId(), itemResponse.getFailureMessage()));
+                                            }
+                                            missingBlockNumbers.add(itemResponse.getId());
+                                        }
+                                    }
+                                }
+                            }
+                            finally {
+                                processedBlockCount.addAndGet(range.count);
+                                bulkInFlight.release();
+                            }
+                        }
 
-                continue; // skip this peer
-            }
-        }
+                        @Override
+                        public void onFailure(Throwable e) {
+                            logger.warn(String.format("Error while indexing blocks from #%s (count=%s): %s. Skipping blocks.", range.firstNumber, range.count, e.getMessage()));
+                            missingBlockNumbers.add(range.toString());
+                            processedBlockCount.addAndGet(range.count);
+                            bulkInFlight.release();
+                        }
+                    });
+                }
 
+                // Report progress
+                reportIndexBlocksProgress(progressionModel, currencyName, peer, firstNumber, lastNumber,
+                        Math.min(lastNumber, firstNumber + processedBlockCount.get()));
+            }
 
-        if (CollectionUtils.isEmpty(newMissingBlocks)) {
-            return null;
+            // Wait end of all bulk requests
+            bulkInFlight.acquire(depth);
+            bulkInFlight.release(depth);
+        }
+        catch(InterruptedException e) {
+            stopped.set(true);
+            progressionModel.setStatus(ProgressionModel.Status.STOPPED);
+            return missingBlockNumbers;
+        }
+        finally {
+            // Make sure other stages will stop
+            stopped.set(true);
         }
 
-        tryCounter++;
-        if (tryCounter >= SYNC_MISSING_BLOCK_MAX_RETRY) {
-            // Max retry : stop here
-            logger.error("Some blocks are still missing, after %s try: %s", SYNC_MISSING_BLOCK_MAX_RETRY, newMissingBlocks.toArray(new String[0]));
-            return newMissingBlocks;
+        if (!progressionModel.isCancel() && StringUtils.isNotBlank(currentBlockJson.get())) {
+            indexCurrentBlockAsJson(currencyName, currentBlockJson.get(), false);
         }
 
-        if (debug) {
-            logger.debug("Some blocks are still missing: %s. Will retry later (%s/%s)...", newMissingBlocks.toArray(new String[0]), tryCounter, SYNC_MISSING_BLOCK_MAX_RETRY);
+        return missingBlockNumbers;
+    }
+
+    /**
+     * Index blocks, using the synchronization method defined in settings (bulk, pipeline, multi-peers...)
+     * @return missing blocks (number or range)
+     */
+    protected Collection<String> indexBlocks(Peer peer, String currencyName, int firstNumber, int lastNumber, ProgressionModel progressionModel) {
+        // Full sync, or large gap: use the bulk-load mode
+        boolean bulkLoad = isBulkLoadNeed(firstNumber == 0, lastNumber - firstNumber + 1);
+        if (!bulkLoad) {
+            return indexBlocksUsingMethod(peer, currencyName, firstNumber, lastNumber, progressionModel);
         }
+
+        startBulkLoad(currencyName);
         try {
-            Thread.sleep(60 *1000); // wait 1 min
+            return indexBlocksUsingMethod(peer, currencyName, firstNumber, lastNumber, progressionModel);
+        }
+        finally {
+            // Always restore settings (even if cancelled or failed)
+            stopBulkLoad(currencyName, !progressionModel.isCancel() && pluginSettings.isBulkLoadForceMerge());
+        }
+    }
 
+    protected Collection<String> indexBlocksUsingMethod(Peer peer, String currencyName, int firstNumber, int lastNumber, ProgressionModel progressionModel) {
+        if (!pluginSettings.isIndexBulkEnable()) {
+            return indexBlocksNoBulk(peer, currencyName, firstNumber, lastNumber, progressionModel);
         }
-        catch (InterruptedException e) {
-            return null; // stop here
+        if (pluginSettings.isSyncFromPeersEnable()) {
+            return indexBlocksFromPeers(peer, currencyName, firstNumber, lastNumber, progressionModel);
         }
+        if (pluginSettings.isIndexPipelineEnable()) {
+            return indexBlocksUsingPipeline(peer, currencyName, firstNumber, lastNumber, progressionModel);
+        }
+        return indexBlocksUsingBulk(peer, currencyName, firstNumber, lastNumber, progressionModel);
+    }
 
-        // retrying, with the new new blockchain
-        BlockchainBlock newCurrentBlock =  blockchainRemoteService.getCurrentBlock(peer);
-        return indexMissingBlocksFromOtherPeers(peer, newCurrentBlock, newMissingBlocks, tryCounter);
+    /**
+     * @return true if the bulk-load mode should be used, to index the given number of blocks
+     */
+    protected boolean isBulkLoadNeed(boolean fromFirstBlock, int blockCount) {
+        return pluginSettings.isBulkLoadEnable()
+                && (fromFirstBlock || blockCount >= pluginSettings.getBulkLoadMinBlockCount());
     }
 
-    protected void reportIndexBlocksProgress(ProgressionModel progressionModel, String currencyName, Peer peer, int firstNumber, int lastNumber, int curNumber) {
-        int pct = (curNumber - firstNumber) * 100 / (lastNumber - firstNumber);
-        progressionModel.setCurrent(pct);
+    public boolean isBulkLoadMode(String currencyName) {
+        return bulkLoads.containsKey(currencyName);
+    }
 
-        progressionModel.setMessage(I18n.t("duniter4j.blockIndexerService.indexLastBlocks.progress", currencyName, peer, curNumber, lastNumber, pct));
-        if (logger.isInfoEnabled()) {
+    /**
+     * Disable refresh and replicas on the index, to speed up a massive indexation.
+     * Bulk-loads on the same index can overlap: only the first one changes settings, and only the last one restores them.
+     * Original settings are also saved in the index, to be restored after a crash (see {@link #restoreBulkLoadSettingsIfNeed(String)}).
+     */
+    protected void startBulkLoad(String currencyName) {
+        synchronized (bulkLoads) {
+            BulkLoad bulkLoad = bulkLoads.get(currencyName);
+            if (bulkLoad != null) {
+                bulkLoad.count++;
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("[%s] Bulk-load mode already started (%s running)", currencyName, bulkLoad.count));
+                }
+                return;
+            }
+
+            Map<String, String> originalSettings = getBulkLoadOriginalSettings(currencyName);
+            saveBulkLoadOriginalSettings(currencyName, originalSettings);
+
+            if (logger.isInfoEnabled()) {
+                logger.info(String.format("[%s] Starting bulk-load mode (refresh and replicas disabled)", currencyName));
+            }
+            client.admin().indices().prepareUpdateSettings(currencyName)
+                    .setSettings(org.elasticsearch.common.settings.Settings.settingsBuilder()
+                            .put(INDEX_REFRESH_INTERVAL, "-1")
+                            .put(INDEX_NUMBER_OF_REPLICAS, 0)
+                            .build())
+                    .execute().actionGet();
+            bulkLoads.put(currencyName, new BulkLoad(originalSettings));
+        }
+    }
+
+    /**
+     * Restore index settings changed by the bulk-load mode, then refresh (and optionally force merge) the index.
+     * Do nothing (except decrementing the counter) if another bulk-load is still running on the index.
+     */
+    protected void stopBulkLoad(String currencyName, boolean forceMerge) {
+        BulkLoad bulkLoad;
+        synchronized (bulkLoads) {
+            bulkLoad = bulkLoads.get(currencyName);
+            if (bulkLoad == null) {
+                return;
+            }
+            if (--bulkLoad.count > 0) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("[%s] Bulk-load still running (%s): settings not restored yet", currencyName, bulkLoad.count));
+                }
+                return;
+            }
+        }
+
+        // Send pending async requests, before to restore refresh (outside the lock, as flush can be long)
+        try {
+            indexingService.flush();
+        }
+        catch(Exception e) {
+            logger.error(String.format("[%s] Error while flushing pending requests, after bulk-load: %s", currencyName, e.getMessage()), e);
+        }
+
+        synchronized (bulkLoads) {
+            // A new bulk-load started during the flush: keep the bulk-load settings
+            if (bulkLoad.count > 0) {
+                return;
+            }
+
+            try {
+                restoreBulkLoadSettings(currencyName, bulkLoad.originalSettings);
+            }
+            catch(Exception e) {
+                // Settings will be restored at next start (original settings are still saved in the index)
+                logger.error(String.format("[%s] Error while restoring index settings, after bulk-load: %s", currencyName, e.getMessage()), e);
+                return;
+            }
+            finally {
+                bulkLoads.remove(currencyName);
+                if (logger.isInfoEnabled()) {
+                    logger.info(String.format("[%s] Bulk-load mode stopped", currencyName));
+                }
+            }
+        }
+
+        try {
+            client.admin().indices().prepareRefresh(currencyName).execute().actionGet();
+
+            if (forceMerge) {
+                if (logger.isInfoEnabled()) {
+                    logger.info(String.format("[%s] Force merge of index segments...", currencyName));
+                }
+                client.admin().indices().prepareForceMerge(currencyName).setMaxNumSegments(1).execute().actionGet();
+            }
+        }
+        catch(Exception e) {
+            logger.error(String.format("[%s] Error while refreshing index, after bulk-load: %s", currencyName, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Restore the settings saved by an interrupted bulk-load.
+     * Do nothing if a bulk-load is running.
+     */
+    public void restoreBulkLoadSettingsIfNeed(String currencyName) {
+        synchronized (bulkLoads) {
+            if (bulkLoads.containsKey(currencyName)) {
+                return;
+            }
+            Map<String, String> savedSettings = getSavedBulkLoadOriginalSettings(currencyName);
+            if (savedSettings == null) {
+                return;
+            }
+
+            logger.warn(String.format("[%s] Previous bulk-load has been interrupted: restoring index settings", currencyName));
+            restoreBulkLoadSettings(currencyName, savedSettings);
+        }
+    }
+
+    /**
+     * Apply the original settings, then remove the saved settings.
+     * A null value means the setting was not set on the index: ES 2.x cannot unset an index setting, so its default value is applied.
+     */
+    protected void restoreBulkLoadSettings(String currencyName, Map<String, String> originalSettings) {
+        String refreshInterval = originalSettings.get(INDEX_REFRESH_INTERVAL);
+        String replicas = originalSettings.get(INDEX_NUMBER_OF_REPLICAS);
+        client.admin().indices().prepareUpdateSettings(currencyName)
+                .setSettings(org.elasticsearch.common.settings.Settings.settingsBuilder()
+                        .put(INDEX_REFRESH_INTERVAL, refreshInterval != null ? refreshInterval : EngineConfig.DEFAULT_REFRESH_INTERVAL.toString())
+                        .put(INDEX_NUMBER_OF_REPLICAS, replicas != null ? replicas : String.valueOf(pluginSettings.getIndexNumberOfReplicas()))
+                        .build())
+                .execute().actionGet();
+        client.prepareDelete(currencyName, SYNC_TYPE, SYNC_BULK_LOAD_ID).execute().actionGet();
+    }
+
+    /**
+     * @return the settings to restore after a bulk-load: the saved ones if any (interrupted bulk-load),
+     * or the current ones (e.g. a refresh disabled by an administrator is kept)
+     */
+    protected Map<String, String> getBulkLoadOriginalSettings(String currencyName) {
+        Map<String, String> savedSettings = getSavedBulkLoadOriginalSettings(currencyName);
+        if (savedSettings != null) {
+            return savedSettings;
+        }
+
+        GetSettingsResponse response = client.admin().indices().prepareGetSettings(currencyName).execute().actionGet();
+        Map<String, String> result = new HashMap<>();
+        result.put(INDEX_REFRESH_INTERVAL, response.getSetting(currencyName, INDEX_REFRESH_INTERVAL));
+        result.put(INDEX_NUMBER_OF_REPLICAS, response.getSetting(currencyName, INDEX_NUMBER_OF_REPLICAS));
+        return result;
+    }
+
+    protected Map<String, String> getSavedBulkLoadOriginalSettings(String currencyName) {
+        GetResponse response = client.prepareGet(currencyName, SYNC_TYPE, SYNC_BULK_LOAD_ID)
+                .setFields("refreshInterval", "numberOfReplicas")
+                .execute().actionGet();
+        if (!response.isExists()) {
+            return null;
+        }
+        Map<String, String> result = new HashMap<>();
+        result.put(INDEX_REFRESH_INTERVAL, getFieldAsString(response, "refreshInterval"));
+        result.put(INDEX_NUMBER_OF_REPLICAS, getFieldAsString(response, "numberOfReplicas"));
+        return result;
+    }
+
+    protected void saveBulkLoadOriginalSettings(String currencyName, Map<String, String> originalSettings) {
+        try {
+            XContentBuilder source = XContentFactory.jsonBuilder()
+                    .startObject()
+                    .field("refreshInterval", originalSettings.get(INDEX_REFRESH_INTERVAL))
+                    .field("numberOfReplicas", originalSettings.get(INDEX_NUMBER_OF_REPLICAS))
+                    .field("time", System.currentTimeMillis())
+                    .endObject();
+            client.prepareIndex(currencyName, SYNC_TYPE, SYNC_BULK_LOAD_ID)
+                    .setSource(source)
+                    .execute().actionGet();
+        }
+        catch(IOException e) {
+            throw new TechnicalException(String.format("Unable to save settings of index [%s]", currencyName), e);
+        }
+    }
+
+    protected String getFieldAsString(GetResponse response, String fieldName) {
+        Object value = response.getField(fieldName) != null ? response.getField(fieldName).getValue() : null;
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Fill holes in the blocks index, from the last checkpoint to the current block of the given peer.
+     * @return the number of the last block processed (the peer current block)
+     */
+    protected int catchUp(Peer peer, ProgressionModel progressionModel) {
+        BlockchainParameters parameter = blockchainRemoteService.getParameters(peer);
+        if (parameter == null) {
+            logger.error(String.format("Could not connect to node [%s]", peer.getUrl()));
+            return -1;
+        }
+        String currencyName = parameter.getCurrency();
+
+        // Create index blockchain if need
+        if (!registryService.isCurrencyExists(currencyName)) {
+            registryService.indexCurrencyFromPeer(peer);
+        }
+        createIndexIfNotExists(currencyName);
+
+        BlockchainBlock currentBlock = blockchainRemoteService.getCurrentBlock(peer);
+        if (currentBlock == null) {
+            return -1;
+        }
+        int lastNumber = currentBlock.getNumber();
+
+        // DEV mode
+        if (pluginSettings.isDevMode() && lastNumber > 5000) {
+            lastNumber = 5000;
+        }
+
+        // Find holes, since the last checkpoint
+        int checkpointNumber = getCheckpointNumber(currencyName);
+        List<String> missingBlocks = findMissingBlocks(currencyName, checkpointNumber + 1, lastNumber);
+        if (logger.isInfoEnabled()) {
+            logger.info(String.format("[%s] Catch-up from checkpoint #%s to #%s: %s missing blocks ranges", currencyName, checkpointNumber, lastNumber, missingBlocks.size()));
+        }
+
+        // Use one bulk-load session for all ranges (bulk-loads started by indexBlocks() are then only counted)
+        int missingBlockCount = 0;
+        boolean fromFirstBlock = false;
+        for (String missingBlock: missingBlocks) {
+            int rangeIndex = missingBlock.indexOf('-');
+            int rangeFirstNumber = Integer.parseInt(rangeIndex != -1 ? missingBlock.substring(0, rangeIndex) : missingBlock);
+            int rangeLastNumber = Integer.parseInt(rangeIndex != -1 ? missingBlock.substring(rangeIndex + 1) : missingBlock);
+            missingBlockCount += rangeLastNumber - rangeFirstNumber + 1;
+            fromFirstBlock = fromFirstBlock || rangeFirstNumber == 0;
+        }
+        boolean bulkLoad = isBulkLoadNeed(fromFirstBlock, missingBlockCount);
+        if (bulkLoad) {
+            startBulkLoad(currencyName);
+        }
+
+        Collection<String> stillMissingBlocks;
+        try {
+            // Fill holes
+            Set<String> newMissingBlocks = new LinkedHashSet<>();
+            for (String missingBlock: missingBlocks) {
+                if (progressionModel.isCancel()) {
+                    return lastNumber;
+                }
+                int rangeIndex = missingBlock.indexOf('-');
+                if (rangeIndex != -1) {
+                    int rangeFirstNumber = Integer.parseInt(missingBlock.substring(0, rangeIndex));
+                    int rangeLastNumber = Integer.parseInt(missingBlock.substring(rangeIndex + 1));
+                    Collection<String> rangeMissingBlocks = indexBlocks(peer, currencyName, rangeFirstNumber, rangeLastNumber, progressionModel);
+                    if (CollectionUtils.isNotEmpty(rangeMissingBlocks)) {
+                        newMissingBlocks.addAll(rangeMissingBlocks);
+                    }
+                }
+                else {
+                    int number = Integer.parseInt(missingBlock);
+                    try {
+                        byte[] blockAsBytes = blockchainRemoteService.getBlockAsBytes(peer, number);
+                        indexBlockAsJson(currencyName, number, blockAsBytes, false, true/*wait*/);
+                    }
+                    catch(TechnicalException e) {
+                        newMissingBlocks.add(missingBlock);
+                    }
+                }
+            }
+
+            // If some blocks are still missing, try to get it using other peers
+            stillMissingBlocks = newMissingBlocks;
+            if (CollectionUtils.isNotEmpty(stillMissingBlocks)) {
+                stillMissingBlocks = indexMissingBlocksFromOtherPeers(peer, currentBlock, stillMissingBlocks, 1);
+            }
+        }
+        finally {
+            if (bulkLoad) {
+                // Always restore settings (even if cancelled or failed)
+                stopBulkLoad(currencyName, !progressionModel.isCancel() && pluginSettings.isBulkLoadForceMerge());
+            }
+        }
+
+        // Save the new checkpoint (just before the first missing block)
+        client.admin().indices().prepareRefresh(currencyName).execute().actionGet();
+        int newCheckpointNumber = lastNumber;
+        if (CollectionUtils.isNotEmpty(stillMissingBlocks)) {
+            List<String> remainingBlocks = findMissingBlocks(currencyName, checkpointNumber + 1, lastNumber);
+            if (CollectionUtils.isNotEmpty(remainingBlocks)) {
+                String firstMissingBlock = remainingBlocks.get(0);
+                int rangeIndex = firstMissingBlock.indexOf('-');
+                newCheckpointNumber = Integer.parseInt(rangeIndex != -1 ? firstMissingBlock.substring(0, rangeIndex) : firstMissingBlock) - 1;
+            }
+            logger.warn(String.format("[%s] Could not indexed all blocks. Missing %s blocks.", currencyName, stillMissingBlocks.size()));
+        }
+        if (newCheckpointNumber > checkpointNumber) {
+            saveCheckpointNumber(currencyName, newCheckpointNumber);
+        }
+
+        // Update the current block
+        if (lastNumber == currentBlock.getNumber()) {
+            indexCurrentBlock(currentBlock, true);
+        }
+
+        return lastNumber;
+    }
+
+    /**
+     * Index blocks received during the catch-up.
+     * Blocks already processed by the catch-up (number &lt;= <code>lastNumber</code>) are skipped
+     * @return false if some blocks could not be indexed (not linked), so a new catch-up is need
+     */
+    protected boolean indexBufferedBlocks(Peer peer, List<String> bufferedBlocks, int lastNumber) {
+        if (CollectionUtils.isEmpty(bufferedBlocks)) {
+            return true;
+        }
+        List<String> newBlocks = Lists.newArrayListWithCapacity(bufferedBlocks.size());
+        for (String blockAsJson: bufferedBlocks) {
+            int number = BLOCK_NUMBER_EXTRACTOR.extract(blockAsJson).getInt(0);
+            if (number <= lastNumber) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("Skipping block #%s: already indexed by catch-up", number));
+                }
+                continue;
+            }
+            newBlocks.add(blockAsJson);
+        }
+
+        return indexNewBlocksAsJson(peer, newBlocks);
+    }
+
+    /**
+     * Index new blocks (e.g. received from websocket), using one bulk request, with only one refresh.
+     * If blocks are not linked to the indexed blockchain (a fork), the divergent blocks are replaced, in the same bulk request.
+     * The current block is updated with the highest block.
+     * @return false if some blocks has been skipped (not linked to the previous received block), so a catch-up is need
+     * @throws TechnicalException if the blocks could not be indexed (the current block is not updated)
+     */
+    protected boolean indexNewBlocksAsJson(Peer peer, List<String> blocksAsJson) {
+        if (CollectionUtils.isEmpty(blocksAsJson)) {
+            return true;
+        }
+        // Sort by number (if same number received twice, keep the last received)
+        TreeMap<Integer, String> blocksByNumber = new TreeMap<>();
+        Map<Integer, JsonFieldExtractor.Values> headersByNumber = new HashMap<>(blocksAsJson.size());
+        for (String blockAsJson: blocksAsJson) {
+            JsonFieldExtractor.Values header = BLOCK_HEADER_EXTRACTOR.extract(blockAsJson);
+            int number = header.getInt(BLOCK_HEADER_NUMBER);
+            blocksByNumber.put(number, blockAsJson);
+            headersByNumber.put(number, header);
+        }
+        String currencyName = headersByNumber.get(blocksByNumber.firstKey()).getString(BLOCK_HEADER_CURRENCY);
+
+        // Remove blocks not linked to the previous one (a gap, or an old branch): indexed later by a catch-up
+        boolean complete = true;
+        String previousHash = null;
+        for (Iterator<Map.Entry<Integer, String>> it = blocksByNumber.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, String> entry = it.next();
+            JsonFieldExtractor.Values header = headersByNumber.get(entry.getKey());
+            if (previousHash != null && !Objects.equal(previousHash, header.getString(BLOCK_HEADER_PREVIOUS_HASH))) {
+                logger.warn(String.format("[%s] Skipping block #%s: not linked to the previous received block. Blocks will be indexed by a catch-up", currencyName, entry.getKey()));
+                complete = false;
+                it.remove();
+                while (it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+                break;
+            }
+            previousHash = header.getString(BLOCK_HEADER_HASH);
+        }
+
+        // Detect a fork: first block should be linked to the indexed block
+        int firstNumber = blocksByNumber.firstKey();
+        int lastNumber = blocksByNumber.lastKey();
+        int oldLastNumber = -1;
+        int ancestorNumber = -1;
+        boolean isFork = false;
+        if (firstNumber > 0) {
+            String indexedPreviousHash = getBlockHashesByIds(currencyName, firstNumber - 1, firstNumber - 1).get(firstNumber - 1);
+            String firstPreviousHash = headersByNumber.get(firstNumber).getString(BLOCK_HEADER_PREVIOUS_HASH);
+            isFork = indexedPreviousHash != null && !Objects.equal(indexedPreviousHash, firstPreviousHash);
+        }
+        if (isFork) {
+            logger.warn(String.format("[%s] Fork detected at block #%s (previousHash mismatch). Searching the common ancestor...", currencyName, firstNumber));
+            oldLastNumber = getMaxBlockNumber(currencyName);
+            ancestorNumber = findCommonAncestor(peer, currencyName, firstNumber - 1, blocksByNumber);
+            if (logger.isInfoEnabled()) {
+                logger.info(String.format("[%s] Common ancestor found at block #%s. Replacing blocks #%s to #%s", currencyName, ancestorNumber, ancestorNumber + 1, Math.max(lastNumber, oldLastNumber)));
+            }
+        }
+
+        BulkRequestBuilder bulkRequest = client.prepareBulk().setRefresh(!isBulkLoadMode(currencyName));
+        for (Map.Entry<Integer, String> entry: blocksByNumber.entrySet()) {
+            logger.info(I18n.t("duniter4j.blockIndexerService.indexBlock", currencyName, peer, entry.getKey()));
+
+            bulkRequest.add(client.prepareIndex(currencyName, BLOCK_TYPE, String.valueOf(entry.getKey()))
+                    .setSource(entry.getValue()));
+        }
+        // Remove blocks of the old branch, above the new last block
+        for (int number = lastNumber + 1; number <= oldLastNumber; number++) {
+            bulkRequest.add(client.prepareDelete(currencyName, BLOCK_TYPE, String.valueOf(number)));
+        }
+        String lastBlockJson = blocksByNumber.lastEntry().getValue();
+
+        BulkResponse bulkResponse = indexingService.executeBulk(bulkRequest);
+        if (bulkResponse.hasFailures()) {
+            for (BulkItemResponse itemResponse : bulkResponse) {
+                if (itemResponse.isFailed()) {
+                    logger.error(String.format("Error while indexing block #%s: %s", itemResponse.getId(), itemResponse.getFailureMessage()));
+                }
+            }
+            // Do not update the current block (nor notify a reorg), as the index is not consistent
+            throw new TechnicalException(String.format("[%s] Could not index blocks #%s to #%s", currencyName, isFork ? ancestorNumber + 1 : firstNumber, Math.max(lastNumber, oldLastNumber)));
+        }
+
+        // Update the current block
+        indexCurrentBlockAsJson(currencyName, lastBlockJson, true);
+
+        if (isFork) {
+            // Checkpoint could be on the old branch
+            if (getCheckpointNumber(currencyName) > ancestorNumber) {
+                saveCheckpointNumber(currencyName, ancestorNumber);
+            }
+
+            for (ReorgListener listener: reorgListeners) {
+                try {
+                    listener.onReorg(currencyName, ancestorNumber, oldLastNumber, lastNumber);
+                }
+                catch(Exception e) {
+                    logger.error(String.format("[%s] Error during reorg listener: %s", currencyName, e.getMessage()), e);
+                }
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Walk back the indexed blockchain, to find the last block shared with the given peer.
+     * Indexed and remote blocks are read by batch. Remote blocks above the common ancestor are added to <code>blocksByNumber</code>.
+     * Walk back is limited to {@link PluginSettings#getForkMaxDepth()} blocks.
+     * @return the common ancestor number, or -1 if no common block
+     * @throws TechnicalException if no common block found within the max depth
+     */
+    protected int findCommonAncestor(Peer peer, String currencyName, int fromNumber, Map<Integer, String> blocksByNumber) {
+        JsonFieldExtractor.Values header = BLOCK_HEADER_EXTRACTOR.newValues();
+        int maxDepth = Math.max(1, pluginSettings.getForkMaxDepth());
+        int minNumber = Math.max(0, fromNumber - maxDepth + 1);
+
+        int number = fromNumber;
+        while (number >= minNumber) {
+            int firstNumber = Math.max(minNumber, number - FORK_WALK_BACK_BATCH_SIZE + 1);
+            Map<Integer, String> indexedHashes = getBlockHashesByIds(currencyName, firstNumber, number);
+            String[] remoteBlocks = blockchainRemoteService.getBlocksAsJson(peer, number - firstNumber + 1, firstNumber);
+            if (CollectionUtils.isEmpty(remoteBlocks)) {
+                throw new TechnicalException(String.format("Unable to get blocks #%s-%s from peer [%s]", firstNumber, number, peer));
+            }
+
+            // Search from the highest block
+            for (int i = remoteBlocks.length - 1; i >= 0; i--) {
+                BLOCK_HEADER_EXTRACTOR.extract(remoteBlocks[i], header);
+                int remoteNumber = header.getInt(BLOCK_HEADER_NUMBER);
+                String remoteHash = header.getString(BLOCK_HEADER_HASH);
+                if (Objects.equal(remoteHash, indexedHashes.get(remoteNumber))) {
+                    return remoteNumber;
+                }
+                blocksByNumber.put(remoteNumber, remoteBlocks[i]);
+            }
+            number = firstNumber - 1;
+        }
+        if (minNumber > 0) {
+            throw new TechnicalException(String.format("[%s] No common ancestor found with peer [%s], in the last %s blocks (from #%s)", currencyName, peer, maxDepth, fromNumber));
+        }
+        return -1;
+    }
+
+    /**
+     * Get hash of indexed blocks, using one multi-get request (realtime, so no refresh need)
+     * @return hash by block number (missing blocks are not in the map)
+     */
+    protected Map<Integer, String> getBlockHashesByIds(String currencyName, int firstNumber, int lastNumber) {
+        MultiGetRequestBuilder request = client.prepareMultiGet().setRealtime(true);
+        for (int number = firstNumber; number <= lastNumber; number++) {
+            request.add(new MultiGetRequest.Item(currencyName, BLOCK_TYPE, String.valueOf(number)).fields("hash"));
+        }
+
+        Map<Integer, String> result = new HashMap<>();
+        for (MultiGetItemResponse item: request.execute().actionGet()) {
+            if (item.isFailed() || !item.getResponse().isExists()) {
+                continue;
+            }
+            GetField hashField = item.getResponse().getField("hash");
+            if (hashField != null && hashField.getValue() != null) {
+                result.put(Integer.parseInt(item.getId()), hashField.getValue().toString());
+            }
+        }
+        return result;
+    }
+
+    protected Histogram getBlockNumberHistogram(String currencyName, int firstNumber, int lastNumber, int interval) {
+        SearchRequestBuilder searchRequest = client
+                .prepareSearch(currencyName)
+                .setTypes(BLOCK_TYPE)
+                .setSize(0)
+                // Exclude the 'current' block, that duplicates a block number
+                .setQuery(QueryBuilders.boolQuery()
+                        .mustNot(QueryBuilders.idsQuery(BLOCK_TYPE).addIds(CURRENT_BLOCK_ID))
+                        .filter(QueryBuilders.rangeQuery("number").gte(firstNumber).lte(lastNumber)));
+
+        searchRequest.addAggregation(AggregationBuilders.histogram("numbers")
+                .field("number")
+                .interval(interval)
+                .minDocCount(0)
+                .extendedBounds((long)firstNumber, (long)lastNumber));
+
+        SearchResponse searchResponse = searchRequest.execute().actionGet();
+        return searchResponse.getAggregations().get("numbers");
+    }
+
+    /**
+     * Add a missing block (or range) to the list, merging with the previous range when contiguous
+     */
+    protected void addMissingBlocks(List<String> missingBlocks, int firstNumber, int lastNumber) {
+        if (!missingBlocks.isEmpty()) {
+            String previous = missingBlocks.get(missingBlocks.size() - 1);
+            int rangeIndex = previous.indexOf('-');
+            int previousFirstNumber = Integer.parseInt(rangeIndex != -1 ? previous.substring(0, rangeIndex) : previous);
+            int previousLastNumber = Integer.parseInt(rangeIndex != -1 ? previous.substring(rangeIndex + 1) : previous);
+            if (previousLastNumber + 1 == firstNumber) {
+                missingBlocks.remove(missingBlocks.size() - 1);
+                firstNumber = previousFirstNumber;
+            }
+        }
+        missingBlocks.add(firstNumber == lastNumber ? String.valueOf(firstNumber) : firstNumber + "-" + lastNumber);
+    }
+
+    /**
+     * Index blocks, downloading chunks in parallel from all peers having the same block at <code>lastNumber</code>.
+     * When a peer has no more chunk to download, it steals a chunk still in progress on a slower peer.
+     * At the end, chunks are linked together (using <code>previousHash</code>): broken chunks are downloaded again from the given peer.
+     * @return missing blocks (number or range)
+     */
+    public Collection<String> indexBlocksFromPeers(Peer peer, String currencyName, int firstNumber, int lastNumber, ProgressionModel progressionModel) {
+        final Set<String> missingBlockNumbers = Collections.synchronizedSet(new LinkedHashSet<>());
+        final boolean debug = logger.isDebugEnabled();
+
+        // Get the reference block, used to select peers
+        BlockchainBlock lastBlock = blockchainRemoteService.getBlock(peer, lastNumber);
+        List<Peer> syncPeers = getPeersWithSameBlock(peer, lastBlock);
+        if (logger.isInfoEnabled()) {
+            logger.info(String.format("[%s] Indexing blocks #%s to #%s, from %s peers: %s", currencyName, firstNumber, lastNumber, syncPeers.size(), syncPeers));
+        }
+
+        // Split into chunks
+        final int chunkSize = pluginSettings.getIndexBulkSize();
+        final List<PeerChunk> chunks = Lists.newArrayList();
+        for (int chunkFirstNumber = firstNumber; chunkFirstNumber <= lastNumber; chunkFirstNumber += chunkSize) {
+            chunks.add(new PeerChunk(chunkFirstNumber, Math.min(chunkSize, lastNumber - chunkFirstNumber + 1)));
+        }
+        final LinkedBlockingDeque<PeerChunk> pendingChunks = new LinkedBlockingDeque<>(chunks);
+        final Set<PeerChunk> inFlightChunks = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        final AtomicInteger completedChunkCount = new AtomicInteger(0);
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        final CountDownLatch workersLatch = new CountDownLatch(syncPeers.size());
+
+        // Start one worker by peer
+        for (Peer syncPeer: syncPeers) {
+            threadPool.execute(() -> {
+                int errorCount = 0;
+                try {
+                    while (!stopped.get() && completedChunkCount.get() < chunks.size()) {
+                        PeerChunk chunk = pendingChunks.poll();
+                        if (chunk != null && chunk.completed.get()) {
+                            continue;
+                        }
+
+                        // No more pending chunk: steal the oldest one, still in progress on another peer
+                        if (chunk == null) {
+                            chunk = getChunkToSteal(inFlightChunks, syncPeer);
+                            if (chunk == null) {
+                                Thread.sleep(PIPELINE_POLL_TIMEOUT_MS);
+                                continue;
+                            }
+                            if (debug) {
+                                logger.debug(String.format("[%s] Peer [%s] steals blocks #%s from peer [%s]", currencyName, syncPeer, chunk, chunk.peer));
+                            }
+                        }
+                        chunk.peer = syncPeer;
+                        chunk.startTime = System.currentTimeMillis();
+                        inFlightChunks.add(chunk);
+
+                        try {
+                            String[] blocksAsJson = blockchainRemoteService.getBlocksAsJson(syncPeer, chunk.count, chunk.firstNumber);
+                            if (blocksAsJson == null || blocksAsJson.length != chunk.count) {
+                                throw new TechnicalException(String.format("Expected %s blocks, but received %s", chunk.count, blocksAsJson == null ? 0 : blocksAsJson.length));
+                            }
+
+                            // Index the chunk, if not already done (or being done) by another peer
+                            if (!chunk.indexing.compareAndSet(false, true)) {
+                                continue;
+                            }
+                            inFlightChunks.remove(chunk);
+                            try {
+                                indexChunk(currencyName, chunk, blocksAsJson, missingBlockNumbers);
+                            }
+                            catch(RuntimeException e) {
+                                errorCount++;
+                                logger.warn(String.format("[%s] Error while indexing blocks #%s: %s", currencyName, chunk, e.getMessage()));
+                                // Give back the chunk: indexed later by another peer, or by the final check
+                                chunk.indexing.set(false);
+                                pendingChunks.addFirst(chunk);
+                                if (errorCount >= SYNC_PEER_MAX_ERROR) {
+                                    logger.warn(String.format("[%s] Too many errors on peer [%s]. Skipping this peer.", currencyName, syncPeer));
+                                    break;
+                                }
+                                continue;
+                            }
+                            chunk.completed.set(true);
+                            completedChunkCount.incrementAndGet();
+                            errorCount = 0;
+                        }
+                        catch(RuntimeException e) {
+                            errorCount++;
+                            if (debug) {
+                                logger.debug(String.format("[%s] Error while getting blocks #%s from peer [%s]: %s", currencyName, chunk, syncPeer, e.getMessage()));
+                            }
+                            // Give back the chunk to other peers
+                            if (!chunk.indexing.get() && chunk.peer == syncPeer) {
+                                inFlightChunks.remove(chunk);
+                                pendingChunks.addFirst(chunk);
+                            }
+                            if (errorCount >= SYNC_PEER_MAX_ERROR) {
+                                logger.warn(String.format("[%s] Too many errors on peer [%s]. Skipping this peer.", currencyName, syncPeer));
+                                break;
+                            }
+                        }
+                    }
+                }
+                catch(InterruptedException e) {
+                    // stop
+                }
+                finally {
+                    workersLatch.countDown();
+                }
+            });
+        }
+
+        // Wait all workers, and report progress
+        try {
+            while (!workersLatch.await(1, TimeUnit.SECONDS)) {
+                if (progressionModel.isCancel()) {
+                    stopped.set(true);
+                    progressionModel.setStatus(ProgressionModel.Status.STOPPED);
+                    if (logger.isInfoEnabled()) {
+                        logger.info(I18n.t("duniter4j.blockIndexerService.indexLastBlocks.stopped", currencyName, peer.getUrl()));
+                    }
+                    return missingBlockNumbers;
+                }
+                int processedBlockCount = Math.min(lastNumber - firstNumber, completedChunkCount.get() * chunkSize);
+                reportIndexBlocksProgress(progressionModel, currencyName, peer, firstNumber, lastNumber, firstNumber + processedBlockCount);
+            }
+        }
+        catch(InterruptedException e) {
+            stopped.set(true);
+            progressionModel.setStatus(ProgressionModel.Status.STOPPED);
+            return missingBlockNumbers;
+        }
+
+        // Check chunks links, and download again broken or missing chunks from the given peer
+        PeerChunk previousChunk = null;
+        for (PeerChunk chunk: chunks) {
+            boolean isBrokenLink = previousChunk != null
+                    && previousChunk.completed.get()
+                    && chunk.completed.get()
+                    && !Objects.equal(previousChunk.lastHash, chunk.firstPreviousHash);
+            if (isBrokenLink) {
+                logger.warn(String.format("[%s] Blocks #%s and #%s are not linked (previousHash mismatch). Reloading blocks from peer [%s]", currencyName, previousChunk, chunk, peer));
+                reindexChunk(peer, currencyName, previousChunk, missingBlockNumbers);
+                reindexChunk(peer, currencyName, chunk, missingBlockNumbers);
+                isBrokenLink = !Objects.equal(previousChunk.lastHash, chunk.firstPreviousHash);
+                if (isBrokenLink) {
+                    missingBlockNumbers.add(chunk.toString());
+                }
+            }
+            else if (!chunk.completed.get()) {
+                reindexChunk(peer, currencyName, chunk, missingBlockNumbers);
+            }
+            previousChunk = chunk;
+        }
+
+        // Update the current block
+        indexCurrentBlock(lastBlock, false);
+
+        return missingBlockNumbers;
+    }
+
+    /**
+     * Get the given peer, and all other peers (BMA only) having the same block (same number and hash)
+     */
+    protected List<Peer> getPeersWithSameBlock(Peer peer, BlockchainBlock block) {
+        NetworkRemoteService networkRemoteService = ServiceLocator.instance().getNetworkRemoteService();
+        int maxPeerCount = Math.max(1, pluginSettings.getSyncFromPeersMaxCount());
+
+        // Remove duplicated peers (e.g. many endpoints on the same node)
+        Map<String, Peer> candidates = new LinkedHashMap<>();
+        try {
+            for (Peer candidate: networkRemoteService.findPeers(peer, null, EndpointProtocol.BASIC_MERKLED_API, null, null)) {
+                if (!Objects.equal(candidate.getUrl(), peer.getUrl())) {
+                    candidates.putIfAbsent(candidate.getUrl(), candidate);
+                }
+            }
+        }
+        catch(TechnicalException e) {
+            logger.warn(String.format("Could not get peers from [%s]: %s", peer, e.getMessage()));
+        }
+
+        // Check peers in parallel
+        List<Callable<Peer>> checks = Lists.newArrayListWithCapacity(candidates.size());
+        for (Peer candidate: candidates.values()) {
+            checks.add(() -> {
+                BlockchainBlock candidateBlock = blockchainRemoteService.getBlock(candidate, block.getNumber());
+                return (candidateBlock != null && Objects.equal(block.getHash(), candidateBlock.getHash())) ? candidate : null;
+            });
+        }
+
+        List<Peer> result = Lists.newArrayList(peer);
+        try {
+            for (Future<Peer> future: threadPool.executor().invokeAll(checks, SYNC_PEER_CHECK_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (result.size() >= maxPeerCount) {
+                    break;
+                }
+                try {
+                    Peer candidate = future.isCancelled() ? null : future.get();
+                    if (candidate != null) {
+                        result.add(candidate);
+                    }
+                }
+                catch(Exception e) {
+                    // Skip this peer
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            // continue, with already found peers
+        }
+        return result;
+    }
+
+    protected PeerChunk getChunkToSteal(Set<PeerChunk> inFlightChunks, Peer peer) {
+        long maxStartTime = System.currentTimeMillis() - SYNC_PEER_STEAL_DELAY_MS;
+        PeerChunk result = null;
+        for (PeerChunk chunk: inFlightChunks) {
+            if (!chunk.completed.get()
+                    && chunk.peer != peer
+                    && chunk.startTime < maxStartTime
+                    && (result == null || chunk.startTime < result.startTime)) {
+                result = chunk;
+            }
+        }
+        return result;
+    }
+
+    protected void indexChunk(String currencyName, PeerChunk chunk, String[] blocksAsJson, Set<String> missingBlockNumbers) {
+        BulkRequestBuilder bulkRequest = client.prepareBulk();
+        for (String blockAsJson : blocksAsJson) {
+            int itemNumber = BLOCK_NUMBER_EXTRACTOR.extract(blockAsJson).getInt(0);
+            bulkRequest.add(client.prepareIndex(currencyName, BLOCK_TYPE, String.valueOf(itemNumber))
+                    .setRefresh(false)
+                    .setSource(blockAsJson));
+        }
+
+        // Keep hashes, to check links between chunks
+        chunk.firstPreviousHash = BLOCK_HEADER_EXTRACTOR.extract(blocksAsJson[0]).getString(BLOCK_HEADER_PREVIOUS_HASH);
+        chunk.lastHash = BLOCK_HEADER_EXTRACTOR.extract(blocksAsJson[blocksAsJson.length - 1]).getString(BLOCK_HEADER_HASH);
+
+        BulkResponse bulkResponse = indexingService.executeBulk(bulkRequest);
+        if (bulkResponse.hasFailures()) {
+            for (BulkItemResponse itemResponse : bulkResponse) {
+                if (itemResponse.isFailed()) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(String.format("Error while indexing block #%s: %s. Skipping this block.", itemResponse.getId(), itemResponse.getFailureMessage()));
+                    }
+                    missingBlockNumbers.add(itemResponse.getId());
+                }
+            }
+        }
+    }
+
+    protected void reindexChunk(Peer peer, String currencyName, PeerChunk chunk, Set<String> missingBlockNumbers) {
+        try {
+            String[] blocksAsJson = blockchainRemoteService.getBlocksAsJson(peer, chunk.count, chunk.firstNumber);
+            if (CollectionUtils.isEmpty(blocksAsJson)) {
+                missingBlockNumbers.add(chunk.toString());
+                return;
+            }
+            indexChunk(currencyName, chunk, blocksAsJson, missingBlockNumbers);
+            chunk.completed.set(true);
+        }
+        catch(RuntimeException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Error while indexing blocks #%s from peer [%s]: %s", chunk, peer, e.getMessage()));
+            }
+            missingBlockNumbers.add(chunk.toString());
+        }
+    }
+
+    /**
+     * Get blocks from other peers.
+     * WARNING: given list must be ordered (with ascending order)
+     * @param peer
+     * @param currentBlock
+     * @param sortedMissingBlocks
+     * @param tryCounter
+     */
+    protected Collection<String> indexMissingBlocksFromOtherPeers(Peer peer, BlockchainBlock currentBlock, Collection<String> sortedMissingBlocks, int tryCounter) {
+        ObjectUtils.checkNotNull(peer);
+        ObjectUtils.checkNotNull(currentBlock);
+        ObjectUtils.checkNotNull(currentBlock.getHash());
+        ObjectUtils.checkNotNull(currentBlock.getNumber());
+        ObjectUtils.checkArgument(CollectionUtils.isNotEmpty(sortedMissingBlocks));
+        ObjectUtils.checkArgument(tryCounter >= 1);
+
+        NetworkRemoteService networkRemoteService = ServiceLocator.instance().getNetworkRemoteService();
+        BlockchainRemoteService blockchainRemoteService = ServiceLocator.instance().getBlockchainRemoteService();
+        HttpService httpService = ServiceLocator.instance().getHttpService();
+        String currencyName = currentBlock.getCurrency();
+        boolean debug = logger.isDebugEnabled();
+
+        Set<String> newMissingBlocks = new LinkedHashSet<>();
+        newMissingBlocks.addAll(sortedMissingBlocks);
+
+        if (debug) {
+            logger.debug(String.format("Missing blocks are: %s", newMissingBlocks.toString()));
+        }
+
+        // Select other peers, in filtering on the same blockchain version
+
+        // TODO : a activer quand les peers seront bien mis à jour (UP/DOWN, block, hash...)
+        //List<Peer> otherPeers = networkRemoteService.findPeers(peer, "UP", EndpointProtocol.BASIC_MERKLED_API,
+        //        currentBlock.getNumber(), currentBlock.getHash());
+        List<Peer> otherPeers = networkRemoteService.findPeers(peer, null, EndpointProtocol.BASIC_MERKLED_API,
+                null, null);
+
+        for(Peer childPeer: otherPeers) {
+            // Skip peers that failed recently (circuit breaker open)
+            if (!httpService.isAvailable(childPeer)) {
+                if (debug) {
+                    logger.debug(String.format("[%s] Skipping unavailable peer [%s]", currencyName, childPeer));
+                }
+                continue;
+            }
+            if (logger.isInfoEnabled()) {
+                logger.info(String.format("[%s] Trying to get missing blocks from other peer [%s]...", currencyName, childPeer));
+            }
+            try {
+                for(String blockNumberStr: ImmutableSet.copyOf(sortedMissingBlocks)) {
+
+                    boolean isBlockRange = blockNumberStr.indexOf('-') != -1;
+
+                    // Get using bulk
+                    if (isBlockRange) {
+                        String[] rangeParts = blockNumberStr.split("-");
+                        int firstNumber = Integer.parseInt(rangeParts[0]);
+                        int lastNumber = Integer.parseInt(rangeParts[1]);
+
+                        // Remove current blocks range
+                        newMissingBlocks.remove(blockNumberStr);
+
+                        Collection<String> bulkMissingBlocks = indexBlocksUsingBulk(childPeer, currencyName, firstNumber, lastNumber, new ProgressionModelImpl());
+
+                        // Re add if new missing blocks
+                        if (CollectionUtils.isNotEmpty(bulkMissingBlocks)) {
+                            newMissingBlocks.addAll(bulkMissingBlocks);
+                        }
+                    }
+
+                    // Get blocks one by one
+                    else {
+                        int blockNumber = Integer.parseInt(blockNumberStr);
+                        byte[] blockAsBytes = blockchainRemoteService.getBlockAsBytes(childPeer, blockNumber);
+                        if (blockAsBytes != null && blockAsBytes.length > 0) {
+                            if (debug) {
+                                logger.debug(String.format("Found missing block #%s on peer [%s].", blockNumber, childPeer));
+                            }
+
+                            // Index the missing block
+                            indexBlockAsJson(currencyName, blockNumber, blockAsBytes, false, true/*wait*/);
+
+                            // Remove this block number from the final missing list
+                            newMissingBlocks.remove(blockNumber);
+                        }
+                    }
+                }
+
+                if (CollectionUtils.isEmpty(newMissingBlocks)) {
+                    break;
+                }
+
+                // Update the list, for the next iteration
+                sortedMissingBlocks =  newMissingBlocks;
+            }
+            catch(TechnicalException e) {
+                if (debug) {
+                    logger.debug(String.format("Error while getting blocks from peer [%s]: %s. Skipping this peer.", childPeer, e.getMessage()));
+                }
+
+                continue; // skip this peer
+            }
+        }
+
+
+        if (CollectionUtils.isEmpty(newMissingBlocks)) {
+            return null;
+        }
+
+        tryCounter++;
+        if (tryCounter >= SYNC_MISSING_BLOCK_MAX_RETRY) {
+            // Max retry : stop here
+            logger.error("Some blocks are still missing, after %s try: %s", SYNC_MISSING_BLOCK_MAX_RETRY, newMissingBlocks.toArray(new String[0]));
+            return newMissingBlocks;
+        }
+
+        if (debug) {
+            logger.debug("Some blocks are still missing: %s. Will retry later (%s/%s)...", newMissingBlocks.toArray(new String[0]), tryCounter, SYNC_MISSING_BLOCK_MAX_RETRY);
+        }
+        try {
+            Thread.sleep(60 *1000); // wait 1 min
+
+        }
+        catch (InterruptedException e) {
+            return null; // stop here
+        }
+
+        // retrying, with the new new blockchain
+        BlockchainBlock newCurrentBlock =  blockchainRemoteService.getCurrentBlock(peer);
+        return indexMissingBlocksFromOtherPeers(peer, newCurrentBlock, newMissingBlocks, tryCounter);
+    }
+
+    /**
+     * Put an item into a pipeline queue, waiting for space, unless the pipeline has been stopped
+     * @return false if pipeline has been stopped
+     */
+    protected <T> boolean offerUntilStopped(BlockingQueue<T> queue, T item, AtomicBoolean stopped) {
+        try {
+            while (!stopped.get()) {
+                if (queue.offer(item, PIPELINE_POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            stopped.set(true);
+        }
+        return false;
+    }
+
+    /**
+     * Take an item from a pipeline queue, waiting for an item, unless the pipeline has been stopped
+     * @return null if pipeline has been stopped
+     */
+    protected <T> T pollUntilStopped(BlockingQueue<T> queue, AtomicBoolean stopped) {
+        try {
+            while (!stopped.get()) {
+                T item = queue.poll(PIPELINE_POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    return item;
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            stopped.set(true);
+        }
+        return null;
+    }
+
+    protected void reportIndexBlocksProgress(ProgressionModel progressionModel, String currencyName, Peer peer, int firstNumber, int lastNumber, int curNumber) {
+        // A single block range is always 100%
+        int pct = (lastNumber > firstNumber) ? (curNumber - firstNumber) * 100 / (lastNumber - firstNumber) : 100;
+        progressionModel.setCurrent(pct);
+
+        progressionModel.setMessage(I18n.t("duniter4j.blockIndexerService.indexLastBlocks.progress", currencyName, peer, curNumber, lastNumber, pct));
+        if (logger.isInfoEnabled()) {
             logger.info(I18n.t("duniter4j.blockIndexerService.indexLastBlocks.progress", currencyName, peer, curNumber, lastNumber, pct));
         }
 
     }
+
+    /**
+     * A block range, passed from a pipeline stage to the next one
+     */
+    private static class PipelineRange {
+
+        static final PipelineRange END = new PipelineRange(-1, 0);
+
+        final int firstNumber;
+        final int count;
+        String json;
+        BulkRequestBuilder bulkRequest;
+
+        PipelineRange(int firstNumber, int count) {
+            this.firstNumber = firstNumber;
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return firstNumber + "-" + (firstNumber + count - 1);
+        }
+    }
+
+    /**
+     * A bulk-load running on an index (count = number of overlapping bulk-loads)
+     */
+    private static class BulkLoad {
+        final Map<String, String> originalSettings;
+        int count = 1;
+
+        BulkLoad(Map<String, String> originalSettings) {
+            this.originalSettings = originalSettings;
+        }
+    }
+
+    /**
+     * A block range, downloaded by one (or more) peer
+     */
+    static class PeerChunk {
+
+        final int firstNumber;
+        final int count;
+        // Set by the peer indexing the chunk (reset if indexation failed)
+        final AtomicBoolean indexing = new AtomicBoolean(false);
+        // Set once the chunk has been indexed
+        final AtomicBoolean completed = new AtomicBoolean(false);
+        volatile Peer peer;
+        volatile long startTime;
+        String firstPreviousHash;
+        String lastHash;
+
+        PeerChunk(int firstNumber, int count) {
+            this.firstNumber = firstNumber;
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return firstNumber + "-" + (firstNumber + count - 1);
+        }
+    }
+
+    /**
+     * Bounded queue of new blocks, received from a websocket.
+     * Blocks are indexed on a worker thread, so the websocket thread is never blocked by ES.
+     * A burst of blocks is indexed in one bulk request. When the queue is full, blocks are dropped,
+     * then a catch-up is run once the queue is empty.
+     */
+    private class NewBlockQueue implements WebsocketClientEndpoint.MessageHandler {
+
+        private final Peer peer;
+        private final BlockingQueue<String> queue;
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private final AtomicBoolean overflow = new AtomicBoolean(false);
+
+        NewBlockQueue(Peer peer) {
+            this.peer = peer;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, pluginSettings.getNewBlockQueueSize()));
+        }
+
+        @Override
+        public void handleMessage(String message) {
+            if (!queue.offer(message) && overflow.compareAndSet(false, true)) {
+                logger.warn(String.format("[%s] Too many new blocks waiting to be indexed. Blocks will be indexed later, by a catch-up", peer));
+            }
+            drainIfNeed();
+        }
+
+        /**
+         * Run a catch-up on a worker thread (e.g. when blocks could not be indexed)
+         */
+        protected void catchUpLater() {
+            overflow.set(true);
+            drainIfNeed();
+        }
+
+        protected void drainIfNeed() {
+            if ((!queue.isEmpty() || overflow.get()) && draining.compareAndSet(false, true)) {
+                threadPool.execute(this::drain);
+            }
+        }
+
+        protected void drain() {
+            int bulkSize = Math.max(1, pluginSettings.getIndexBulkSize());
+            try {
+                List<String> blocksAsJson = Lists.newArrayListWithCapacity(Math.min(bulkSize, queue.size()));
+                while (queue.drainTo(blocksAsJson, bulkSize) > 0) {
+                    try {
+                        if (!indexNewBlocksAsJson(peer, blocksAsJson)) {
+                            overflow.set(true); // some blocks skipped: force a catch-up
+                        }
+                    }
+                    catch(Exception e) {
+                        logger.error(String.format("[%s] Error while indexing new blocks: %s", peer, e.getMessage()), e);
+                        overflow.set(true); // force a catch-up
+                    }
+                    blocksAsJson.clear();
+                }
+
+                // Some blocks has been dropped: run a catch-up
+                if (overflow.getAndSet(false)) {
+                    catchUp(peer, new ProgressionModelImpl());
+                }
+            }
+            catch(Exception e) {
+                logger.error(String.format("[%s] Error during blocks catch-up: %s", peer, e.getMessage()), e);
+            }
+            finally {
+                draining.set(false);
+            }
+
+            // Message could have been received, after the last drain
+            drainIfNeed();
+        }
+    }
+
+    /**
+     * Listener notified when blocks has been replaced by another branch (after a fork)
+     */
+    public interface ReorgListener {
+
+        /**
+         * @param currencyName the currency
+         * @param commonAncestorNumber last block shared by the two branches (-1 if none)
+         * @param oldLastNumber last block number of the old branch
+         * @param newLastNumber last block number of the new branch
+         */
+        void onReorg(String currencyName, int commonAncestorNumber, int oldLastNumber, int newLastNumber);
+    }
 }
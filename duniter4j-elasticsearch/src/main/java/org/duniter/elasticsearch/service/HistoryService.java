@@ -124,13 +124,12 @@ public class HistoryService extends AbstractService {
         }
 
         // Add deletion to history
-        IndexResponse response = client.prepareIndex(INDEX, DELETE_TYPE)
+        IndexResponse response = indexingService.execute(INDEX, client.prepareIndex(INDEX, DELETE_TYPE)
                 .setSource(recordJson)
-                .setRefresh(false)
-                .execute().actionGet();
+                .setRefresh(false));
 
         // Delete the document
-        client.prepareDelete(index, type, id).execute().actionGet();
+        indexingService.execute(index, client.prepareDelete(index, type, id));
 
         return response.getId();
     }
@@ -0,0 +1,448 @@
+package org.duniter.elasticsearch.service;
+
+/*
+ * #%L
+ * Duniter4j :: ElasticSearch Plugin
+ * %%
+ * Copyright (C) 2014 - 2016 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableMap;
+import org.duniter.core.exception.TechnicalException;
+import org.duniter.elasticsearch.PluginSettings;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.IndicesRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
+import org.elasticsearch.action.bulk.*;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Indexing engine, shared by all services: all writes should be done using this service.
+ * <ul>
+ *     <li>Asynchronous writes are grouped in bulk requests, sized by number of actions and by bytes;</li>
+ *     <li>The number of concurrent bulk requests is limited (callers wait for a free slot);</li>
+ *     <li>Rejected requests (ES queue full) are retried, with an exponential backoff;</li>
+ *     <li>Throughput and rejection counters are kept by index.</li>
+ * </ul>
+ */
+public class IndexingService extends AbstractLifecycleComponent<IndexingService> {
+
+    private final Client client;
+    private final PluginSettings pluginSettings;
+    private final Semaphore bulkPermits;
+    private final Map<String, IndexStats> statsByIndex = new ConcurrentHashMap<>();
+    private BulkProcessor bulkProcessor;
+
+    @Inject
+    public IndexingService(Settings settings, Client client, PluginSettings pluginSettings) {
+        super(settings);
+        this.client = client;
+        this.pluginSettings = pluginSettings;
+        this.bulkPermits = new Semaphore(Math.max(1, pluginSettings.getIndexBulkConcurrentRequests()));
+    }
+
+    @Override
+    protected void doStart() {
+        this.bulkProcessor = BulkProcessor.builder(client, new BulkProcessor.Listener() {
+                    @Override
+                    public void beforeBulk(long executionId, BulkRequest request) {
+                    }
+
+                    @Override
+                    public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+                        updateStats(request, response);
+                        refreshIfNeed(request);
+                    }
+
+                    @Override
+                    public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+                        logger.error(String.format("Error while executing bulk request (%s actions): %s", request.numberOfActions(), failure.getMessage()), failure);
+                        updateStats(request, failure);
+                    }
+                })
+                .setName("duniter4j-indexing")
+                .setBulkActions(Math.max(1, pluginSettings.getIndexBulkSize()))
+                .setBulkSize(pluginSettings.getIndexBulkMaxBytes())
+                .setConcurrentRequests(Math.max(0, pluginSettings.getIndexBulkConcurrentRequests() - 1))
+                .setFlushInterval(pluginSettings.getIndexBulkFlushInterval())
+                .setBackoffPolicy(newBackoffPolicy())
+                .build();
+    }
+
+    @Override
+    protected void doStop() {
+        if (bulkProcessor != null) {
+            try {
+                bulkProcessor.awaitClose(30, TimeUnit.SECONDS);
+            }
+            catch(InterruptedException e) {
+                // stop
+            }
+            bulkProcessor = null;
+        }
+    }
+
+    @Override
+    protected void doClose() {
+    }
+
+    /**
+     * Add a write request (index, update or delete), to be executed asynchronously, in a bulk request.
+     * If the request asks for a refresh, its index is refreshed once the bulk request has been executed.
+     */
+    public void add(ActionRequest request) {
+        if (bulkProcessor == null) {
+            throw new TechnicalException("Indexing service not started");
+        }
+        if (request instanceof IndexRequest) {
+            bulkProcessor.add((IndexRequest)request);
+        }
+        else if (request instanceof DeleteRequest) {
+            bulkProcessor.add((DeleteRequest)request);
+        }
+        else if (request instanceof UpdateRequest) {
+            bulkProcessor.add((UpdateRequest)request);
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported request type: " + request.getClass().getName());
+        }
+    }
+
+    /**
+     * Send all pending asynchronous writes
+     */
+    public void flush() {
+        if (bulkProcessor != null) {
+            bulkProcessor.flush();
+        }
+    }
+
+    /**
+     * Execute a single write request synchronously, retrying if rejected.
+     * @param index the target index (used for stats)
+     */
+    public <Response extends ActionResponse> Response execute(String index, ActionRequestBuilder<?, Response, ?> requestBuilder) {
+        IndexStats stats = getStats(index);
+        Iterator<TimeValue> backoff = newBackoffPolicy().iterator();
+        while (true) {
+            try {
+                Response response = requestBuilder.execute().actionGet();
+                if (requestBuilder.request() instanceof IndexRequest) {
+                    stats.docCount.incrementAndGet();
+                }
+                return response;
+            }
+            catch(EsRejectedExecutionException e) {
+                stats.rejectionCount.incrementAndGet();
+                if (!backoff.hasNext()) {
+                    stats.failureCount.incrementAndGet();
+                    throw e;
+                }
+                sleep(backoff.next());
+            }
+        }
+    }
+
+    /**
+     * Execute a bulk request synchronously, using batches (sized by actions and bytes).
+     * Concurrent calls are limited, and rejected actions are retried.
+     * @return all items responses (in the same order as the request actions)
+     */
+    public BulkResponse executeBulk(BulkRequest bulkRequest) {
+        int maxActions = Math.max(1, pluginSettings.getIndexBulkSize());
+        long maxBytes = pluginSettings.getIndexBulkMaxBytes().bytes();
+
+        // Small enough: execute as one batch
+        if (bulkRequest.numberOfActions() <= maxActions && bulkRequest.estimatedSizeInBytes() <= maxBytes) {
+            return executeBatch(bulkRequest);
+        }
+
+        BulkItemResponse[] items = new BulkItemResponse[bulkRequest.numberOfActions()];
+        long tookInMillis = 0;
+        int offset = 0;
+        BulkRequest batch = newBatch(bulkRequest);
+        for (ActionRequest request: bulkRequest.requests()) {
+            addToBatch(batch, request);
+            if (batch.numberOfActions() >= maxActions || batch.estimatedSizeInBytes() >= maxBytes) {
+                BulkResponse response = executeBatch(batch);
+                offset = copyItems(response, items, offset);
+                tookInMillis += response.getTookInMillis();
+                batch = newBatch(bulkRequest);
+            }
+        }
+        if (batch.numberOfActions() > 0) {
+            BulkResponse response = executeBatch(batch);
+            copyItems(response, items, offset);
+            tookInMillis += response.getTookInMillis();
+        }
+        return new BulkResponse(items, tookInMillis);
+    }
+
+    public BulkResponse executeBulk(BulkRequestBuilder bulkRequest) {
+        return executeBulk(bulkRequest.request());
+    }
+
+    /**
+     * Execute a bulk request asynchronously. Wait (in the caller thread) if too many bulk requests are running.
+     */
+    public void executeBulkAsync(BulkRequestBuilder bulkRequest, ActionListener<BulkResponse> listener) {
+        final BulkRequest request = bulkRequest.request();
+        acquirePermit();
+        Retry.on(EsRejectedExecutionException.class)
+                .policy(newBackoffPolicy())
+                .withAsyncBackoff(client, request, new ActionListener<BulkResponse>() {
+                    @Override
+                    public void onResponse(BulkResponse response) {
+                        bulkPermits.release();
+                        updateStats(request, response);
+                        listener.onResponse(response);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable e) {
+                        bulkPermits.release();
+                        updateStats(request, e);
+                        listener.onFailure(e);
+                    }
+                });
+    }
+
+    /**
+     * @return stats, by index name
+     */
+    public Map<String, IndexStats> getStats() {
+        return ImmutableMap.copyOf(statsByIndex);
+    }
+
+    public IndexStats getStats(String index) {
+        return statsByIndex.computeIfAbsent(index, k -> new IndexStats());
+    }
+
+    /* -- protected methods -- */
+
+    protected BulkResponse executeBatch(BulkRequest request) {
+        acquirePermit();
+        try {
+            BulkResponse response = Retry.on(EsRejectedExecutionException.class)
+                    .policy(newBackoffPolicy())
+                    .withSyncBackoff(client, request);
+            updateStats(request, response);
+            return response;
+        }
+        catch(Exception e) {
+            updateStats(request, e);
+            throw new TechnicalException(String.format("Error while executing bulk request (%s actions): %s", request.numberOfActions(), e.getMessage()), e);
+        }
+        finally {
+            bulkPermits.release();
+        }
+    }
+
+    protected BackoffPolicy newBackoffPolicy() {
+        return BackoffPolicy.exponentialBackoff(pluginSettings.getIndexBulkBackoffDelay(), pluginSettings.getIndexBulkBackoffMaxRetry());
+    }
+
+    protected BulkRequest newBatch(BulkRequest source) {
+        BulkRequest batch = new BulkRequest();
+        batch.refresh(source.refresh());
+        batch.consistencyLevel(source.consistencyLevel());
+        return batch;
+    }
+
+    protected void addToBatch(BulkRequest batch, ActionRequest request) {
+        if (request instanceof IndexRequest) {
+            batch.add((IndexRequest)request);
+        }
+        else if (request instanceof DeleteRequest) {
+            batch.add((DeleteRequest)request);
+        }
+        else if (request instanceof UpdateRequest) {
+            batch.add((UpdateRequest)request);
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported request type: " + request.getClass().getName());
+        }
+    }
+
+    protected int copyItems(BulkResponse response, BulkItemResponse[] items, int offset) {
+        for (BulkItemResponse item: response.getItems()) {
+            items[offset++] = item;
+        }
+        return offset;
+    }
+
+    protected void acquirePermit() {
+        try {
+            bulkPermits.acquire();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechnicalException("Interrupted while waiting for a bulk request slot", e);
+        }
+    }
+
+    protected void updateStats(BulkRequest request, BulkResponse response) {
+        for (BulkItemResponse item: response) {
+            IndexStats stats = getStats(item.getIndex());
+            if (!item.isFailed()) {
+                stats.docCount.incrementAndGet();
+            }
+            else {
+                stats.failureCount.incrementAndGet();
+                if (item.getFailure().getCause() instanceof EsRejectedExecutionException) {
+                    stats.rejectionCount.incrementAndGet();
+                }
+            }
+        }
+        for (String index: getIndices(request)) {
+            IndexStats stats = getStats(index);
+            stats.bulkCount.incrementAndGet();
+            stats.tookInMillis.addAndGet(response.getTookInMillis());
+        }
+    }
+
+    protected void updateStats(BulkRequest request, Throwable failure) {
+        boolean rejected = ExceptionsHelper.unwrapCause(failure) instanceof EsRejectedExecutionException;
+        for (String index: getIndices(request)) {
+            IndexStats stats = getStats(index);
+            stats.failureCount.incrementAndGet();
+            if (rejected) {
+                stats.rejectionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Refresh indices of requests asking for a refresh (ignored when executed in a bulk request)
+     */
+    protected void refreshIfNeed(BulkRequest request) {
+        Set<String> indices = new HashSet<>();
+        for (ActionRequest subRequest: request.requests()) {
+            if (isRefresh(subRequest)) {
+                Collections.addAll(indices, ((IndicesRequest)subRequest).indices());
+            }
+        }
+        if (indices.isEmpty()) {
+            return;
+        }
+        client.admin().indices().prepareRefresh(indices.toArray(new String[indices.size()]))
+                .execute(new ActionListener<RefreshResponse>() {
+                    @Override
+                    public void onResponse(RefreshResponse response) {
+                    }
+
+                    @Override
+                    public void onFailure(Throwable e) {
+                        logger.error(String.format("Error while refreshing indices %s: %s", indices, e.getMessage()), e);
+                    }
+                });
+    }
+
+    protected boolean isRefresh(ActionRequest request) {
+        return (request instanceof IndexRequest && ((IndexRequest)request).refresh())
+                || (request instanceof DeleteRequest && ((DeleteRequest)request).refresh())
+                || (request instanceof UpdateRequest && ((UpdateRequest)request).refresh());
+    }
+
+    protected Set<String> getIndices(BulkRequest request) {
+        Set<String> indices = new HashSet<>();
+        for (IndicesRequest subRequest: request.subRequests()) {
+            Collections.addAll(indices, subRequest.indices());
+        }
+        return indices;
+    }
+
+    protected void sleep(TimeValue delay) {
+        try {
+            Thread.sleep(delay.millis());
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechnicalException("Interrupted while waiting to retry a rejected request", e);
+        }
+    }
+
+    /**
+     * Indexing counters, of an index
+     */
+    public static class IndexStats {
+
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicLong docCount = new AtomicLong();
+        private final AtomicLong bulkCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicLong rejectionCount = new AtomicLong();
+        private final AtomicLong tookInMillis = new AtomicLong();
+
+        public long getDocCount() {
+            return docCount.get();
+        }
+
+        public long getBulkCount() {
+            return bulkCount.get();
+        }
+
+        public long getFailureCount() {
+            return failureCount.get();
+        }
+
+        public long getRejectionCount() {
+            return rejectionCount.get();
+        }
+
+        public long getTookInMillis() {
+            return tookInMillis.get();
+        }
+
+        /**
+         * @return indexed documents by second, since the first write on the index (creation of its stats)
+         */
+        public double getDocsPerSecond() {
+            long elapsed = System.currentTimeMillis() - startTime;
+            return elapsed <= 0 ? 0 : docCount.get() * 1000d / elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("docs=%s, bulks=%s, failures=%s, rejections=%s, docs/s=%.1f",
+                    getDocCount(), getBulkCount(), getFailureCount(), getRejectionCount(), getDocsPerSecond());
+        }
+    }
+}
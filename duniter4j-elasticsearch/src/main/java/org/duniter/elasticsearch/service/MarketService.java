@@ -130,9 +130,8 @@ public class MarketService extends AbstractService {
                 .setSource(jsonCategory);
 
         // Execute indexBlocksFromNode
-        IndexResponse response = indexRequest
-                .setRefresh(false)
-                .execute().actionGet();
+        IndexResponse response = indexingService.execute(INDEX, indexRequest
+                .setRefresh(false));
 
         return response.getId();
     }
@@ -146,10 +145,9 @@ public class MarketService extends AbstractService {
             logger.debug(String.format("Indexing market record from issuer [%s]", issuer.substring(0, 8)));
         }
 
-        IndexResponse response = client.prepareIndex(INDEX, RECORD_TYPE)
+        IndexResponse response = indexingService.execute(INDEX, client.prepareIndex(INDEX, RECORD_TYPE)
                 .setSource(recordJson)
-                .setRefresh(false)
-                .execute().actionGet();
+                .setRefresh(false));
 
         return response.getId();
     }
@@ -166,9 +164,8 @@ public class MarketService extends AbstractService {
             logger.debug(String.format("Updating market record [%s] from issuer [%s]", id, issuer.substring(0, 8)));
         }
 
-        client.prepareUpdate(INDEX, RECORD_TYPE, id)
-                .setDoc(recordJson)
-                .execute().actionGet();
+        indexingService.execute(INDEX, client.prepareUpdate(INDEX, RECORD_TYPE, id)
+                .setDoc(recordJson));
     }
 
     public String indexCommentFromJson(String commentJson) {
@@ -180,10 +177,9 @@ public class MarketService extends AbstractService {
             logger.debug(String.format("Indexing a comment from issuer [%s]", issuer.substring(0, 8)));
         }
 
-        IndexResponse response = client.prepareIndex(INDEX, RECORD_COMMENT_TYPE)
+        IndexResponse response = indexingService.execute(INDEX, client.prepareIndex(INDEX, RECORD_COMMENT_TYPE)
                 .setSource(commentJson)
-                .setRefresh(false)
-                .execute().actionGet();
+                .setRefresh(false));
         return response.getId();
     }
 
@@ -200,8 +196,7 @@ public class MarketService extends AbstractService {
         }
 
         // Execute indexBlocksFromNode
-        client.prepareUpdate(INDEX, RECORD_COMMENT_TYPE, id)
-                .execute().actionGet();
+        indexingService.execute(INDEX, client.prepareUpdate(INDEX, RECORD_COMMENT_TYPE, id));
     }
 
     public MarketService fillRecordCategories() {
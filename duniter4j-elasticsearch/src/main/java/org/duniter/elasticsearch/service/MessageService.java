@@ -121,10 +121,9 @@ public class MessageService extends AbstractService {
             logger.debug(String.format("Indexing a record from issuer [%s]", issuer.substring(0, 8)));
         }
 
-        IndexResponse response = client.prepareIndex(INDEX, RECORD_TYPE)
+        IndexResponse response = indexingService.execute(INDEX, client.prepareIndex(INDEX, RECORD_TYPE)
                 .setSource(recordJson)
-                .setRefresh(false)
-                .execute().actionGet();
+                .setRefresh(false));
 
         return response.getId();
     }
@@ -28,7 +28,6 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
 import org.apache.commons.lang3.ArrayUtils;
 import org.duniter.core.client.model.bma.BlockchainBlock;
 import org.duniter.core.client.model.bma.BlockchainParameters;
@@ -48,21 +47,13 @@ import org.duniter.elasticsearch.exception.InvalidSignatureException;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.index.IndexResponse;
-import org.elasticsearch.action.search.SearchPhaseExecutionException;
-import org.elasticsearch.action.search.SearchRequestBuilder;
-import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
-import org.elasticsearch.index.query.QueryBuilders;
-import org.elasticsearch.search.SearchHit;
-import org.elasticsearch.search.SearchHitField;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.util.List;
 import java.util.Objects;
 
@@ -173,10 +164,9 @@ public class RegistryService extends AbstractService {
             logger.debug(String.format("Indexing a registry record from issuer [%s]", issuer.substring(0, 8)));
         }
 
-        IndexResponse response = client.prepareIndex(INDEX, RECORD_TYPE)
+        IndexResponse response = indexingService.execute(INDEX, client.prepareIndex(INDEX, RECORD_TYPE)
                 .setSource(recordJson)
-                .setRefresh(false)
-                .execute().actionGet();
+                .setRefresh(false));
         return response.getId();
     }
 
@@ -192,9 +182,8 @@ public class RegistryService extends AbstractService {
             logger.debug(String.format("Updating market record [%s] from issuer [%s]", id, issuer.substring(0, 8)));
         }
 
-        client.prepareUpdate(INDEX, RECORD_TYPE, id)
-                .setDoc(recordJson)
-                .execute().actionGet();
+        indexingService.execute(INDEX, client.prepareUpdate(INDEX, RECORD_TYPE, id)
+                .setDoc(recordJson));
     }
 
     public void insertRecordFromBulkFile(File bulkFile) {
@@ -264,9 +253,8 @@ public class RegistryService extends AbstractService {
                     .setSource(json);
 
             // Execute indexBlocksFromNode
-            indexRequest
-                    .setRefresh(true)
-                    .execute().actionGet();
+            indexingService.execute(INDEX, indexRequest
+                    .setRefresh(true));
 
         } catch(JsonProcessingException e) {
             throw new TechnicalException(e);
@@ -595,9 +583,8 @@ public class RegistryService extends AbstractService {
                 .setSource(jsonCategory);
 
         // Execute indexBlocksFromNode
-        IndexResponse response = indexRequest
-                .setRefresh(false)
-                .execute().actionGet();
+        IndexResponse response = indexingService.execute(INDEX, indexRequest
+                .setRefresh(false));
 
         return response.getId();
     }
@@ -610,41 +597,8 @@ public class RegistryService extends AbstractService {
      * @return
      */
     protected String getSenderPubkeyByCurrencyId(String currencyId) {
-
-        if (!existsIndex(currencyId)) {
-            return null;
-        }
-
-        // Prepare request
-        SearchRequestBuilder searchRequest = client
-                .prepareSearch(INDEX)
-                .setTypes(CURRENCY_TYPE)
-                .setSearchType(SearchType.DFS_QUERY_THEN_FETCH);
-
-        // If more than a word, search on terms match
-        searchRequest.setQuery(QueryBuilders.matchQuery("_id", currencyId));
-
-        // Execute query
-        try {
-            SearchResponse response = searchRequest.execute().actionGet();
-
-            // Read query result
-            SearchHit[] searchHits = response.getHits().getHits();
-            for (SearchHit searchHit : searchHits) {
-                if (searchHit.source() != null) {
-                    Currency currency = gson.fromJson(new String(searchHit.source(), "UTF-8"), Currency.class);
-                    return currency.getSenderPubkey();
-                }
-                else {
-                    SearchHitField field = searchHit.getFields().get("senderPubkey");
-                    return field.getValue().toString();
-                }
-            }
-        }
-        catch(SearchPhaseExecutionException | JsonSyntaxException | UnsupportedEncodingException e) {
-            // Failed or no item on index
-        }
-
-        return null;
+        // Realtime get: no need to wait for a refresh (null if the index not exists)
+        Object senderPubkey = getFieldById(INDEX, CURRENCY_TYPE, currencyId, "senderPubkey");
+        return senderPubkey == null ? null : senderPubkey.toString();
     }
 }
@@ -117,11 +117,10 @@ public class UserService extends AbstractService {
             logger.debug(String.format("Indexing a user profile from issuer [%s]", issuer.substring(0, 8)));
         }
 
-        IndexResponse response = client.prepareIndex(INDEX, PROFILE_TYPE)
+        IndexResponse response = indexingService.execute(INDEX, client.prepareIndex(INDEX, PROFILE_TYPE)
                 .setSource(profileJson)
                 .setId(issuer) // always use the issuer pubkey as id
-                .setRefresh(false)
-                .execute().actionGet();
+                .setRefresh(false));
         return response.getId();
     }
 
@@ -141,9 +140,8 @@ public class UserService extends AbstractService {
             logger.debug(String.format("Indexing a user profile from issuer [%s]", issuer.substring(0, 8)));
         }
 
-        UpdateResponse response = client.prepareUpdate(INDEX, PROFILE_TYPE, issuer)
-                .setDoc(profileJson)
-                .execute().actionGet();
+        UpdateResponse response = indexingService.execute(INDEX, client.prepareUpdate(INDEX, PROFILE_TYPE, issuer)
+                .setDoc(profileJson));
     }
 
 
@@ -35,6 +35,7 @@ import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.transport.TransportService;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -47,6 +48,7 @@ import java.util.concurrent.TimeUnit;
 public class ThreadPool extends AbstractLifecycleComponent<ThreadPool> {
 
     private ScheduledThreadPoolExecutor scheduler = null;
+    private ExecutorService executor = null;
     private Injector injector;
 
     private final List<Runnable> afterStartedCommands;
@@ -63,6 +65,8 @@ public class ThreadPool extends AbstractLifecycleComponent<ThreadPool> {
         this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
         this.scheduler.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
         this.scheduler.setRemoveOnCancelPolicy(true);
+
+        this.executor = EsExecutors.newCached("duniter4j-worker", 60, TimeUnit.SECONDS, EsExecutors.daemonThreadFactory(settings, "duniter4j-worker"));
     }
 
     public void doStart(){
@@ -82,6 +86,7 @@ public class ThreadPool extends AbstractLifecycleComponent<ThreadPool> {
 
     public void doStop(){
         scheduler.shutdown();
+        executor.shutdown();
         // TODO : cancel all aiting jobs
     }
 
@@ -91,6 +96,22 @@ public class ThreadPool extends AbstractLifecycleComponent<ThreadPool> {
         return this.scheduler;
     }
 
+    /**
+     * Executor used to run long tasks (e.g. blockchain synchronization stages), outside the scheduler thread
+     */
+    public ExecutorService executor() {
+        return this.executor;
+    }
+
+    /**
+     * Executes an action asynchronously, on a worker thread.
+     *
+     * @param command the action to take
+     */
+    public void execute(Runnable command) {
+        executor.execute(new LoggingRunnable(command));
+    }
+
     /**
      * Schedules an action when node is started (all services and modules ready)
      *
@@ -0,0 +1,180 @@
+package org.duniter.elasticsearch.service;
+
+/*
+ * #%L
+ * Duniter4j :: ElasticSearch Plugin
+ * %%
+ * Copyright (C) 2014 - 2015 EIS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+
+
+
+import com.google.common.collect.Lists;
+import org.duniter.core.client.model.bma.BlockchainBlock;
+import org.duniter.core.client.model.local.Peer;
+import org.duniter.core.client.service.bma.BlockchainRemoteService;
+import org.duniter.core.model.ProgressionModelImpl;
+import org.duniter.elasticsearch.PluginSettings;
+import org.duniter.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BlockchainServiceFromPeersTest {
+
+    private static final String CURRENCY = "test";
+
+    private ThreadPool threadPool;
+    private Peer peer;
+
+    @Before
+    public void setUp() {
+        threadPool = new ThreadPool(Settings.EMPTY, null) {
+            @Override
+            public void scheduleOnStarted(Runnable command) {
+                command.run();
+            }
+        };
+        peer = new Peer("localhost", 9201);
+    }
+
+    @After
+    public void tearDown() {
+        threadPool.doStop();
+    }
+
+    @Test
+    public void retryChunkWhenIndexingFails() throws Exception {
+        final AtomicInteger indexCount = new AtomicInteger();
+        final Set<Integer> indexedChunks = new TreeSet<>();
+
+        BlockchainService service = new StubBlockchainService() {
+            @Override
+            protected void indexChunk(String currencyName, PeerChunk chunk, String[] blocksAsJson, Set<String> missingBlockNumbers) {
+                // First indexation fails (e.g. ES not available)
+                if (indexCount.incrementAndGet() == 1) {
+                    throw new ElasticsearchException("Index not available");
+                }
+                super.indexChunk(currencyName, chunk, blocksAsJson, missingBlockNumbers);
+                synchronized (indexedChunks) {
+                    indexedChunks.add(chunk.firstNumber);
+                }
+            }
+        };
+
+        Collection<String> missingBlocks = service.indexBlocksFromPeers(peer, CURRENCY, 0, 29, new ProgressionModelImpl());
+
+        Assert.assertTrue("Unexpected missing blocks: " + missingBlocks, missingBlocks.isEmpty());
+        Assert.assertEquals(Lists.newArrayList(0, 10, 20), Lists.newArrayList(indexedChunks));
+        Assert.assertEquals(4, indexCount.get());
+    }
+
+    @Test
+    public void missingChunkWhenIndexingAlwaysFails() throws Exception {
+        BlockchainService service = new StubBlockchainService() {
+            @Override
+            protected void indexChunk(String currencyName, PeerChunk chunk, String[] blocksAsJson, Set<String> missingBlockNumbers) {
+                if (chunk.firstNumber == 10) {
+                    throw new ElasticsearchException("Index not available");
+                }
+                super.indexChunk(currencyName, chunk, blocksAsJson, missingBlockNumbers);
+            }
+        };
+
+        Collection<String> missingBlocks = service.indexBlocksFromPeers(peer, CURRENCY, 0, 29, new ProgressionModelImpl());
+
+        Assert.assertEquals(Lists.newArrayList("10-19"), Lists.newArrayList(missingBlocks));
+    }
+
+    /* -- internal methods -- */
+
+    protected static String toBlockHash(int number) {
+        return "HASH" + number;
+    }
+
+    protected static String toBlockAsJson(int number) {
+        return String.format("{\"number\":%s,\"currency\":\"%s\",\"hash\":\"%s\",\"previousHash\":\"%s\"}",
+                number, CURRENCY, toBlockHash(number), toBlockHash(number - 1));
+    }
+
+    protected static BlockchainRemoteService createRemoteService() {
+        return (BlockchainRemoteService) Proxy.newProxyInstance(BlockchainServiceFromPeersTest.class.getClassLoader(),
+                new Class<?>[]{BlockchainRemoteService.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getBlock":
+                            BlockchainBlock block = new BlockchainBlock();
+                            block.setCurrency(CURRENCY);
+                            block.setNumber((Integer) args[1]);
+                            block.setHash(toBlockHash((Integer) args[1]));
+                            return block;
+                        case "getBlocksAsJson":
+                            int count = (Integer) args[1];
+                            int from = (Integer) args[2];
+                            String[] blocksAsJson = new String[count];
+                            for (int i = 0; i < count; i++) {
+                                blocksAsJson[i] = toBlockAsJson(from + i);
+                            }
+                            return blocksAsJson;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Blockchain service, with a single peer, and without ES client (chunks are not sent to ES)
+     */
+    private class StubBlockchainService extends BlockchainService {
+
+        StubBlockchainService() {
+            super(null, new PluginSettings(Settings.builder().put("duniter.bulk.size", 10).build()), threadPool, new ServiceLocator(null) {
+                @Override
+                public BlockchainRemoteService getBlockchainRemoteService() {
+                    return createRemoteService();
+                }
+            });
+        }
+
+        @Override
+        protected List<Peer> getPeersWithSameBlock(Peer peer, BlockchainBlock block) {
+            return Lists.newArrayList(peer);
+        }
+
+        @Override
+        protected void indexChunk(String currencyName, PeerChunk chunk, String[] blocksAsJson, Set<String> missingBlockNumbers) {
+            chunk.firstPreviousHash = toBlockHash(chunk.firstNumber - 1);
+            chunk.lastHash = toBlockHash(chunk.firstNumber + chunk.count - 1);
+        }
+
+        @Override
+        public void indexCurrentBlock(BlockchainBlock currentBlock, boolean wait) {
+            // skip
+        }
+    }
+}